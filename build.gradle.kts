@@ -22,6 +22,17 @@ java {
 	targetCompatibility = JavaVersion.VERSION_11
 }
 
+sourceSets {
+	create("jmh") {
+		compileClasspath += sourceSets.main.get().output
+		runtimeClasspath += sourceSets.main.get().output
+	}
+}
+
+val jmhImplementation by configurations.getting {
+	extendsFrom(configurations.implementation.get())
+}
+
 application {
 	mainClass.set("com.dbms.Interpreter")
 }
@@ -30,6 +41,8 @@ dependencies {
 	implementation(libs.jsqlparser)
 	implementation(libs.guava)
 	testImplementation(libs.junit.jupiter)
+	jmhImplementation(libs.jmh.core)
+	"jmhAnnotationProcessor"(libs.jmh.generator)
 }
 
 tasks.test {
@@ -38,3 +51,11 @@ tasks.test {
 		events("passed", "skipped", "failed")
 	}
 }
+
+tasks.register<JavaExec>("jmh") {
+	description = "Runs the JMH benchmarks; pass JMH options with -PjmhArgs=\"...\""
+	group = "verification"
+	classpath = sourceSets["jmh"].runtimeClasspath
+	mainClass.set("org.openjdk.jmh.Main")
+	args((findProperty("jmhArgs") as String? ?: "").split(" ").filter { it.isNotEmpty() })
+}
@@ -0,0 +1,35 @@
+package com.dbms.benchmarks;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.TupleGenerator;
+import java.io.File;
+import java.io.IOException;
+
+/** Loads the dataset of a benchmark into the Catalog. */
+final class Datasets {
+
+    /** Directory that generated datasets are cached in */
+    private static final String GENERATED = String.join(File.separator, "build", "benchmark-data");
+
+    /** Seed of generated datasets, so that every run measures the same data */
+    private static final long SEED = 42;
+
+    private Datasets() {}
+
+    /** Initializes the Catalog with a dataset, generating it first if needed.
+     *
+     * @param dataset name of a directory in {@code input}, e.g. {@code big}, or the scale of a
+     *                database generated by {@code TupleGenerator}, e.g. {@code 1} or {@code 0.5}
+     * @throws IOException */
+    static void init(String dataset) throws IOException {
+        String config = String.join(File.separator, "input", dataset, "config.txt");
+        if (!new File(config).exists()) {
+            String dir = GENERATED + File.separator + "scale-" + dataset;
+            config = dir + File.separator + "config.txt";
+            if (!new File(config).exists()) {
+                TupleGenerator.generateDatabase(dir, Double.parseDouble(dataset), SEED);
+            }
+        }
+        Catalog.init(config);
+    }
+}
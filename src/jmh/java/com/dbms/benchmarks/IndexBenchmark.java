@@ -0,0 +1,81 @@
+package com.dbms.benchmarks;
+
+import com.dbms.index.Index;
+import com.dbms.index.TreeIndexBuilder;
+import com.dbms.operators.physical.IndexScanOperator;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Range;
+import com.dbms.utils.Tuple;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Time to build a B+-tree index and to scan a range of keys through it. Sailors.A is clustered;
+ * Boats.E and Reserves.H are not. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexBenchmark {
+
+    /** Dataset to run on; see {@code Datasets.init} */
+    @Param({"1"})
+    public String dataset;
+
+    /** Indexed column, as Table.Column */
+    @Param({"Sailors.A", "Boats.E", "Reserves.H"})
+    public String column;
+
+    /** Fraction of the key range that range scans read */
+    @Param({"0.1"})
+    public double selectivity;
+
+    /** Index on {@code column} */
+    private Index index;
+
+    /** Smallest key of range scans */
+    private int low;
+
+    /** Largest key of range scans */
+    private int high;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Datasets.init(dataset);
+        Catalog.serializeIndexes();
+        String table = column.split("\\.")[0];
+        index = Catalog.getIndexes(table).stream()
+                .filter(i -> i.name.toString().equals(column))
+                .findFirst()
+                .orElseThrow();
+        Range range = Catalog.STATS.getAttributeRange(index.name);
+        low = range.min;
+        high = low + (int) ((range.max - range.min) * selectivity);
+    }
+
+    @Benchmark
+    public void serialize() {
+        TreeIndexBuilder.serialize(index);
+    }
+
+    @Benchmark
+    public void rangeScan(Blackhole bh) throws IOException {
+        IndexScanOperator op = new IndexScanOperator(index.name.TABLE, index, low, high);
+        Tuple t;
+        while ((t = op.getNextTuple()) != null) bh.consume(t);
+    }
+}
@@ -0,0 +1,84 @@
+package com.dbms.benchmarks;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static com.dbms.utils.Helpers.strOrderBysToOrderBys;
+
+import com.dbms.operators.physical.BlockNestedLoopJoinOperator;
+import com.dbms.operators.physical.ExternalSortOperator;
+import com.dbms.operators.physical.PhysicalOperator;
+import com.dbms.operators.physical.ScanOperator;
+import com.dbms.operators.physical.SortMergeJoinOperator;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Time to join Reserves with Boats on Reserves.H = Boats.D by sort-merge join and by block nested
+ * loop join. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinBenchmark {
+
+    /** Dataset to run on; see {@code Datasets.init} */
+    @Param({"1"})
+    public String dataset;
+
+    /** Buffer pages of the sorts of SMJ and of BNLJ */
+    @Param({"5"})
+    public int pages;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Datasets.init(dataset);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        Catalog.cleanTempDir();
+    }
+
+    @Benchmark
+    public void sortMergeJoin(Blackhole bh) throws IOException {
+        ExternalSortOperator left =
+                new ExternalSortOperator(new ScanOperator("Reserves"), strOrderBysToOrderBys("Reserves.H"), pages);
+        ExternalSortOperator right =
+                new ExternalSortOperator(new ScanOperator("Boats"), strOrderBysToOrderBys("Boats.D"), pages);
+        drain(new SortMergeJoinOperator(left, right), bh);
+    }
+
+    @Benchmark
+    public void blockNestedLoopJoin(Blackhole bh) {
+        drain(
+                new BlockNestedLoopJoinOperator(
+                        new ScanOperator("Reserves"),
+                        new ScanOperator("Boats"),
+                        strExpToExp("Reserves.H = Boats.D"),
+                        pages),
+                bh);
+    }
+
+    /** @param op operator to read every tuple of
+     * @param bh consumer of the batches */
+    private static void drain(PhysicalOperator op, Blackhole bh) {
+        TupleBatch batch;
+        while ((batch = op.getNextBatch()) != null) bh.consume(batch.count());
+    }
+}
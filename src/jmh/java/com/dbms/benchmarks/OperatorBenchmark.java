@@ -0,0 +1,64 @@
+package com.dbms.benchmarks;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+
+import com.dbms.operators.physical.PhysicalOperator;
+import com.dbms.operators.physical.ScanOperator;
+import com.dbms.operators.physical.SelectOperator;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import net.sf.jsqlparser.expression.Expression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Time to run scan and selection pipelines over Sailors. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+
+    /** Dataset to run on; see {@code Datasets.init} */
+    @Param({"1"})
+    public String dataset;
+
+    /** Selection on Sailors */
+    @Param({"Sailors.B < 100", "Sailors.B < 500 AND Sailors.C >= 250"})
+    public String condition;
+
+    /** Compiled form of {@code condition} */
+    private Expression expression;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Datasets.init(dataset);
+        expression = strExpToExp(condition);
+    }
+
+    @Benchmark
+    public void scanSelectTuples(Blackhole bh) {
+        PhysicalOperator op = new SelectOperator(new ScanOperator("Sailors"), expression);
+        while (op.getNextTuple() != null) bh.consume(op);
+    }
+
+    @Benchmark
+    public void scanSelectBatches(Blackhole bh) {
+        PhysicalOperator op = new SelectOperator(new ScanOperator("Sailors"), expression);
+        TupleBatch batch;
+        while ((batch = op.getNextBatch()) != null) bh.consume(batch.count());
+    }
+}
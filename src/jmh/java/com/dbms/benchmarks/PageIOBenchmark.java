@@ -0,0 +1,113 @@
+package com.dbms.benchmarks;
+
+import com.dbms.operators.physical.ScanOperator;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import com.dbms.utils.TupleReader;
+import com.dbms.utils.TupleWriter;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Throughput of reading and writing table pages: reading a table with a TupleReader, writing up to
+ * a batch of its tuples with a TupleWriter, scanning it tuple by tuple and batch by batch, and
+ * dumping it to a file in the temp directory. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageIOBenchmark {
+
+    /** Table of the dataset to scan and dump */
+    @Param({"Boats", "Reserves", "Sailors"})
+    public String table;
+
+    /** Value of {@code Catalog.MappedReads} while scanning */
+    @Param({"false", "true"})
+    public boolean mappedReads;
+
+    /** Dataset to run on; see {@code Datasets.init} */
+    @Param({"big", "1"})
+    public String dataset;
+
+    /** Scan of {@code table} */
+    private ScanOperator scan;
+
+    /** File the table is dumped to */
+    private String dumpPath;
+
+    /** Path to the file of {@code table} */
+    private String tablePath;
+
+    /** Batch that pages are read into and written from */
+    private TupleBatch pages;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Datasets.init(dataset);
+        Catalog.MappedReads = mappedReads;
+        Catalog.createTempSubDir("benchmark");
+        dumpPath = Catalog.pathToTempFile("benchmark" + File.separator + table);
+        tablePath = Catalog.pathToTable(table);
+        scan = new ScanOperator(table);
+        pages = TupleBatch.allocate(scan.schema);
+        new TupleReader(tablePath).nextTuples(pages);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Catalog.cleanTempDir();
+    }
+
+    @Benchmark
+    public void readPages(Blackhole bh) throws IOException {
+        TupleReader reader = new TupleReader(tablePath, mappedReads);
+        TupleBatch batch = TupleBatch.allocate(scan.schema);
+        while (reader.nextTuples(batch) > 0) bh.consume(batch.count());
+        reader.close();
+    }
+
+    @Benchmark
+    public void writePages() throws IOException {
+        TupleWriter writer = new TupleWriter(dumpPath);
+        writer.writeBatch(pages);
+        writer.close();
+    }
+
+    @Benchmark
+    public void scanTuples(Blackhole bh) {
+        scan.reset();
+        Tuple t;
+        while ((t = scan.getNextTuple()) != null) bh.consume(t);
+    }
+
+    @Benchmark
+    public void scanBatches(Blackhole bh) {
+        scan.reset();
+        TupleBatch batch;
+        while ((batch = scan.getNextBatch()) != null) bh.consume(batch.count());
+    }
+
+    @Benchmark
+    public void dump() throws IOException {
+        scan.reset();
+        scan.dump(dumpPath);
+    }
+}
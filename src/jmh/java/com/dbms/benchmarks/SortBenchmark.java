@@ -0,0 +1,66 @@
+package com.dbms.benchmarks;
+
+import static com.dbms.utils.Helpers.strOrderBysToOrderBys;
+
+import com.dbms.operators.physical.ExternalSortOperator;
+import com.dbms.operators.physical.ScanOperator;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Time to externally sort Reserves with different numbers of buffer pages and threads. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortBenchmark {
+
+    /** Dataset to run on; see {@code Datasets.init} */
+    @Param({"1"})
+    public String dataset;
+
+    /** Value of {@code Catalog.EXTPages} */
+    @Param({"3", "5", "16"})
+    public int extPages;
+
+    /** Value of {@code Catalog.EXTThreads} */
+    @Param({"1", "4"})
+    public int extThreads;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Datasets.init(dataset);
+        Catalog.EXTPages = extPages;
+        Catalog.EXTThreads = extThreads;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        Catalog.cleanTempDir();
+    }
+
+    @Benchmark
+    public void sort(Blackhole bh) throws IOException {
+        ExternalSortOperator op = new ExternalSortOperator(
+                new ScanOperator("Reserves"), strOrderBysToOrderBys("Reserves.H", "Reserves.G"), Catalog.EXTPages);
+        TupleBatch batch;
+        while ((batch = op.getNextBatch()) != null) bh.consume(batch.count());
+    }
+}
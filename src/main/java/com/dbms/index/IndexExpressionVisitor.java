@@ -1,8 +1,6 @@
 package com.dbms.index;
 
-import com.dbms.utils.Catalog;
 import com.dbms.utils.ExpressionVisitorBase;
-import com.dbms.utils.Range;
 import java.util.ArrayList;
 import java.util.List;
 import net.sf.jsqlparser.expression.BinaryExpression;
@@ -57,16 +55,6 @@ public class IndexExpressionVisitor extends ExpressionVisitorBase {
         index = i;
     }
 
-    /**
-     * @return The number of integers in the range of the attribute of {@code index}.
-     */
-    public int extent() {
-        Range r = Catalog.STATS.getAttributeRange(index.name);
-        int top = high != null ? high : r.max;
-        int bottom = low != null ? low : r.min;
-        return top - bottom + 1;
-    }
-
     /** @param exp The expression which the visitor evaluates
      * @return the boolean result of evaluating exp */
     private boolean evaluateBoolean(Expression exp) {
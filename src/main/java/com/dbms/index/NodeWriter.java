@@ -12,6 +12,12 @@ import java.util.List;
 /** Class for serializing leaf/index nodes and writing the header node. */
 public class NodeWriter extends IO {
 
+    /** Path to the index file */
+    private String path;
+
+    /** Page number of the node in the buffer */
+    private int pageNumber;
+
     /** Constructs a {@code NodeWriter} instance according to the given table and column names
      *
      * @param tableName     unaliased name of the table
@@ -19,7 +25,9 @@ public class NodeWriter extends IO {
      * @throws FileNotFoundException */
     NodeWriter(Attribute c) throws FileNotFoundException {
         buffer = ByteBuffer.allocate(PAGE_SIZE);
-        fout = new FileOutputStream(Catalog.pathToIndexFile(c));
+        path = Catalog.pathToIndexFile(c);
+        Catalog.BUFFER_POOL.invalidate(path);
+        fout = new FileOutputStream(path);
         fc = fout.getChannel();
         bufferIndex = 8;
     }
@@ -87,12 +95,13 @@ public class NodeWriter extends IO {
         bufferIndex += 4;
     }
 
-    /** Writes a page into the buffer
+    /** Writes the buffer to the file as a page, and through to the buffer pool
      *
      * @throws IOException */
     private void writePage() throws IOException {
+        zeroTail();
         fc.write(buffer);
-        clearBuffer();
+        Catalog.BUFFER_POOL.put(path, pageNumber, buffer);
     }
 
     /** Sets channel to a given page
@@ -100,8 +109,8 @@ public class NodeWriter extends IO {
      * @param pageNumber page numebr to set channel to
      * @throws IOException */
     private void setChannelToPage(int pageNumber) throws IOException {
+        this.pageNumber = pageNumber;
         fc.position(PAGE_SIZE * pageNumber);
-        clearBuffer();
         bufferIndex = 0;
     }
 }
@@ -1,12 +1,11 @@
 package com.dbms.index;
 
+import com.dbms.utils.BufferPool;
 import com.dbms.utils.Catalog;
 import com.dbms.utils.IO;
 import com.dbms.utils.TupleReader;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.List;
 
 /** A class that deserializes an index by first traversing to a leaf node, then walking across the
  * leaf layer to extract tuples. If the index is clustered, this reads directly from file after the
@@ -16,6 +15,15 @@ public class TreeDeserializer extends IO {
     /** flag telling whether the buffer can be used */
     private boolean memUsable;
 
+    /** Path to the index file */
+    private String path;
+
+    /** Pinned frame holding the current node, null if none */
+    private BufferPool.Frame frame;
+
+    /** Memory mapping of the index file if {@code Catalog.MappedReads}, otherwise null */
+    private ByteBuffer mapping;
+
     /** The index to deserialize */
     private Index i;
 
@@ -48,11 +56,17 @@ public class TreeDeserializer extends IO {
 
     public TreeDeserializer(Index i) throws IOException {
         this.i = i;
-        buffer = ByteBuffer.allocate(PAGE_SIZE);
+        path = Catalog.pathToIndexFile(i.name);
+        if (Catalog.MappedReads) mapping = Catalog.BUFFER_POOL.map(path);
         open();
 
         // read header page
-        readNode(0);
+        try {
+            readNode(0);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
         rootAddress = buffer.getInt(0);
         numLeaves = buffer.getInt(4);
         // order = buffer.getInt(8);
@@ -63,12 +77,12 @@ public class TreeDeserializer extends IO {
      * @param key the attribute key of the tuple to look up; may not be present, null for lowest key
      * @return the first tuple in the relation with the key
      * @throws IOException */
-    public List<Integer> getFirstTupleAtKey(Integer key) throws IOException {
+    public int[] getFirstTupleAtKey(Integer key) throws IOException {
         open();
         readNode(rootAddress);
 
         // find leaf node
-        int leafPage = 0;
+        int leafPage = rootAddress;
         while (true) {
             int nodeType = readInt();
             if (nodeType == 0) break;
@@ -116,10 +130,10 @@ public class TreeDeserializer extends IO {
      *
      * @return the next tuple as ordered by the leaves
      * @throws IOException */
-    public List<Integer> getNextTuple() throws IOException {
+    public int[] getNextTuple() throws IOException {
         if (!memUsable) return null;
         if (i.isClustered) {
-            List<Integer> next = tr.nextTuple();
+            int[] next = tr.nextTuple();
             if (next == null) close();
             return next;
         }
@@ -132,7 +146,7 @@ public class TreeDeserializer extends IO {
      *
      * @return tuple at next RID
      * @throws IOException */
-    private List<Integer> readTuple() throws IOException {
+    private int[] readTuple() throws IOException {
         int pageId = readInt();
         int tupleId = readInt();
         return tr.readTuple(new RID(pageId, tupleId));
@@ -173,34 +187,48 @@ public class TreeDeserializer extends IO {
         return num;
     }
 
-    /** @param pageNumber the page number of the node to read
-     * @throws IOException */
+    /** Moves to the page of a node in the mapping, or pins it in the buffer pool, unpinning the
+     * previous node.
+     *
+     * @param pageNumber the page number of the node to read
+     * @throws IOException if the index file has no such page, e.g. it is empty or truncated */
     private void readNode(int pageNumber) throws IOException {
-        clearBuffer();
-        fc.position(pageNumber * PAGE_SIZE);
-        fc.read(buffer);
+        if (mapping != null) {
+            if ((long) pageNumber * PAGE_SIZE >= mapping.limit()) throw missingPage(pageNumber);
+            buffer = mapping;
+            bufferIndex = pageNumber * PAGE_SIZE;
+            return;
+        }
+        Catalog.BUFFER_POOL.unpin(frame);
+        frame = Catalog.BUFFER_POOL.pin(path, pageNumber);
+        if (frame == null) throw missingPage(pageNumber);
+        buffer = frame.data();
         bufferIndex = 0;
     }
 
-    /** Opens the input stream, channel, and TupleReader if not already open
+    /** @param pageNumber page number of a node
+     * @return exception for an index file without the page */
+    private IOException missingPage(int pageNumber) {
+        return new IOException("index file " + path + " has no page " + pageNumber);
+    }
+
+    /** Opens the TupleReader if not already open
      *
      * @throws IOException */
     public void open() throws IOException {
         if (!memUsable) {
-            fin = new FileInputStream(Catalog.pathToIndexFile(i.name));
-            fc = fin.getChannel();
-            tr = new TupleReader(Catalog.pathToTable(i.name.TABLE));
+            tr = new TupleReader(Catalog.pathToTable(i.name.TABLE), Catalog.MappedReads);
             memUsable = true;
         }
     }
 
-    /** Closes the input stream, channel, and TupleReader if not already closed
+    /** Unpins the current node and closes the TupleReader if not already closed
      *
      * @throws IOException */
     public void close() throws IOException {
         if (memUsable) {
-            fin.close();
-            fc.close();
+            Catalog.BUFFER_POOL.unpin(frame);
+            frame = null;
             tr.close();
             memUsable = false;
         }
@@ -64,6 +64,7 @@ public class TreeIndexBuilder {
         ScanOperator scanOp = new ScanOperator(cn.TABLE);
         ExternalSortOperator sortOp = new ExternalSortOperator(scanOp, sortCondition, 5);
         sortOp.dump(Catalog.pathToTable(cn.TABLE));
+        Catalog.STATS.tableRewritten(cn.TABLE);
         Catalog.cleanTempDir();
     }
 
@@ -76,9 +77,9 @@ public class TreeIndexBuilder {
         TupleReader tr = new TupleReader(Catalog.pathToTable(cn.TABLE));
         Map<Integer, List<RID>> entries = new HashMap<>();
 
-        List<Integer> next;
+        int[] next;
         while ((next = tr.nextTuple()) != null) {
-            int key = next.get(attributeIndex);
+            int key = next[attributeIndex];
             if (!entries.containsKey(key)) entries.put(key, new LinkedList<>());
             entries.get(key).add(new RID(tr.pageId, tr.tupleId));
         }
@@ -0,0 +1,45 @@
+package com.dbms.operators.logical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.queryplan.PhysicalPlanBuilder;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+
+/** The logical representation of the aggregate operator, which contains the child operator, the
+ * GROUP BY columns, and the aggregate functions computed for every group */
+public class LogicalAggregateOperator extends LogicalOperator {
+
+    public LogicalOperator child;
+
+    /** GROUP BY columns, empty if the whole child is one group */
+    public List<Column> groupBy;
+
+    /** aggregate functions of the select items and the HAVING condition */
+    public List<Function> functions;
+
+    /** @param child     child operator
+     * @param groupBy   GROUP BY columns, empty if the whole child is one group
+     * @param functions aggregate functions to compute for every group */
+    public LogicalAggregateOperator(LogicalOperator child, List<Column> groupBy, List<Function> functions) {
+        this.child = child;
+        this.groupBy = groupBy;
+        this.functions = functions;
+    }
+
+    /** @param physicalPlan visitor which converts logical to physical operator
+     * @throws IOException */
+    @Override
+    public void accept(PhysicalPlanBuilder physicalPlan) throws IOException {
+        physicalPlan.visit(this);
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        pw.println(writeLevel("Aggregate" + groupBy + functions, level));
+        child.write(pw, level + 1);
+    }
+}
@@ -12,7 +12,8 @@ public class LogicalDuplicateEliminationOperator extends LogicalOperator {
 
     public LogicalOperator child;
 
-    /** @param child child operator; must be a sort operator */
+    /** @param child child operator; duplicates are eliminated by sorting if it is a sort operator,
+     *              otherwise by hashing */
     public LogicalDuplicateEliminationOperator(LogicalOperator child) {
         this.child = child;
     }
@@ -0,0 +1,52 @@
+package com.dbms.operators.logical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.queryplan.PhysicalPlanBuilder;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/** The logical representation of the limit operator, which contains the child operator, the number
+ * of rows to return, and the number of rows to skip first */
+public class LogicalLimitOperator extends LogicalOperator {
+
+    public LogicalOperator child;
+
+    /** maximum number of rows to return; {@code Long.MAX_VALUE} if unbounded */
+    public long limit;
+
+    /** number of rows to skip before returning any */
+    public long offset;
+
+    /** @param child  child operator
+     * @param limit  maximum number of rows to return; {@code Long.MAX_VALUE} if unbounded
+     * @param offset number of rows to skip before returning any */
+    public LogicalLimitOperator(LogicalOperator child, long limit, long offset) {
+        this.child = child;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    /** @param physicalPlan visitor which converts logical to physical operator
+     * @throws IOException */
+    @Override
+    public void accept(PhysicalPlanBuilder physicalPlan) throws IOException {
+        physicalPlan.visit(this);
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        pw.println(writeLevel(describe("Limit", limit, offset), level));
+        child.write(pw, level + 1);
+    }
+
+    /** @param name   name of the operator
+     * @param limit  maximum number of rows to return; {@code Long.MAX_VALUE} if unbounded
+     * @param offset number of rows to skip before returning any
+     * @return name followed by the limit and offset, e.g. {@code Limit[10 OFFSET 5]} */
+    public static String describe(String name, long limit, long offset) {
+        String s = limit == Long.MAX_VALUE ? "ALL" : Long.toString(limit);
+        if (offset > 0) s += " OFFSET " + offset;
+        return name + "[" + s + "]";
+    }
+}
@@ -18,7 +18,7 @@ public class LogicalSelectOperator extends LogicalOperator {
     /** {@code exp} is the expression containing columns to select from */
     public Expression exp;
 
-    /** @param logicalScan child operator of SelectOperator
+    /** @param logicalScan child operator of SelectOperator; a scan, or an aggregate for HAVING
      * @param exp         the WHERE expression which we select for; is not null */
     public LogicalSelectOperator(LogicalOperator logicalScan, Expression exp) {
         child = logicalScan;
@@ -0,0 +1,176 @@
+package com.dbms.operators.physical;
+
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Schema;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.AllColumns;
+
+/** The aggregate functions of a query, bound to the columns of the aggregated child. Each group
+ * keeps its state in {@code width()} consecutive longs of an accumulator array: one per function,
+ * and two for AVG (sum and count), so updating a group allocates nothing. Results are truncated to
+ * ints like every other value: AVG rounds towards zero, and a SUM that does not fit in an int is an
+ * error. */
+final class Aggregates {
+
+    /** Supported aggregate functions */
+    enum Kind {
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG
+    }
+
+    /** Function of each aggregate */
+    private final Kind[] kinds;
+
+    /** For each aggregate, offset of its argument in child rows, -1 for {@code COUNT(*)} */
+    private final int[] args;
+
+    /** For each aggregate, offset of its first accumulator in the state of a group */
+    private final int[] slots;
+
+    /** Number of accumulators per group */
+    private final int width;
+
+    /** @param functions aggregate functions of the query; each takes {@code *} (COUNT only) or a
+     *                  single column of the child
+     * @param child     schema of the aggregated rows */
+    Aggregates(List<Function> functions, Schema child) {
+        int n = functions.size();
+        kinds = new Kind[n];
+        args = new int[n];
+        slots = new int[n];
+        int w = 0;
+        for (int i = 0; i < n; i++) {
+            Function f = functions.get(i);
+            kinds[i] = kind(f);
+            if (f.isDistinct() || f.getParameters() == null) throw unsupported(f);
+            List<Expression> params = f.getParameters().getExpressions();
+            if (params.size() != 1) throw unsupported(f);
+            Expression param = params.get(0);
+            if (param instanceof AllColumns && kinds[i] == Kind.COUNT) {
+                args[i] = -1;
+            } else if (param instanceof Column) {
+                args[i] = child.indexOf(Attribute.fromColumn((Column) param));
+                if (args[i] < 0) throw new IllegalArgumentException("Unknown column " + param);
+            } else {
+                throw unsupported(f);
+            }
+            slots[i] = w;
+            w += kinds[i] == Kind.AVG ? 2 : 1;
+        }
+        width = w;
+    }
+
+    /** @param f aggregate function
+     * @return kind of the function, matched case-insensitively by name */
+    private static Kind kind(Function f) {
+        try {
+            return Kind.valueOf(f.getName().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw unsupported(f);
+        }
+    }
+
+    /** @param f aggregate function
+     * @return exception reporting that f is not supported */
+    private static UnsupportedOperationException unsupported(Function f) {
+        return new UnsupportedOperationException("Unsupported aggregate " + f);
+    }
+
+    /** @return number of aggregate functions */
+    int size() {
+        return kinds.length;
+    }
+
+    /** @return number of accumulators per group */
+    int width() {
+        return width;
+    }
+
+    /** Initializes the state of a new group.
+     *
+     * @param acc   accumulators of all groups
+     * @param start offset of the group's state in acc */
+    void init(long[] acc, int start) {
+        for (int i = 0; i < kinds.length; i++) {
+            int a = start + slots[i];
+            switch (kinds[i]) {
+                case MIN:
+                    acc[a] = Long.MAX_VALUE;
+                    break;
+                case MAX:
+                    acc[a] = Long.MIN_VALUE;
+                    break;
+                case AVG:
+                    acc[a + 1] = 0;
+                    // fall through
+                default:
+                    acc[a] = 0;
+            }
+        }
+    }
+
+    /** Adds a row of a batch to the state of its group.
+     *
+     * @param acc     accumulators of all groups
+     * @param start   offset of the group's state in acc
+     * @param columns column vectors of the batch
+     * @param r       physical row of the batch */
+    void update(long[] acc, int start, int[][] columns, int r) {
+        for (int i = 0; i < kinds.length; i++) {
+            int a = start + slots[i];
+            long v = args[i] >= 0 ? columns[args[i]][r] : 0;
+            switch (kinds[i]) {
+                case COUNT:
+                    acc[a]++;
+                    break;
+                case SUM:
+                    acc[a] += v;
+                    break;
+                case MIN:
+                    acc[a] = Math.min(acc[a], v);
+                    break;
+                case MAX:
+                    acc[a] = Math.max(acc[a], v);
+                    break;
+                case AVG:
+                    acc[a] += v;
+                    acc[a + 1]++;
+                    break;
+            }
+        }
+    }
+
+    /** Writes the results of a group. MIN, MAX and AVG of a group without rows, which only happens
+     * for an empty input without GROUP BY, are 0.
+     *
+     * @param acc   accumulators of all groups
+     * @param start offset of the group's state in acc
+     * @param out   output row
+     * @param pos   offset in out of the first result */
+    void results(long[] acc, int start, int[] out, int pos) {
+        for (int i = 0; i < kinds.length; i++) {
+            int a = start + slots[i];
+            long v;
+            switch (kinds[i]) {
+                case MIN:
+                    v = acc[a] == Long.MAX_VALUE ? 0 : acc[a];
+                    break;
+                case MAX:
+                    v = acc[a] == Long.MIN_VALUE ? 0 : acc[a];
+                    break;
+                case AVG:
+                    v = acc[a + 1] == 0 ? 0 : acc[a] / acc[a + 1];
+                    break;
+                default:
+                    v = acc[a];
+            }
+            out[pos + i] = Math.toIntExact(v);
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.dbms.operators.physical;
 
 import static com.dbms.utils.Helpers.writeLevel;
 
-import com.dbms.utils.ExpressionParseVisitor;
+import com.dbms.utils.ExpressionCompiler;
+import com.dbms.utils.Predicate;
 import com.dbms.utils.Schema;
 import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,8 +32,8 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
     /** True if buffer contains tuples to join */
     private boolean blockRemaining;
 
-    /** visitor for evaluating tuples on join conditions */
-    private ExpressionParseVisitor epv = new ExpressionParseVisitor();
+    /** join condition compiled against the left and right schemas */
+    private Predicate predicate;
 
     /** Expression for the join. Note: "most real-world joins are equijoins, but your BNLJ algorithm
      * should support all join conditions as specified in the Project 1 description" */
@@ -52,6 +54,7 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
         this.left = left;
         this.right = right;
         joinCondition = exp;
+        predicate = ExpressionCompiler.compile(exp, left.schema, right.schema);
         innerTuple = right.getNextTuple();
         maxTuples = pages * 4096 / (4 * schema.size());
         buffer = new ArrayList<>(maxTuples);
@@ -73,23 +76,20 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
         }
     }
 
-    /** @return {@code Tuple} for the next tuple in the resulting relation returned by BNLJ */
-    @Override
-    public Tuple getNextTuple() {
+    /** Advances the nested loops to the next outer tuple that satisfies the join condition with
+     * {@code innerTuple}.
+     *
+     * @return matching outer tuple, null if no pairs are left */
+    private Tuple nextMatch() {
         // nested loop: for each block in outer, for each tuple in inner, for each tuple in outer
         while (true) {
             if (!blockRemaining) return null;
             if (innerTuple != null) {
                 if (outerTupleId < buffer.size()) {
-                    // check if inner and outer tuples satisfy the join condition, and return
-                    // combined tuple if they do
-                    Tuple combinedTuple = Tuple.mergeTuples(buffer.get(outerTupleId), innerTuple);
+                    // check if inner and outer tuples satisfy the join condition
+                    Tuple outerTuple = buffer.get(outerTupleId);
                     outerTupleId++;
-
-                    if (joinCondition == null) return combinedTuple;
-                    epv.currentTuple = combinedTuple;
-                    joinCondition.accept(epv);
-                    if (epv.booleanResult) return combinedTuple;
+                    if (predicate.test(outerTuple.getValues(), innerTuple.getValues())) return outerTuple;
                 } else {
                     // we have run out of tuples in outer (bottom level of nested loop). increment
                     // inner tuple and reset to first outer tuple
@@ -106,6 +106,26 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
         }
     }
 
+    /** @return {@code Tuple} for the next tuple in the resulting relation returned by BNLJ */
+    @Override
+    public Tuple getNextTuple() {
+        Tuple outerTuple = nextMatch();
+        if (outerTuple == null) return null;
+        return Tuple.mergeTuples(schema, outerTuple, innerTuple);
+    }
+
+    /** @return next batch of joined rows, written into the column vectors without building merged
+     *         Tuples */
+    @Override
+    public TupleBatch getNextBatch() {
+        TupleBatch batch = emptyBatch();
+        Tuple outerTuple;
+        while (!batch.isFull() && (outerTuple = nextMatch()) != null) {
+            batch.add(outerTuple.getValues(), innerTuple.getValues());
+        }
+        return batch.count() == 0 ? null : batch;
+    }
+
     /** Resets {@code left} and {@code right} operators to the first tuple in the relation */
     @Override
     public void reset() {
@@ -118,7 +138,7 @@ public class BlockNestedLoopJoinOperator extends PhysicalOperator {
 
     @Override
     public void write(PrintWriter pw, int level) {
-        String s = String.format("BNLJ[%s]", joinCondition != null ? joinCondition.toString() : "");
+        String s = String.format("BNLJ[%s]%s", joinCondition != null ? joinCondition.toString() : "", estimate());
         pw.println(writeLevel(s, level));
         left.write(pw, level + 1);
         right.write(pw, level + 1);
@@ -2,8 +2,10 @@ package com.dbms.operators.physical;
 
 import static com.dbms.utils.Helpers.writeLevel;
 
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Tuple;
 import java.io.PrintWriter;
+import java.util.List;
 
 /** An operator that assumes its child returns Tuples in sorted order and filters out any
  * duplicates. */
@@ -35,6 +37,12 @@ public class DuplicateEliminationOperator extends PhysicalOperator {
         prev = null;
     }
 
+    /** @return sort order of the child, which this operator preserves */
+    @Override
+    public List<Attribute> sortOrder() {
+        return child.sortOrder();
+    }
+
     @Override
     public void write(PrintWriter pw, int level) {
         pw.println(writeLevel("DupElim", level));
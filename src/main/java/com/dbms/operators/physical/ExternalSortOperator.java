@@ -6,33 +6,45 @@ import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
 import com.dbms.utils.Schema;
 import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
 import com.dbms.utils.TupleReader;
 import com.dbms.utils.TupleWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.PriorityQueue;
 import java.util.UUID;
-import net.sf.jsqlparser.schema.Column;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 
 /** An operator that performs an external sort algorithm on the output of the child operator and
  * opens a reader to the sorted scratch file.
  *
- * The algorithm first performs an initial pass over the data, creating sorted runs of B pages.
+ * The algorithm first performs an initial pass over the data, creating sorted runs by replacement
+ * selection: a heap of B pages of tuples keeps writing its smallest tuple to the current run and
+ * replacing it with the next child tuple, which joins the current run if it is not smaller than the
+ * tuple just written and waits for the next run otherwise. Runs are about 2B pages long on random
+ * input, and sorted input produces a single run.
  *
  * It then performs merge passes until there is one scratch file remaining.
  *
  * For each merge pass: opens readers on B - 1 previous runs performs a merge sort between them by
- * buffering one tuple from each reader writes smallest of these tuples to an output file using the
- * remaining buffer */
+ * buffering one tuple from each reader in a loser tree writes smallest of these tuples to an output
+ * file using the remaining buffer
+ *
+ * With more than one thread, the B pages are split evenly between the threads: the child is read on
+ * the calling thread into chunks of B / threads pages, which are sorted and written as runs on a
+ * fork-join pool while the next chunk is read, and the merges of each pass run on the pool at the
+ * same time, each reading B / threads - 1 runs. */
 public class ExternalSortOperator extends PhysicalOperator {
 
     /** {@code child} is the child operator for external sort */
@@ -44,12 +56,40 @@ public class ExternalSortOperator extends PhysicalOperator {
     /** Number of buffer pages */
     private int pages;
 
+    /** Number of threads sorting runs and merging them */
+    private int threads;
+
+    /** Pool of {@code threads} threads while sorting, null if sorting on the calling thread */
+    private ForkJoinPool pool;
+
     /** Number of attributes per child tuple */
     private int numAttributes;
 
-    /** Number of tuples that can fit on all buffer pages */
+    /** Number of runs merged at a time: one input page per run and one output page, but at least
+     * two runs */
+    private int fanIn;
+
+    /** Number of tuples that can fit on the buffer pages of one thread */
     private int tuplesPerRun;
 
+    /** Rows of the replacement selection heap during the initial pass */
+    private int[][] heapRows;
+
+    /** Run that each row of the heap belongs to */
+    private int[] heapRuns;
+
+    /** Number of rows in the heap */
+    private int heapSize;
+
+    /** Current batch of child tuples during the initial pass */
+    private TupleBatch input;
+
+    /** Index in {@code input} of the next child tuple */
+    private int inputIndex;
+
+    /** True once the child returned its last batch */
+    private boolean childExhausted;
+
     /** Tuple comparator for child tuples */
     private TupleComparator tc;
 
@@ -59,6 +99,9 @@ public class ExternalSortOperator extends PhysicalOperator {
     /** Number of merges/runs created in the previous pass */
     private int mergeLen;
 
+    /** Number of runs created by the initial pass */
+    private int initialRuns;
+
     /** Reader for the final sorted merge */
     private TupleReader sortedReader;
 
@@ -72,16 +115,42 @@ public class ExternalSortOperator extends PhysicalOperator {
      * @param pages    is the number of pages used for external sorting
      * @throws IOException */
     public ExternalSortOperator(PhysicalOperator child, List<OrderByElement> orderBys, int pages) throws IOException {
+        this(child, orderBys, pages, Catalog.EXTThreads);
+    }
+
+    /** Reads all Tuples from child into table, then sorts in the order specified by orderBys.
+     *
+     * @param child    child operator
+     * @param orderBys list of orderBys, null if none
+     * @param pages    is the number of pages used for external sorting, shared by all threads
+     * @param threads  is the number of threads sorting runs and merging them
+     * @throws IOException */
+    public ExternalSortOperator(PhysicalOperator child, List<OrderByElement> orderBys, int pages, int threads)
+            throws IOException {
         super(child.schema);
         this.orderBys = orderBys;
         this.child = child;
         this.pages = pages;
+        this.threads = Math.max(1, threads);
         numAttributes = schema.size();
-        tuplesPerRun = pages * 4096 / numAttributes * 4;
+        int threadPages = pages / this.threads;
+        fanIn = Math.max(2, threadPages - 1);
+        tuplesPerRun = Math.max(1, threadPages * 4096 / (numAttributes * 4));
         tc = new TupleComparator(orderBys, schema);
         Catalog.createTempSubDir(id);
-        initialPass();
-        mergePasses();
+        if (this.threads == 1) {
+            initialPass();
+            mergePasses();
+            return;
+        }
+        pool = new ForkJoinPool(this.threads);
+        try {
+            parallelInitialPass();
+            mergePasses();
+        } finally {
+            pool.shutdown();
+            pool = null;
+        }
     }
 
     /** @return Tuple at index in table */
@@ -89,7 +158,7 @@ public class ExternalSortOperator extends PhysicalOperator {
     public Tuple getNextTuple() {
         try {
             if (sortedReader == null) return null;
-            List<Integer> nextVal = sortedReader.nextTuple();
+            int[] nextVal = sortedReader.nextTuple();
             if (nextVal == null) return null;
             return new Tuple(schema, nextVal);
         } catch (IOException e) {
@@ -98,6 +167,19 @@ public class ExternalSortOperator extends PhysicalOperator {
         return null;
     }
 
+    /** @return next batch of sorted Tuples, read straight into column vectors */
+    @Override
+    public TupleBatch getNextBatch() {
+        try {
+            if (sortedReader == null) return null;
+            TupleBatch batch = emptyBatch();
+            if (sortedReader.nextTuples(batch) > 0) return batch;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     /** resets internal buffer index */
     @Override
     public void reset() {
@@ -117,6 +199,11 @@ public class ExternalSortOperator extends PhysicalOperator {
         }
     }
 
+    /** @return number of sorted runs the initial pass created */
+    int initialRuns() {
+        return initialRuns;
+    }
+
     /** @param pass the index of the current pass
      * @param num  the index of the current run/merge in current pass
      * @return path to unique temp subdirectory with specified filename */
@@ -129,85 +216,235 @@ public class ExternalSortOperator extends PhysicalOperator {
      * @throws IOException */
     private void mergePasses() throws IOException {
         while (mergeLen > 1) {
+            List<Future<?>> merges = new ArrayList<>();
             int count = 0;
-            for (int i = 0; i < mergeLen; i += pages - 1) {
-                executeMerge(count, i);
-                count++;
+            for (int i = 0; i < mergeLen; i += fanIn) {
+                int mergeNum = count++;
+                int prevStart = i;
+                if (pool == null) {
+                    executeMerge(mergeNum, prevStart);
+                } else {
+                    merges.add(pool.submit(() -> {
+                        executeMerge(mergeNum, prevStart);
+                        return null;
+                    }));
+                }
             }
+            for (Future<?> merge : merges) await(merge);
             mergePass++;
             mergeLen = count;
         }
         sortedReader = mergeLen > 0 ? new TupleReader(path(mergePass - 1, 0)) : null;
     }
 
-    /** @param mergeNum the number of merge in the current pass
+    /** Merges up to {@code fanIn} runs of the previous pass with a loser tree over their current
+     * rows, which are read in place so that merging allocates nothing per tuple
+     *
+     * @param mergeNum the number of merge in the current pass
      * @param prevStart the number of merge in the previous pass from which to start the merge
      * @throws IOException */
     private void executeMerge(int mergeNum, int prevStart) throws IOException {
         TupleWriter tw = new TupleWriter(path(mergePass, mergeNum));
-        PriorityQueue<Map.Entry<TupleReader, Tuple>> queue = new PriorityQueue<>(Map.Entry.comparingByValue(tc));
-        int stop = Math.min(prevStart + pages - 1, mergeLen);
-        for (int j = prevStart; j < stop; j++) {
-            TupleReader tr = new TupleReader(path(mergePass - 1, j));
-            Tuple tp = new Tuple(schema, tr.nextTuple());
-            queue.offer(new AbstractMap.SimpleEntry<>(tr, tp));
+        int k = Math.min(prevStart + fanIn, mergeLen) - prevStart;
+        TupleReader[] readers = new TupleReader[k];
+        int[][] rows = new int[k][numAttributes];
+        boolean[] exhausted = new boolean[k];
+        for (int j = 0; j < k; j++) {
+            readers[j] = new TupleReader(path(mergePass - 1, prevStart + j));
+            exhausted[j] = !readers[j].nextTuple(rows[j]);
         }
-        while (queue.size() > 0) {
-            Entry<TupleReader, Tuple> minEntry = queue.poll();
-            TupleReader minTr = minEntry.getKey();
-            Tuple minTp = minEntry.getValue();
-            tw.writeTuple(minTp);
-            List<Integer> nextVal = minTr.nextTuple();
-            if (nextVal != null) {
-                Tuple next = new Tuple(schema, nextVal);
-                queue.offer(new AbstractMap.SimpleEntry<>(minTr, next));
-            }
+        LoserTree tree = new LoserTree(rows, exhausted, tc);
+        while (!tree.isEmpty()) {
+            int w = tree.winner();
+            tw.writeTuple(rows[w]);
+            exhausted[w] = !readers[w].nextTuple(rows[w]);
+            tree.replay();
         }
         tw.close();
     }
 
-    /** Reads all of child tuples and creates sorted runs
+    /** Reads all of child tuples and creates sorted runs by replacement selection
      *
      * @throws IOException */
     private void initialPass() throws IOException {
+        heapRows = new int[tuplesPerRun][];
+        heapRuns = new int[tuplesPerRun];
+        int[] row = new int[numAttributes];
+        while (heapSize < tuplesPerRun && nextInput(row)) {
+            heapRows[heapSize] = row;
+            siftUp(heapSize++);
+            row = new int[numAttributes];
+        }
+        int run = -1;
+        TupleWriter tw = null;
+        while (heapSize > 0) {
+            int[] min = heapRows[0];
+            if (heapRuns[0] != run) {
+                if (tw != null) tw.close();
+                run = heapRuns[0];
+                tw = new TupleWriter(path(0, run));
+            }
+            tw.writeTuple(min);
+            if (nextInput(row)) {
+                heapRows[0] = row;
+                heapRuns[0] = tc.compare(row, min) >= 0 ? run : run + 1;
+                row = min;
+            } else {
+                heapSize--;
+                heapRows[0] = heapRows[heapSize];
+                heapRuns[0] = heapRuns[heapSize];
+                heapRows[heapSize] = null;
+            }
+            siftDown(0);
+        }
+        if (tw != null) tw.close();
+        heapRows = null;
+        heapRuns = null;
+        input = null;
+        mergePass = 1;
+        mergeLen = run + 1;
+        initialRuns = mergeLen;
+    }
+
+    /** Reads the child on the calling thread into chunks of {@code tuplesPerRun} rows, and sorts and
+     * writes each chunk as a run on the pool. At most {@code threads} chunks are in memory at once,
+     * counting the one being read.
+     *
+     * @throws IOException */
+    private void parallelInitialPass() throws IOException {
+        Deque<Future<?>> inFlight = new ArrayDeque<>();
         int run = 0;
-        boolean isNextRun;
-        do {
-            Boolean result = executeRun(run);
-            if (result == null) break;
-            isNextRun = result;
-            run++;
-        } while (isNextRun);
+        boolean tuplesRemaining = true;
+        while (tuplesRemaining) {
+            while (inFlight.size() >= threads - 1 && !inFlight.isEmpty()) await(inFlight.poll());
+            int[][] rows = new int[tuplesPerRun][];
+            int n = 0;
+            int[] row = new int[numAttributes];
+            while (n < tuplesPerRun && (tuplesRemaining = nextInput(row))) {
+                rows[n++] = row;
+                row = new int[numAttributes];
+            }
+            if (n == 0) break;
+            int runNum = run++;
+            int count = n;
+            inFlight.add(pool.submit(() -> {
+                writeRun(rows, count, runNum);
+                return null;
+            }));
+        }
+        while (!inFlight.isEmpty()) await(inFlight.poll());
+        input = null;
         mergePass = 1;
         mergeLen = run;
+        initialRuns = run;
     }
 
-    /** Executes a run by getting up to the available number buffer pages amount of tuples from the
-     * child, sorting them, and writing to a run file
+    /** Sorts rows and writes them as a run
      *
-     * @param i run number
-     * @return true if there are more child tuples for a next run, null if this did not write
-     *         anything
+     * @param rows rows to sort; only the first {@code n} are used
+     * @param n    number of rows
+     * @param run  run number
      * @throws IOException */
-    private Boolean executeRun(int i) throws IOException {
-        boolean tuplesRemaining = true;
-        List<Tuple> runTuples = new LinkedList<>();
-        for (int j = 0; j < tuplesPerRun; j++) {
-            Tuple next = child.getNextTuple();
-            if (next == null) {
-                tuplesRemaining = false;
-                break;
+    private void writeRun(int[][] rows, int n, int run) throws IOException {
+        Arrays.sort(rows, 0, n, tc::compare);
+        TupleWriter tw = new TupleWriter(path(0, run));
+        for (int i = 0; i < n; i++) tw.writeTuple(rows[i]);
+        tw.close();
+    }
+
+    /** Waits for a task on the pool to finish
+     *
+     * @param task task to wait for
+     * @throws IOException if the task threw one, or if interrupted */
+    private static void await(Future<?> task) throws IOException {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /** Copies the next child tuple into a row, reading the child a batch at a time
+     *
+     * @param into row to copy the values of the tuple into
+     * @return false if the child has no tuples left */
+    private boolean nextInput(int[] into) {
+        while (input == null || inputIndex == input.count()) {
+            if (childExhausted) return false;
+            input = child.getNextBatch();
+            inputIndex = 0;
+            if (input == null) {
+                childExhausted = true;
+                return false;
             }
-            runTuples.add(next);
         }
-        if (runTuples.size() == 0) return null;
-        TupleWriter tw = new TupleWriter(path(0, i));
-        Collections.sort(runTuples, tc);
-        for (Tuple t : runTuples) {
-            tw.writeTuple(t);
+        int[][] columns = input.columns();
+        int r = input.row(inputIndex++);
+        for (int c = 0; c < into.length; c++) into[c] = columns[c][r];
+        return true;
+    }
+
+    /** @param a index of a row in the heap
+     * @param b index of another row in the heap
+     * @return true if row a belongs before row b: it is in an earlier run, or it is smaller in the
+     *         same run */
+    private boolean before(int a, int b) {
+        if (heapRuns[a] != heapRuns[b]) return heapRuns[a] < heapRuns[b];
+        return tc.compare(heapRows[a], heapRows[b]) < 0;
+    }
+
+    /** @param a index of a row in the heap
+     * @param b index of another row in the heap */
+    private void swap(int a, int b) {
+        int[] row = heapRows[a];
+        heapRows[a] = heapRows[b];
+        heapRows[b] = row;
+        int run = heapRuns[a];
+        heapRuns[a] = heapRuns[b];
+        heapRuns[b] = run;
+    }
+
+    /** Moves a row up the heap until its parent belongs before it
+     *
+     * @param i index of the row in the heap */
+    private void siftUp(int i) {
+        while (i > 0 && before(i, (i - 1) / 2)) {
+            swap(i, (i - 1) / 2);
+            i = (i - 1) / 2;
         }
-        tw.close();
-        return tuplesRemaining;
+    }
+
+    /** Moves a row down the heap until it belongs before its children
+     *
+     * @param i index of the row in the heap */
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) return;
+            if (child + 1 < heapSize && before(child + 1, child)) child++;
+            if (!before(child, i)) return;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    /** @return the ORDER BY columns followed by the remaining columns */
+    @Override
+    public List<Attribute> sortOrder() {
+        return tc.order();
+    }
+
+    /** @param orderBys list of columns to sort by, null if none
+     * @param s        schema of the tuples to sort
+     * @return the order an external sort of tuples of schema s on orderBys returns them in; the
+     *         sort returns a child already sorted in this order unchanged */
+    public static List<Attribute> orderFor(List<OrderByElement> orderBys, Schema s) {
+        return TupleComparator.getSortOrder(orderBys, s);
     }
 
     @Override
@@ -222,15 +459,18 @@ public class ExternalSortOperator extends PhysicalOperator {
  * column ordering. */
 class TupleComparator implements Comparator<Tuple> {
 
-    /** {@code tableColumnNames} is an ordered list of {@code ColumnName} objects that contain
-     * the columns to sort by */
-    private List<Attribute> sortOrder;
+    /** Offsets in the tuple schema of the columns to sort by, in order of priority */
+    private int[] sortOrder;
+
+    /** Columns to sort by, in order of priority */
+    private List<Attribute> order;
 
     /** @param orderBys is the ordered list of columns to sort by
      * @param schema {@code Schema} object representing the schema of our db
      * @param rep      is a representative child tuple */
     public TupleComparator(List<OrderByElement> orderBys, Schema s) {
-        sortOrder = getSortOrder(orderBys, s);
+        order = Collections.unmodifiableList(getSortOrder(orderBys, s));
+        sortOrder = s.indexesOf(order);
     }
 
     /** @param orderBys list of columns to prioritize for sorting
@@ -239,14 +479,11 @@ class TupleComparator implements Comparator<Tuple> {
      * @return aliased table & column names in order of sorting; first the columns specified in the
      *         ORDER BY statement, then the columns not previously mentioned as they appear in the
      *         child Tuples */
-    private List<Attribute> getSortOrder(List<OrderByElement> orderBys, Schema s) {
+    static List<Attribute> getSortOrder(List<OrderByElement> orderBys, Schema s) {
         List<Attribute> sortOrder = new LinkedList<>();
         if (orderBys != null) {
             for (OrderByElement orderBy : orderBys) {
-                Column col = (Column) orderBy.getExpression();
-                String tableName = col.getTable().getName();
-                String columnName = col.getColumnName();
-                sortOrder.add(Attribute.bundle(tableName, columnName));
+                sortOrder.add(Attribute.fromExpression(orderBy.getExpression()));
             }
         }
         for (Attribute col : s.get()) {
@@ -255,11 +492,21 @@ class TupleComparator implements Comparator<Tuple> {
         return sortOrder;
     }
 
+    /** @return columns to sort by, in order of priority */
+    List<Attribute> order() {
+        return order;
+    }
+
     /** compares Tuples column by column as specified by tableColumnNames */
     @Override
     public int compare(Tuple t1, Tuple t2) {
-        for (Attribute attr : sortOrder) {
-            int comp = Integer.compare(t1.get(attr), t2.get(attr));
+        return compare(t1.getValues(), t2.getValues());
+    }
+
+    /** compares rows of tuple values column by column as specified by tableColumnNames */
+    public int compare(int[] r1, int[] r2) {
+        for (int i : sortOrder) {
+            int comp = Integer.compare(r1[i], r2[i]);
             if (comp != 0) return comp;
         }
         return 0;
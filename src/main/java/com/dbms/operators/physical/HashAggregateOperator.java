@@ -0,0 +1,279 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import com.dbms.utils.TupleWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.UUID;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+
+/** An operator that groups the Tuples of its child on the GROUP BY columns and computes aggregate
+ * functions over each group. Its Tuples hold the GROUP BY columns followed by the aggregates, in no
+ * particular order. Without GROUP BY columns, the whole child is a single group, which is returned
+ * even if the child is empty.
+ *
+ * The group keys are held in a {@code RowHashSet}, and the state of each group in an array of long
+ * accumulators, until they fill their share of the page budget. From then on, child rows of groups
+ * that are not in the table are hash partitioned on their group key into the temp directory with a
+ * {@code TupleWriter}. Since the groups in the table no longer change, every group is either
+ * complete in memory or entirely in one partition. Once the in-memory groups are returned, each
+ * spilled partition is aggregated by a nested hash aggregate with a different hash seed. After
+ * {@code MAX_DEPTH} levels, a partition is aggregated in a table sized to hold all its rows. */
+public class HashAggregateOperator extends PhysicalOperator {
+
+    /** Number of times a partition may be repartitioned before it is aggregated in memory */
+    private static final int MAX_DEPTH = 3;
+
+    public PhysicalOperator child;
+
+    /** GROUP BY columns, empty if the whole child is one group */
+    private List<Column> groupBy;
+
+    /** aggregate functions computed for every group */
+    private List<Function> functions;
+
+    /** Number of buffer pages */
+    private int pages;
+
+    /** Number of times the input of this operator was already partitioned; seeds the hash function */
+    private int depth;
+
+    /** Number of partitions */
+    private int fanout;
+
+    /** Unique identifier for this operator. Used to distinguish its partitions in temp directory. */
+    private String id = UUID.randomUUID().toString();
+
+    /** Offsets of the GROUP BY columns in child rows */
+    private int[] keys;
+
+    /** Offsets of every column of a group key, to hash whole keys */
+    private int[] keyColumns;
+
+    /** Aggregate functions bound to the child schema */
+    private Aggregates aggregates;
+
+    /** Group keys in memory */
+    private RowHashSet groups;
+
+    /** State of the groups in memory, {@code aggregates.width()} longs per group */
+    private long[] accumulators;
+
+    /** Group key of the current child row */
+    private int[] key;
+
+    /** Values of the current child row, when it is written to its partition */
+    private int[] row;
+
+    /** Writers for the rows of each partition, null if the partition has no rows */
+    private TupleWriter[] writers;
+
+    /** For each partition, number of rows written to it */
+    private int[] partitionRows;
+
+    /** True once the child is aggregated */
+    private boolean aggregated;
+
+    /** Index of the next in-memory group to return */
+    private int nextGroup;
+
+    /** Next spilled partition to aggregate */
+    private int nextPartition;
+
+    /** Aggregate of the current spilled partition, null if none */
+    private PhysicalOperator partitionAggregate;
+
+    /** @param child     child operator
+     * @param groupBy   GROUP BY columns, empty if the whole child is one group
+     * @param functions aggregate functions to compute for every group
+     * @param pages     number of buffer pages for the groups in memory and partition writers
+     * @throws IOException */
+    public HashAggregateOperator(PhysicalOperator child, List<Column> groupBy, List<Function> functions, int pages)
+            throws IOException {
+        this(child, groupBy, functions, pages, 0, -1);
+    }
+
+    /** @param depth    number of times the child was already partitioned
+     * @param capacity maximum number of groups in memory, -1 to derive it from the page budget
+     * @see #HashAggregateOperator(PhysicalOperator, List, List, int) */
+    private HashAggregateOperator(
+            PhysicalOperator child, List<Column> groupBy, List<Function> functions, int pages, int depth, int capacity)
+            throws IOException {
+        super(SortAggregateOperator.schema(groupBy, functions));
+        this.child = child;
+        this.groupBy = groupBy;
+        this.functions = functions;
+        this.pages = pages;
+        this.depth = depth;
+        keys = new int[groupBy.size()];
+        keyColumns = new int[groupBy.size()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = child.schema.indexOf(Attribute.fromColumn(groupBy.get(k)));
+            if (keys[k] < 0) throw new IllegalArgumentException("Unknown column " + groupBy.get(k));
+            keyColumns[k] = k;
+        }
+        aggregates = new Aggregates(functions, child.schema);
+        key = new int[keys.length];
+        row = new int[child.schema.size()];
+        // half of the pages may become writer buffers, the rest hold the groups
+        fanout = Math.max(2, pages / 2);
+        if (capacity < 0) {
+            int groupBytes = 4 * keys.length + 8 * aggregates.width();
+            capacity =
+                    (int) Math.min(Integer.MAX_VALUE / 2, (long) (pages - pages / 2) * 4096 / Math.max(1, groupBytes));
+        }
+        capacity = Math.max(1, capacity);
+        groups = new RowHashSet(keys.length, capacity);
+        accumulators = new long[capacity * aggregates.width()];
+        writers = new TupleWriter[fanout];
+        partitionRows = new int[fanout];
+        Catalog.createTempSubDir(id);
+    }
+
+    /** @param p partition number
+     * @return path to unique temp subdirectory with the partition's filename */
+    private String path(int p) {
+        return Catalog.pathToTempFile(id + File.separator + "partition_" + p);
+    }
+
+    /** Reads every child batch, adding each row to its group in memory, or writing it to its
+     * partition if its group is not in memory and the table is full.
+     *
+     * @throws IOException */
+    private void aggregate() throws IOException {
+        int width = aggregates.width();
+        TupleBatch batch;
+        while ((batch = child.getNextBatch()) != null) {
+            int[][] columns = batch.columns();
+            for (int i = 0; i < batch.count(); i++) {
+                int r = batch.row(i);
+                for (int k = 0; k < keys.length; k++) key[k] = columns[keys[k]][r];
+                int hash = JoinHashTable.hash(key, keyColumns, 0);
+                int slot = groups.probe(key, hash);
+                int g;
+                if (!groups.isAbsent(slot)) {
+                    g = groups.index(slot);
+                } else if (!groups.isFull()) {
+                    g = groups.insert(slot, key, hash);
+                    aggregates.init(accumulators, g * width);
+                } else {
+                    spill(columns, r);
+                    continue;
+                }
+                aggregates.update(accumulators, g * width, columns, r);
+            }
+        }
+        if (keys.length == 0 && groups.size() == 0) {
+            // the whole empty child is one group
+            int hash = JoinHashTable.hash(key, keyColumns, 0);
+            int g = groups.insert(groups.probe(key, hash), key, hash);
+            aggregates.init(accumulators, g * width);
+        }
+        for (TupleWriter tw : writers) {
+            if (tw != null) tw.close();
+        }
+        aggregated = true;
+    }
+
+    /** Writes a child row to the partition of its group.
+     *
+     * @param columns column vectors of the child batch
+     * @param r       physical row of the batch
+     * @throws IOException */
+    private void spill(int[][] columns, int r) throws IOException {
+        for (int c = 0; c < row.length; c++) row[c] = columns[c][r];
+        int p = Math.floorMod(JoinHashTable.hash(key, keyColumns, depth + 1), fanout);
+        if (writers[p] == null) writers[p] = new TupleWriter(path(p));
+        writers[p].writeTuple(row);
+        partitionRows[p]++;
+    }
+
+    /** @param out row to write the next in-memory group into
+     * @return false if every in-memory group was returned */
+    private boolean nextGroup(int[] out) {
+        if (nextGroup == groups.size()) return false;
+        int g = nextGroup++;
+        groups.copy(g, out, 0);
+        aggregates.results(accumulators, g * aggregates.width(), out, keys.length);
+        return true;
+    }
+
+    /** Opens the aggregate of the next spilled partition.
+     *
+     * @return true if a partition was opened, false if no spilled partitions are left
+     * @throws IOException */
+    private boolean openNextPartition() throws IOException {
+        while (nextPartition < fanout) {
+            int p = nextPartition++;
+            if (writers[p] == null) continue;
+            PhysicalOperator scan = new TempFileScanOperator(path(p), child.schema);
+            int capacity = depth + 1 < MAX_DEPTH ? -1 : partitionRows[p];
+            partitionAggregate = new HashAggregateOperator(scan, groupBy, functions, pages, depth + 1, capacity);
+            return true;
+        }
+        return false;
+    }
+
+    /** @return next group */
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            if (!aggregated) aggregate();
+            int[] out = new int[schema.size()];
+            if (nextGroup(out)) return new Tuple(schema, out);
+            while (partitionAggregate != null || openNextPartition()) {
+                Tuple next = partitionAggregate.getNextTuple();
+                if (next != null) return next;
+                partitionAggregate = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** @return next batch of groups, written into the column vectors, then the batches of the
+     *         spilled partitions */
+    @Override
+    public TupleBatch getNextBatch() {
+        try {
+            if (!aggregated) aggregate();
+            if (nextGroup < groups.size()) {
+                TupleBatch batch = emptyBatch();
+                int[] out = new int[schema.size()];
+                while (!batch.isFull() && nextGroup(out)) batch.add(out);
+                return batch;
+            }
+            while (partitionAggregate != null || openNextPartition()) {
+                TupleBatch next = partitionAggregate.getNextBatch();
+                if (next != null) return next;
+                partitionAggregate = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** resets to the first group; the child is not read again */
+    @Override
+    public void reset() {
+        nextGroup = 0;
+        nextPartition = 0;
+        partitionAggregate = null;
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        pw.println(writeLevel("HashAggregate" + groupBy + functions, level));
+        child.write(pw, level + 1);
+    }
+}
@@ -0,0 +1,219 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import com.dbms.utils.TupleWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.UUID;
+
+/** An operator that filters out duplicate child Tuples without requiring sorted input. Its output
+ * is in no particular order.
+ *
+ * Child rows are looked up in an in-memory {@code RowHashSet}: rows already in the set are dropped,
+ * and new rows are added to it and returned right away, until the set fills its share of the page
+ * budget. From then on, new rows that are not in the set are hash partitioned into the temp
+ * directory with a {@code TupleWriter}. Since the set no longer changes, none of these rows was
+ * returned, and equal rows land in the same partition. Once the child is exhausted, each spilled
+ * partition is deduplicated by a nested hash duplicate elimination with a different hash seed. If
+ * a partition still spills after {@code MAX_DEPTH} levels, it is sorted and deduplicated with
+ * {@code DuplicateEliminationOperator} instead. */
+public class HashDuplicateEliminationOperator extends PhysicalOperator {
+
+    /** Number of times a partition may be repartitioned before falling back to sorting */
+    private static final int MAX_DEPTH = 3;
+
+    public PhysicalOperator child;
+
+    /** Number of buffer pages */
+    private int pages;
+
+    /** Number of times the input of this operator was already partitioned; seeds the hash function */
+    private int depth;
+
+    /** Number of partitions */
+    private int fanout;
+
+    /** Unique identifier for this operator. Used to distinguish its partitions in temp directory. */
+    private String id = UUID.randomUUID().toString();
+
+    /** Offsets of every column, to hash whole rows */
+    private int[] columns;
+
+    /** Rows returned so far, while the child is read */
+    private RowHashSet seen;
+
+    /** Values of the current child row; reused for every row of a batch */
+    private int[] row;
+
+    /** Writers for the rows of each partition, null if the partition has no rows */
+    private TupleWriter[] writers;
+
+    /** True once every child row was either returned, dropped or written to disk */
+    private boolean consumed;
+
+    /** Next spilled partition to deduplicate */
+    private int nextPartition;
+
+    /** Duplicate elimination of the current spilled partition, null if none */
+    private PhysicalOperator partitionDistinct;
+
+    /** @param child child operator
+     * @param pages number of buffer pages for the set of returned rows and partition writers
+     * @throws IOException */
+    public HashDuplicateEliminationOperator(PhysicalOperator child, int pages) throws IOException {
+        this(child, pages, 0);
+    }
+
+    /** @param depth number of times the child was already partitioned
+     * @see #HashDuplicateEliminationOperator(PhysicalOperator, int) */
+    private HashDuplicateEliminationOperator(PhysicalOperator child, int pages, int depth) throws IOException {
+        super(child.schema);
+        this.child = child;
+        this.pages = pages;
+        this.depth = depth;
+        int width = schema.size();
+        columns = new int[width];
+        for (int c = 0; c < width; c++) columns[c] = c;
+        row = new int[width];
+        // half of the pages may become writer buffers, the rest hold the set
+        fanout = Math.max(2, pages / 2);
+        int tuplesPerPage = 4096 / (4 * width);
+        seen = new RowHashSet(width, Math.max(1, (pages - pages / 2) * tuplesPerPage));
+        writers = new TupleWriter[fanout];
+        Catalog.createTempSubDir(id);
+    }
+
+    /** @param p partition number
+     * @return path to unique temp subdirectory with the partition's filename */
+    private String path(int p) {
+        return Catalog.pathToTempFile(id + File.separator + "partition_" + p);
+    }
+
+    /** Adds a row to the set of returned rows if it is new and the set has room, or writes it to
+     * its partition if it is new and the set is full.
+     *
+     * @param values values of a child row
+     * @return true if the row must be returned now
+     * @throws IOException */
+    private boolean keep(int[] values) throws IOException {
+        int hash = JoinHashTable.hash(values, columns, 0);
+        int slot = seen.probe(values, hash);
+        if (!seen.isAbsent(slot)) return false;
+        if (!seen.isFull()) {
+            seen.insert(slot, values, hash);
+            return true;
+        }
+        int p = Math.floorMod(JoinHashTable.hash(values, columns, depth + 1), fanout);
+        if (writers[p] == null) writers[p] = new TupleWriter(path(p));
+        writers[p].writeTuple(values);
+        return false;
+    }
+
+    /** Closes the partition writers once the child is exhausted.
+     *
+     * @throws IOException */
+    private void finishChild() throws IOException {
+        for (TupleWriter tw : writers) {
+            if (tw != null) tw.close();
+        }
+        consumed = true;
+    }
+
+    /** Opens the duplicate elimination of the next spilled partition.
+     *
+     * @return true if a partition was opened, false if no spilled partitions are left
+     * @throws IOException */
+    private boolean openNextPartition() throws IOException {
+        while (nextPartition < fanout) {
+            int p = nextPartition++;
+            if (writers[p] == null) continue;
+            PhysicalOperator scan = new TempFileScanOperator(path(p), schema);
+            partitionDistinct = depth < MAX_DEPTH
+                    ? new HashDuplicateEliminationOperator(scan, pages, depth + 1)
+                    : new DuplicateEliminationOperator(new ExternalSortOperator(scan, null, pages));
+            return true;
+        }
+        return false;
+    }
+
+    /** @return next unique Tuple */
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            if (!consumed) {
+                Tuple next;
+                while ((next = child.getNextTuple()) != null) {
+                    if (keep(next.getValues())) return next;
+                }
+                finishChild();
+            }
+            while (partitionDistinct != null || openNextPartition()) {
+                Tuple next = partitionDistinct.getNextTuple();
+                if (next != null) return next;
+                partitionDistinct = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** @return next child batch with its duplicate and spilled rows deselected, then the batches of
+     *         the spilled partitions */
+    @Override
+    public TupleBatch getNextBatch() {
+        try {
+            if (!consumed) {
+                TupleBatch batch;
+                while ((batch = child.getNextBatch()) != null) {
+                    int[][] values = batch.columns();
+                    int[] selection = batch.selection();
+                    int kept = 0;
+                    for (int i = 0; i < batch.count(); i++) {
+                        int r = selection[i];
+                        for (int c = 0; c < row.length; c++) row[c] = values[c][r];
+                        if (keep(row)) selection[kept++] = r;
+                    }
+                    batch.select(kept);
+                    if (kept > 0) return batch;
+                }
+                finishChild();
+            }
+            while (partitionDistinct != null || openNextPartition()) {
+                TupleBatch next = partitionDistinct.getNextBatch();
+                if (next != null) return next;
+                partitionDistinct = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** Resets the child operator, empties the set, and discards the partitions */
+    @Override
+    public void reset() {
+        child.reset();
+        try {
+            if (!consumed) finishChild();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        seen.clear();
+        writers = new TupleWriter[fanout];
+        consumed = false;
+        nextPartition = 0;
+        partitionDistinct = null;
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        pw.println(writeLevel("HashDupElim", level));
+        child.write(pw, level + 1);
+    }
+}
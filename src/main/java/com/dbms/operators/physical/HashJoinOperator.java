@@ -0,0 +1,179 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Schema;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import net.sf.jsqlparser.schema.Column;
+
+/** An operator that joins two inputs on equality conditions by loading one input (the build side)
+ * into an in-memory {@code JoinHashTable} keyed on its join columns, then probing the table with
+ * every tuple of the other input. The build side must fit in memory, so the planner
+ * only chooses this operator when the estimated size of the build side fits in
+ * {@code Catalog.HJPages}. The output schema is always the left schema followed by the right
+ * schema, whichever side is built. */
+public class HashJoinOperator extends PhysicalOperator {
+
+    /** Table on the left of the condition */
+    public PhysicalOperator left;
+
+    /** Table on the right of the condition */
+    public PhysicalOperator right;
+
+    /** Join columns of the left child, in order of the equality conditions */
+    private List<Column> leftColumns;
+
+    /** Join columns of the right child, in order of the equality conditions */
+    private List<Column> rightColumns;
+
+    /** True if the hash table is built on the left child and probed with the right child */
+    private boolean buildLeft;
+
+    /** Child whose tuples are probed against the hash table */
+    private PhysicalOperator probe;
+
+    /** Offsets of the join columns in build rows */
+    private int[] buildKeys;
+
+    /** Offsets of the join columns in probe rows */
+    private int[] probeKeys;
+
+    /** Hash table over the build child, null until it is built */
+    private JoinHashTable table;
+
+    /** Current probe batch, null before the first probe */
+    private TupleBatch probeBatch;
+
+    /** Index of the next active row of {@code probeBatch} to probe */
+    private int probeIndex;
+
+    /** Values of the current probe row; reused for every probe row */
+    private int[] probeRow;
+
+    /** Hash of the join columns of the current probe row */
+    private int probeHash;
+
+    /** Next build row to check against the current probe row, -1 if none */
+    private int chain = -1;
+
+    /** @param left         left child operator
+     * @param right        right child operator
+     * @param leftColumns  join columns of the left child
+     * @param rightColumns join columns of the right child, equal to {@code leftColumns} pairwise
+     * @param buildLeft    true to build the hash table on the left child, false to build it on
+     *                     the right child */
+    public HashJoinOperator(
+            PhysicalOperator left,
+            PhysicalOperator right,
+            List<Column> leftColumns,
+            List<Column> rightColumns,
+            boolean buildLeft) {
+        super(Schema.join(left.schema, right.schema));
+        this.left = left;
+        this.right = right;
+        this.leftColumns = leftColumns;
+        this.rightColumns = rightColumns;
+        this.buildLeft = buildLeft;
+        PhysicalOperator build = buildLeft ? left : right;
+        probe = buildLeft ? right : left;
+        buildKeys = keyOffsets(build.schema, buildLeft ? leftColumns : rightColumns);
+        probeKeys = keyOffsets(probe.schema, buildLeft ? rightColumns : leftColumns);
+        probeRow = new int[probe.schema.size()];
+    }
+
+    /** @param s       schema of a child
+     * @param columns join columns of the child
+     * @return offsets of the join columns in the child's schema */
+    static int[] keyOffsets(Schema s, List<Column> columns) {
+        int[] keys = new int[columns.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = s.indexOf(Attribute.fromColumn(columns.get(i)));
+        return keys;
+    }
+
+    /** Reads the whole build child into the hash table. */
+    private void buildTable() {
+        PhysicalOperator build = buildLeft ? left : right;
+        List<int[]> buildRows = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = build.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) buildRows.add(batch.getRow(i));
+        }
+        table = new JoinHashTable(buildRows, buildKeys);
+    }
+
+    /** Advances to the next build row whose join columns equal those of the current probe row,
+     * moving to the next probe row once a chain is exhausted.
+     *
+     * @return index of the matching build row, -1 if no pairs are left */
+    private int nextMatch() {
+        if (table == null) buildTable();
+        if (table.size() == 0) return -1;
+        while (true) {
+            while (chain >= 0) {
+                int r = chain;
+                chain = table.next(r);
+                if (table.matches(r, probeHash, probeRow, probeKeys)) return r;
+            }
+            if (probeBatch == null || probeIndex == probeBatch.count()) {
+                probeBatch = probe.getNextBatch();
+                probeIndex = 0;
+                if (probeBatch == null) return -1;
+            }
+            int[][] columns = probeBatch.columns();
+            int pr = probeBatch.row(probeIndex++);
+            for (int c = 0; c < probeRow.length; c++) probeRow[c] = columns[c][pr];
+            probeHash = JoinHashTable.hash(probeRow, probeKeys, 0);
+            chain = table.first(probeHash);
+        }
+    }
+
+    /** @return next joined Tuple, with the left child's values first */
+    @Override
+    public Tuple getNextTuple() {
+        int r = nextMatch();
+        if (r < 0) return null;
+        int[] first = buildLeft ? table.row(r) : probeRow;
+        int[] second = buildLeft ? probeRow : table.row(r);
+        int[] joined = new int[first.length + second.length];
+        System.arraycopy(first, 0, joined, 0, first.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return new Tuple(schema, joined);
+    }
+
+    /** @return next batch of joined rows, written into the column vectors without building joined
+     *         Tuples */
+    @Override
+    public TupleBatch getNextBatch() {
+        TupleBatch batch = emptyBatch();
+        int r;
+        while (!batch.isFull() && (r = nextMatch()) >= 0) {
+            if (buildLeft) batch.add(table.row(r), probeRow);
+            else batch.add(probeRow, table.row(r));
+        }
+        return batch.count() == 0 ? null : batch;
+    }
+
+    /** Resets the probe child; the hash table is kept, since the build child is unchanged. */
+    @Override
+    public void reset() {
+        probe.reset();
+        probeBatch = null;
+        chain = -1;
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        List<String> equals = new LinkedList<>();
+        for (int i = 0; i < leftColumns.size(); i++) equals.add(leftColumns.get(i) + " = " + rightColumns.get(i));
+        String s = String.format("HJ[%s]%s", String.join(" AND ", equals), estimate());
+        pw.println(writeLevel(s, level));
+        left.write(pw, level + 1);
+        right.write(pw, level + 1);
+    }
+}
@@ -0,0 +1,389 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Helpers;
+import com.dbms.utils.Schema;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import com.dbms.utils.TupleWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/** An operator that joins two inputs on equality conditions when the build side does not fit in
+ * memory, using the hybrid hash join algorithm.
+ *
+ * The build child is hash partitioned on its join columns. Partitions stay resident until the
+ * resident rows exceed the page budget; then the largest resident partition is written to the temp
+ * directory with a {@code TupleWriter}, and its later rows go straight to disk. The resident
+ * partitions form one in-memory {@code JoinHashTable}.
+ *
+ * The probe child is then partitioned with the same hash function: rows of resident partitions are
+ * joined immediately, and rows of spilled partitions are written to disk. Finally, each pair of
+ * spilled partitions is joined by a {@code HashJoinOperator} if its build partition fits in the
+ * budget, or else partitioned again by a nested hybrid hash join with a different hash seed. If a
+ * partition still does not fit after {@code MAX_DEPTH} levels (e.g. a single heavily repeated key),
+ * it is joined with BNLJ instead. */
+public class HybridHashJoinOperator extends PhysicalOperator {
+
+    /** Number of times a partition may be repartitioned before falling back to BNLJ */
+    private static final int MAX_DEPTH = 3;
+
+    /** Table on the left of the condition */
+    public PhysicalOperator left;
+
+    /** Table on the right of the condition */
+    public PhysicalOperator right;
+
+    /** Join columns of the left child, in order of the equality conditions */
+    private List<Column> leftColumns;
+
+    /** Join columns of the right child, in order of the equality conditions */
+    private List<Column> rightColumns;
+
+    /** True if the left child is partitioned first and loaded into memory */
+    private boolean buildLeft;
+
+    /** Child partitioned first, whose resident partitions are loaded into memory */
+    private PhysicalOperator build;
+
+    /** Child partitioned second, whose rows are probed against the resident partitions */
+    private PhysicalOperator probe;
+
+    /** Offsets of the join columns in build rows */
+    private int[] buildKeys;
+
+    /** Offsets of the join columns in probe rows */
+    private int[] probeKeys;
+
+    /** Number of buffer pages */
+    private int pages;
+
+    /** Number of partitions */
+    private int fanout;
+
+    /** Number of times the input of this join was already partitioned; seeds the hash function */
+    private int depth;
+
+    /** Unique identifier for this join. Used to distinguish its partitions in temp directory. */
+    private String id = UUID.randomUUID().toString();
+
+    /** For each partition, true if it was written to disk */
+    private boolean[] spilled;
+
+    /** For each partition, number of build rows */
+    private int[] buildCounts;
+
+    /** Writers for the probe rows of spilled partitions, null if not opened */
+    private TupleWriter[] probeWriters;
+
+    /** Hash table over the resident build partitions, null until the build child is partitioned */
+    private JoinHashTable table;
+
+    /** Current probe batch, null before the first probe */
+    private TupleBatch probeBatch;
+
+    /** Index of the next active row of {@code probeBatch} to probe */
+    private int probeIndex;
+
+    /** Values of the current probe row; reused for every probe row */
+    private int[] probeRow;
+
+    /** Hash of the join columns of the current probe row */
+    private int probeHash;
+
+    /** Next build row to check against the current probe row, -1 if none */
+    private int chain = -1;
+
+    /** True once every probe row was either joined or written to disk */
+    private boolean probed;
+
+    /** Next spilled partition to join */
+    private int nextPartition;
+
+    /** Join of the current pair of spilled partitions, null if none */
+    private PhysicalOperator partitionJoin;
+
+    /** @param left         left child operator
+     * @param right        right child operator
+     * @param leftColumns  join columns of the left child
+     * @param rightColumns join columns of the right child, equal to {@code leftColumns} pairwise
+     * @param buildLeft    true to partition the left child first and keep its partitions in
+     *                     memory, false to do so with the right child
+     * @param pages        number of buffer pages for resident partitions and partition writers
+     * @throws IOException */
+    public HybridHashJoinOperator(
+            PhysicalOperator left,
+            PhysicalOperator right,
+            List<Column> leftColumns,
+            List<Column> rightColumns,
+            boolean buildLeft,
+            int pages)
+            throws IOException {
+        this(left, right, leftColumns, rightColumns, buildLeft, pages, 0);
+    }
+
+    /** @param depth number of times the children were already partitioned
+     * @see #HybridHashJoinOperator(PhysicalOperator, PhysicalOperator, List, List, boolean, int) */
+    private HybridHashJoinOperator(
+            PhysicalOperator left,
+            PhysicalOperator right,
+            List<Column> leftColumns,
+            List<Column> rightColumns,
+            boolean buildLeft,
+            int pages,
+            int depth)
+            throws IOException {
+        super(Schema.join(left.schema, right.schema));
+        this.left = left;
+        this.right = right;
+        this.leftColumns = leftColumns;
+        this.rightColumns = rightColumns;
+        this.buildLeft = buildLeft;
+        this.pages = pages;
+        this.depth = depth;
+        build = buildLeft ? left : right;
+        probe = buildLeft ? right : left;
+        buildKeys = HashJoinOperator.keyOffsets(build.schema, buildLeft ? leftColumns : rightColumns);
+        probeKeys = HashJoinOperator.keyOffsets(probe.schema, buildLeft ? rightColumns : leftColumns);
+        probeRow = new int[probe.schema.size()];
+        // half of the pages may become writer buffers, the rest hold resident partitions
+        fanout = Math.max(2, pages / 2);
+        Catalog.createTempSubDir(id);
+    }
+
+    /** @param side "build" or "probe"
+     * @param p    partition number
+     * @return path to unique temp subdirectory with the partition's filename */
+    private String path(String side, int p) {
+        return Catalog.pathToTempFile(id + File.separator + side + "_" + p);
+    }
+
+    /** @param row  values of a row
+     * @param keys offsets of the join columns in the row
+     * @return partition of the row */
+    private int partition(int[] row, int[] keys) {
+        return Math.floorMod(JoinHashTable.hash(row, keys, depth + 1), fanout);
+    }
+
+    /** Partitions the build child, keeping partitions resident until they exceed the budget, and
+     * builds the hash table over the resident partitions.
+     *
+     * @throws IOException */
+    private void partitionBuild() throws IOException {
+        spilled = new boolean[fanout];
+        buildCounts = new int[fanout];
+        List<List<int[]>> resident = new ArrayList<>(fanout);
+        for (int p = 0; p < fanout; p++) resident.add(new ArrayList<>());
+        TupleWriter[] buildWriters = new TupleWriter[fanout];
+        int tuplesPerPage = 4096 / (4 * build.schema.size());
+        int residentRows = 0;
+        int numSpilled = 0;
+
+        TupleBatch batch;
+        while ((batch = build.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) {
+                int[] row = batch.getRow(i);
+                int p = partition(row, buildKeys);
+                buildCounts[p]++;
+                if (spilled[p]) {
+                    buildWriters[p].writeTuple(row);
+                    continue;
+                }
+                resident.get(p).add(row);
+                residentRows++;
+                // every spilled partition holds one page for its writer
+                while (residentRows > (pages - numSpilled) * tuplesPerPage && numSpilled < fanout) {
+                    int largest = -1;
+                    for (int q = 0; q < fanout; q++) {
+                        if (!spilled[q]
+                                && (largest < 0
+                                        || resident.get(q).size()
+                                                > resident.get(largest).size())) {
+                            largest = q;
+                        }
+                    }
+                    buildWriters[largest] = new TupleWriter(path("build", largest));
+                    for (int[] spill : resident.get(largest)) {
+                        buildWriters[largest].writeTuple(spill);
+                    }
+                    residentRows -= resident.get(largest).size();
+                    resident.set(largest, new ArrayList<>());
+                    spilled[largest] = true;
+                    numSpilled++;
+                }
+            }
+        }
+        for (TupleWriter tw : buildWriters) {
+            if (tw != null) tw.close();
+        }
+
+        List<int[]> residentBuild = new ArrayList<>(residentRows);
+        for (List<int[]> rows : resident) residentBuild.addAll(rows);
+        table = new JoinHashTable(residentBuild, buildKeys);
+        probeWriters = new TupleWriter[fanout];
+    }
+
+    /** Advances through the probe child to the next build row whose join columns equal those of
+     * the current probe row. Probe rows of spilled partitions are written to disk instead.
+     *
+     * @return index of the matching build row, -1 once the probe child is exhausted
+     * @throws IOException */
+    private int nextResidentMatch() throws IOException {
+        while (true) {
+            while (chain >= 0) {
+                int r = chain;
+                chain = table.next(r);
+                if (table.matches(r, probeHash, probeRow, probeKeys)) return r;
+            }
+            if (probeBatch == null || probeIndex == probeBatch.count()) {
+                probeBatch = probe.getNextBatch();
+                probeIndex = 0;
+                if (probeBatch == null) {
+                    for (TupleWriter tw : probeWriters) {
+                        if (tw != null) tw.close();
+                    }
+                    probed = true;
+                    return -1;
+                }
+            }
+            int[][] columns = probeBatch.columns();
+            int pr = probeBatch.row(probeIndex++);
+            for (int c = 0; c < probeRow.length; c++) probeRow[c] = columns[c][pr];
+            int p = partition(probeRow, probeKeys);
+            if (spilled[p]) {
+                if (probeWriters[p] == null) probeWriters[p] = new TupleWriter(path("probe", p));
+                probeWriters[p].writeTuple(probeRow);
+            } else if (table.size() > 0) {
+                probeHash = JoinHashTable.hash(probeRow, probeKeys, 0);
+                chain = table.first(probeHash);
+            }
+        }
+    }
+
+    /** Opens the join of the next pair of spilled partitions that both contain rows.
+     *
+     * @return true if a partition join was opened, false if no spilled partitions are left
+     * @throws IOException */
+    private boolean openNextPartition() throws IOException {
+        while (nextPartition < fanout) {
+            int p = nextPartition++;
+            if (!spilled[p] || probeWriters[p] == null) continue;
+            PhysicalOperator buildScan = new TempFileScanOperator(path("build", p), build.schema);
+            PhysicalOperator probeScan = new TempFileScanOperator(path("probe", p), probe.schema);
+            PhysicalOperator l = buildLeft ? buildScan : probeScan;
+            PhysicalOperator r = buildLeft ? probeScan : buildScan;
+            int buildPages = (int) Math.ceil(buildCounts[p] * 4.0 * build.schema.size() / 4096);
+            if (buildPages <= pages) {
+                partitionJoin = new HashJoinOperator(l, r, leftColumns, rightColumns, buildLeft);
+            } else if (depth < MAX_DEPTH) {
+                partitionJoin =
+                        new HybridHashJoinOperator(l, r, leftColumns, rightColumns, buildLeft, pages, depth + 1);
+            } else {
+                List<Expression> equalities = new LinkedList<>();
+                for (int i = 0; i < leftColumns.size(); i++) {
+                    equalities.add(new EqualsTo(leftColumns.get(i), rightColumns.get(i)));
+                }
+                partitionJoin = new BlockNestedLoopJoinOperator(
+                        l, r, Helpers.wrapListOfExpressions(equalities), Math.max(1, pages));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /** @return next joined Tuple, with the left child's values first */
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            if (table == null) partitionBuild();
+            if (!probed) {
+                int r = nextResidentMatch();
+                if (r >= 0) {
+                    int[] first = buildLeft ? table.row(r) : probeRow;
+                    int[] second = buildLeft ? probeRow : table.row(r);
+                    int[] joined = new int[first.length + second.length];
+                    System.arraycopy(first, 0, joined, 0, first.length);
+                    System.arraycopy(second, 0, joined, first.length, second.length);
+                    return new Tuple(schema, joined);
+                }
+            }
+            while (partitionJoin != null || openNextPartition()) {
+                Tuple next = partitionJoin.getNextTuple();
+                if (next != null) return next;
+                partitionJoin = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** @return next batch of joined rows; resident matches are written into the column vectors,
+     *         and batches of spilled partitions come from their partition joins */
+    @Override
+    public TupleBatch getNextBatch() {
+        try {
+            if (table == null) partitionBuild();
+            if (!probed) {
+                TupleBatch batch = emptyBatch();
+                int r;
+                while (!batch.isFull() && (r = nextResidentMatch()) >= 0) {
+                    if (buildLeft) batch.add(table.row(r), probeRow);
+                    else batch.add(probeRow, table.row(r));
+                }
+                if (batch.count() > 0) return batch;
+            }
+            while (partitionJoin != null || openNextPartition()) {
+                TupleBatch next = partitionJoin.getNextBatch();
+                if (next != null) return next;
+                partitionJoin = null;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** Resets the probe child and discards its partitions; the build partitions are kept, since
+     * the build child is unchanged. */
+    @Override
+    public void reset() {
+        probe.reset();
+        if (table == null) return;
+        if (!probed) {
+            try {
+                for (TupleWriter tw : probeWriters) {
+                    if (tw != null) tw.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        probeWriters = new TupleWriter[fanout];
+        probeBatch = null;
+        chain = -1;
+        probed = false;
+        nextPartition = 0;
+        partitionJoin = null;
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        List<String> equals = new LinkedList<>();
+        for (int i = 0; i < leftColumns.size(); i++) equals.add(leftColumns.get(i) + " = " + rightColumns.get(i));
+        String s = String.format("HHJ[%s]%s", String.join(" AND ", equals), estimate());
+        pw.println(writeLevel(s, level));
+        left.write(pw, level + 1);
+        right.write(pw, level + 1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.utils.Attribute;
+import com.dbms.utils.ExpressionCompiler;
+import com.dbms.utils.Predicate;
+import com.dbms.utils.Schema;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.PrintWriter;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Column;
+
+/** An operator that joins an outer child with an inner table through a B+-tree index on the inner
+ * join column. For every outer tuple, it seeks the index to the outer tuple's key and reads only
+ * the inner tuples with that key, instead of scanning or sorting the whole inner relation. */
+public class IndexNestedLoopJoinOperator extends PhysicalOperator {
+
+    /** Outer child */
+    public PhysicalOperator left;
+
+    /** Index scan on the inner table, moved to each outer key */
+    public IndexScanOperator right;
+
+    /** join condition and the inner table's selection, compiled against the left and right
+     * schemas */
+    private Predicate predicate;
+
+    /** join condition and the inner table's selection */
+    private Expression joinCondition;
+
+    /** Offset in outer tuples of the column equal to the index key */
+    private int outerKey;
+
+    /** Current outer tuple, null if the next outer tuple must be read */
+    private Tuple outerTuple;
+
+    /** @param left        outer child operator
+     * @param right       index scan on the inner table
+     * @param outerColumn column of the outer child that must equal the index key
+     * @param exp         join condition, including any selection on the inner table */
+    public IndexNestedLoopJoinOperator(
+            PhysicalOperator left, IndexScanOperator right, Column outerColumn, Expression exp) {
+        super(Schema.join(left.schema, right.schema));
+        this.left = left;
+        this.right = right;
+        joinCondition = exp;
+        predicate = ExpressionCompiler.compile(exp, left.schema, right.schema);
+        outerKey = left.schema.indexOf(Attribute.fromColumn(outerColumn));
+    }
+
+    /** Advances to the next inner tuple that satisfies the join condition with {@code outerTuple},
+     * seeking the index again for every new outer tuple.
+     *
+     * @return matching inner tuple, null if no pairs are left */
+    private Tuple nextMatch() {
+        while (true) {
+            if (outerTuple == null) {
+                outerTuple = left.getNextTuple();
+                if (outerTuple == null) return null;
+                int key = outerTuple.get(outerKey);
+                right.seek(key, key);
+            }
+            Tuple innerTuple = right.getNextTuple();
+            if (innerTuple == null) {
+                outerTuple = null;
+            } else if (predicate.test(outerTuple.getValues(), innerTuple.getValues())) {
+                return innerTuple;
+            }
+        }
+    }
+
+    /** @return {@code Tuple} for the next tuple in the resulting relation returned by INLJ */
+    @Override
+    public Tuple getNextTuple() {
+        Tuple innerTuple = nextMatch();
+        if (innerTuple == null) return null;
+        return Tuple.mergeTuples(schema, outerTuple, innerTuple);
+    }
+
+    /** @return next batch of joined rows, written into the column vectors without building merged
+     *         Tuples */
+    @Override
+    public TupleBatch getNextBatch() {
+        TupleBatch batch = emptyBatch();
+        Tuple innerTuple;
+        while (!batch.isFull() && (innerTuple = nextMatch()) != null) {
+            batch.add(outerTuple.getValues(), innerTuple.getValues());
+        }
+        return batch.count() == 0 ? null : batch;
+    }
+
+    /** Resets the outer child; the index is sought again for the first outer tuple */
+    @Override
+    public void reset() {
+        left.reset();
+        outerTuple = null;
+    }
+
+    /** @return sort order of the outer child, whose tuples are joined in order */
+    @Override
+    public List<Attribute> sortOrder() {
+        return left.sortOrder();
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        String s = String.format("INLJ[%s]%s", joinCondition != null ? joinCondition.toString() : "", estimate());
+        pw.println(writeLevel(s, level));
+        left.write(pw, level + 1);
+        right.write(pw, level + 1);
+    }
+}
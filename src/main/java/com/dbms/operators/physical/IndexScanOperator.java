@@ -4,14 +4,17 @@ import static com.dbms.utils.Helpers.writeLevel;
 
 import com.dbms.index.Index;
 import com.dbms.index.TreeDeserializer;
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
 import com.dbms.utils.Schema;
 import com.dbms.utils.Tuple;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.List;
 
-/** A class that scans an index for keys in between a lower and upper bound. */
+/** A class that scans an index for keys in between a lower and upper bound. The scan can be moved
+ * to other bounds with {@code seek}, which lets a join probe the index once per outer key. */
 public class IndexScanOperator extends PhysicalOperator {
 
     /** (unaliased) table name for index */
@@ -26,15 +29,24 @@ public class IndexScanOperator extends PhysicalOperator {
     /** True if this has never received a getNextTuple call */
     private boolean isFirstCall;
 
-    /** Inclusive lower bound on keys, null if unbound */
+    /** Inclusive lower bound on keys given when planning, null if unbound */
     private Integer lowkey;
 
-    /** Inclusive upper bound on keys, null if unbound */
+    /** Inclusive upper bound on keys given when planning, null if unbound */
     private Integer highkey;
 
+    /** Inclusive lower bound on keys of the current scan, null if unbound */
+    private Integer low;
+
+    /** Inclusive upper bound on keys of the current scan, null if unbound */
+    private Integer high;
+
     /** Index of key attribute in tuples */
     int attributeIndex;
 
+    /** True if the table is stored sorted on the key */
+    private boolean clustered;
+
     /** @param tableName (aliased) table name for the index
      * @param i         index
      * @param lowkey    lower bound on keys, null if unbound
@@ -46,20 +58,25 @@ public class IndexScanOperator extends PhysicalOperator {
         attribute = i.name.COLUMN;
         this.lowkey = lowkey;
         this.highkey = highkey;
+        low = lowkey;
+        high = highkey;
         td = new TreeDeserializer(i);
         isFirstCall = true;
         attributeIndex = Catalog.getColumnIndex(i.name);
+        clustered = i.isClustered;
     }
 
     @Override
     public Tuple getNextTuple() {
         try {
+            int[] next;
             if (isFirstCall) {
                 isFirstCall = false;
-                return new Tuple(schema, td.getFirstTupleAtKey(lowkey));
+                next = td.getFirstTupleAtKey(low);
+            } else {
+                next = td.getNextTuple();
             }
-            List<Integer> next = td.getNextTuple();
-            if (next == null || highkey != null && next.get(attributeIndex) > highkey) return null;
+            if (next == null || high != null && next[attributeIndex] > high) return null;
             return new Tuple(schema, next);
         } catch (IOException e) {
             e.printStackTrace();
@@ -67,11 +84,37 @@ public class IndexScanOperator extends PhysicalOperator {
         return null;
     }
 
+    /** Restarts the scan at the bounds given when planning */
     @Override
     public void reset() {
+        seek(lowkey, highkey);
+    }
+
+    /** Restarts the scan with new bounds; the next tuple is found by descending the index again.
+     *
+     * @param low  inclusive lower bound on keys, null if unbound
+     * @param high inclusive upper bound on keys, null if unbound */
+    public void seek(Integer low, Integer high) {
+        this.low = low;
+        this.high = high;
         isFirstCall = true;
     }
 
+    /** @return the index key, since the scan follows the leaves of the index. A clustered table was
+     *         sorted on the key by an external sort, which orders ties on the remaining columns, so
+     *         a clustered scan is also sorted on them. */
+    @Override
+    public List<Attribute> sortOrder() {
+        Attribute key = schema.get(attributeIndex);
+        if (!clustered) return List.of(key);
+        List<Attribute> order = new ArrayList<>();
+        order.add(key);
+        for (Attribute a : schema.get()) {
+            if (!a.equals(key)) order.add(a);
+        }
+        return order;
+    }
+
     @Override
     public void write(PrintWriter pw, int level) {
         String s = String.format("IndexScan[%s,%s,%d,%d]", tableName, attribute, lowkey, highkey);
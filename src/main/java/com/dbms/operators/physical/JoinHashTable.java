@@ -0,0 +1,104 @@
+package com.dbms.operators.physical;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** An in-memory hash table over the build rows of a hash join, keyed on their join columns. It is
+ * made of primitive arrays: rows with the same bucket are chained by index through {@code next},
+ * so probing allocates nothing. */
+final class JoinHashTable {
+
+    /** Build rows */
+    private final int[][] rows;
+
+    /** Offsets of the join columns in build rows */
+    private final int[] keys;
+
+    /** Hash of the join columns of each build row */
+    private final int[] hashes;
+
+    /** For each bucket, index of the first build row in its chain, -1 if empty */
+    private final int[] head;
+
+    /** For each build row, index of the next build row in its chain, -1 at the end */
+    private final int[] next;
+
+    /** Number of buckets minus one; the number of buckets is a power of two */
+    private final int mask;
+
+    /** @param buildRows build rows
+     * @param keys      offsets of the join columns in build rows */
+    JoinHashTable(List<int[]> buildRows, int[] keys) {
+        rows = buildRows.toArray(new int[buildRows.size()][]);
+        this.keys = keys;
+        int buckets = Integer.highestOneBit(Math.max(2 * rows.length, 2) - 1) << 1;
+        mask = buckets - 1;
+        head = new int[buckets];
+        Arrays.fill(head, -1);
+        next = new int[rows.length];
+        hashes = new int[rows.length];
+        for (int r = 0; r < rows.length; r++) {
+            hashes[r] = hash(rows[r], keys, 0);
+            int bucket = hashes[r] & mask;
+            next[r] = head[bucket];
+            head[bucket] = r;
+        }
+    }
+
+    /** Hashes the join columns of a row. Different seeds give independent hash functions, so that
+     * partitioning a relation and then building a table on one partition spreads the rows evenly.
+     *
+     * @param row  values of a row
+     * @param keys offsets of the join columns in the row
+     * @param seed seed of the hash function; 0 for the table itself
+     * @return hash of the join columns of the row */
+    static int hash(int[] row, int[] keys, int seed) {
+        int h = seed * 0x85EBCA6B;
+        for (int k : keys) {
+            h ^= row[k];
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            h ^= h >>> 13;
+            h *= 0xC2B2AE35;
+            h ^= h >>> 16;
+        }
+        return h;
+    }
+
+    /** @return number of build rows */
+    int size() {
+        return rows.length;
+    }
+
+    /** @param r index of a build row
+     * @return values of the build row */
+    int[] row(int r) {
+        return rows[r];
+    }
+
+    /** @param hash hash of the join columns of a probe row, with seed 0
+     * @return index of the first build row in the chain of the probe row, -1 if none */
+    int first(int hash) {
+        return head[hash & mask];
+    }
+
+    /** @param r index of a build row in a chain
+     * @return index of the next build row in the chain, -1 if none */
+    int next(int r) {
+        return next[r];
+    }
+
+    /** @param r         index of a build row
+     * @param hash      hash of the join columns of the probe row, with seed 0
+     * @param probeRow  values of the probe row
+     * @param probeKeys offsets of the join columns in the probe row
+     * @return true if the join columns of the build row equal those of the probe row */
+    boolean matches(int r, int hash, int[] probeRow, int[] probeKeys) {
+        if (hashes[r] != hash) return false;
+        int[] row = rows[r];
+        for (int i = 0; i < keys.length; i++) {
+            if (row[keys[i]] != probeRow[probeKeys[i]]) return false;
+        }
+        return true;
+    }
+}
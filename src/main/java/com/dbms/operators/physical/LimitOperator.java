@@ -0,0 +1,93 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.operators.logical.LogicalLimitOperator;
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.PrintWriter;
+import java.util.List;
+
+/** An operator that skips the first {@code offset} tuples of its child and then returns at most
+ * {@code limit} tuples, without reading the child any further. */
+public class LimitOperator extends PhysicalOperator {
+
+    public PhysicalOperator child;
+
+    /** maximum number of tuples to return; {@code Long.MAX_VALUE} if unbounded */
+    private long limit;
+
+    /** number of tuples to skip before returning any */
+    private long offset;
+
+    /** number of child tuples read so far, including skipped ones */
+    private long read;
+
+    /** @param child  child operator
+     * @param limit  maximum number of tuples to return; {@code Long.MAX_VALUE} if unbounded
+     * @param offset number of tuples to skip before returning any */
+    public LimitOperator(PhysicalOperator child, long limit, long offset) {
+        super(child.schema);
+        this.child = child;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    /** @return number of child tuples after which no more are returned */
+    private long end() {
+        return limit > Long.MAX_VALUE - offset ? Long.MAX_VALUE : offset + limit;
+    }
+
+    /** @return next child Tuple after the offset, null once the limit is reached */
+    @Override
+    public Tuple getNextTuple() {
+        Tuple next;
+        do {
+            if (read >= end()) return null;
+            next = child.getNextTuple();
+            if (next == null) return null;
+        } while (read++ < offset);
+        return next;
+    }
+
+    /** @return next child batch with the rows before the offset and after the limit deselected */
+    @Override
+    public TupleBatch getNextBatch() {
+        while (read < end()) {
+            TupleBatch batch = child.getNextBatch();
+            if (batch == null) return null;
+            int count = batch.count();
+            int skip = (int) Math.max(0, Math.min(count, offset - read));
+            int keep = (int) Math.min(count - skip, end() - read - skip);
+            read += skip + keep;
+            if (keep == 0) continue;
+            if (skip > 0 || keep < count) {
+                int[] selection = batch.selection();
+                System.arraycopy(selection, skip, selection, 0, keep);
+                batch.select(keep);
+            }
+            return batch;
+        }
+        return null;
+    }
+
+    /** resets the child operator and the number of tuples read */
+    @Override
+    public void reset() {
+        child.reset();
+        read = 0;
+    }
+
+    /** @return sort order of the child, which this operator preserves */
+    @Override
+    public List<Attribute> sortOrder() {
+        return child.sortOrder();
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        pw.println(writeLevel(LogicalLimitOperator.describe("Limit", limit, offset), level));
+        child.write(pw, level + 1);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dbms.operators.physical;
+
+/** A tournament tree that repeatedly finds the smallest of the current rows of k sorted inputs. Each
+ * internal node holds the loser of the match played there and the root holds the overall winner,
+ * so replacing the winner's row replays only the matches on its path to the root: log k
+ * comparisons, and no allocation. */
+final class LoserTree {
+
+    /** Current row of each input; the caller overwrites the winner's row to advance its input */
+    private final int[][] rows;
+
+    /** True for each input with no rows left, which loses every match */
+    private final boolean[] exhausted;
+
+    /** Comparator of rows */
+    private final TupleComparator tc;
+
+    /** Number of inputs */
+    private final int k;
+
+    /** {@code tree[0]} is the winning input; {@code tree[1..k-1]} are the losers of the matches at
+     * the internal nodes, whose children are {@code 2n} and {@code 2n + 1}. Input i is leaf
+     * {@code k + i}. */
+    private final int[] tree;
+
+    /** @param rows      current row of each input
+     * @param exhausted true for each input with no rows
+     * @param tc        comparator of rows */
+    LoserTree(int[][] rows, boolean[] exhausted, TupleComparator tc) {
+        this.rows = rows;
+        this.exhausted = exhausted;
+        this.tc = tc;
+        k = rows.length;
+        tree = new int[Math.max(k, 1)];
+        tree[0] = build(1);
+    }
+
+    /** Plays the matches of a subtree, storing their losers
+     *
+     * @param node node of the subtree's root
+     * @return input that wins the subtree */
+    private int build(int node) {
+        if (node >= k) return node - k;
+        int left = build(2 * node);
+        int right = build(2 * node + 1);
+        if (beats(left, right)) {
+            tree[node] = right;
+            return left;
+        }
+        tree[node] = left;
+        return right;
+    }
+
+    /** @return input whose row is the smallest, or an exhausted input if every input is */
+    int winner() {
+        return tree[0];
+    }
+
+    /** @return true if every input is exhausted */
+    boolean isEmpty() {
+        return exhausted[tree[0]];
+    }
+
+    /** Finds the new winner after the winner's row changed or its input was exhausted */
+    void replay() {
+        int winner = tree[0];
+        for (int node = (winner + k) / 2; node > 0; node /= 2) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    /** @param a an input
+     * @param b another input
+     * @return true if the row of a comes before the row of b; ties go to the lower input */
+    private boolean beats(int a, int b) {
+        if (exhausted[a]) return false;
+        if (exhausted[b]) return true;
+        int comp = tc.compare(rows[a], rows[b]);
+        return comp < 0 || (comp == 0 && a < b);
+    }
+}
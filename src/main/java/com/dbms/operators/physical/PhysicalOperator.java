@@ -1,15 +1,29 @@
 package com.dbms.operators.physical;
 
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Schema;
 import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
 import com.dbms.utils.TupleWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 
 public abstract class PhysicalOperator {
     /** schema for this operator, representing the order and names of columns */
     public Schema schema;
 
+    /** batch returned by {@code getNextBatch}, reused across calls */
+    private TupleBatch batch;
+
+    /** cost of computing the output estimated by the planner, NaN if it made no estimate */
+    private double estimatedCost = Double.NaN;
+
+    /** number of output rows estimated by the planner */
+    private double estimatedRows;
+
     /** @param schema schema for this operator */
     PhysicalOperator(Schema schema) {
         this.schema = schema;
@@ -18,6 +32,63 @@ public abstract class PhysicalOperator {
     /** @return next tuple of the result of the relation */
     public abstract Tuple getNextTuple();
 
+    /** Returns the next rows of the result as a column-major batch. Row and batch calls share the
+     * same position, so a parent may use either. This default adapter fills the batch from
+     * {@code getNextTuple}; operators that can produce whole vectors override it.
+     *
+     * @return next non-empty batch of the result, valid until the next call on this operator; null
+     *         if no rows are left */
+    public TupleBatch getNextBatch() {
+        TupleBatch b = emptyBatch();
+        Tuple next;
+        while (!b.isFull() && (next = getNextTuple()) != null) b.add(next.getValues());
+        return b.count() == 0 ? null : b;
+    }
+
+    /** @return this operator's output batch, cleared */
+    protected TupleBatch emptyBatch() {
+        if (batch == null) batch = TupleBatch.allocate(schema);
+        batch.clear();
+        return batch;
+    }
+
+    /** @return attributes the output is sorted on in ascending order, most significant first; empty
+     *         if the output has no known order */
+    public List<Attribute> sortOrder() {
+        return List.of();
+    }
+
+    /** @param order attributes, most significant first
+     * @return true if the output is sorted on the attributes in exactly this order, possibly
+     *         followed by others */
+    public boolean isSortedOn(List<Attribute> order) {
+        List<Attribute> sorted = sortOrder();
+        return sorted.size() >= order.size() && sorted.subList(0, order.size()).equals(order);
+    }
+
+    /** @param attributes attributes in any order
+     * @return true if the output is sorted on the attributes in some order, so that tuples with
+     *         equal values of the attributes are adjacent; always true if there are none */
+    public boolean isGroupedOn(Collection<Attribute> attributes) {
+        List<Attribute> order = sortOrder();
+        if (order.size() < attributes.size()) return false;
+        return new HashSet<>(order.subList(0, attributes.size())).equals(new HashSet<>(attributes));
+    }
+
+    /** @param cost estimated I/O and CPU cost of computing the output, in page I/Os
+     * @param rows estimated number of output rows */
+    public void setEstimate(double cost, double rows) {
+        estimatedCost = cost;
+        estimatedRows = rows;
+    }
+
+    /** @return the planner's estimates to append to this operator's line in the written plan,
+     *         empty if it made none */
+    protected String estimate() {
+        if (Double.isNaN(estimatedCost)) return "";
+        return String.format(" (cost=%.1f, rows=%.0f)", estimatedCost, estimatedRows);
+    }
+
     /** Resets the operator to the first tuple of the result of the relation */
     public abstract void reset();
 
@@ -32,9 +103,9 @@ public abstract class PhysicalOperator {
      * @throws IOException */
     public void dump(String path) throws IOException {
         TupleWriter tw = new TupleWriter(path);
-        Tuple next;
-        while ((next = getNextTuple()) != null) {
-            tw.writeTuple(next);
+        TupleBatch next;
+        while ((next = getNextBatch()) != null) {
+            tw.writeBatch(next);
         }
         tw.close();
     }
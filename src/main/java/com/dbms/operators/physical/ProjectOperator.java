@@ -2,9 +2,13 @@ package com.dbms.operators.physical;
 
 import static com.dbms.utils.Helpers.writeLevel;
 
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Schema;
 import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 /** An operator that projects the Tuples from its child to a specified list of columns. */
 public class ProjectOperator extends PhysicalOperator {
@@ -15,12 +19,20 @@ public class ProjectOperator extends PhysicalOperator {
     /** True if this operator should be visible in the printed query plan. */
     private boolean shouldWrite;
 
+    /** For each projected attribute, its offset in the child schema */
+    private int[] offsets;
+
+    /** batch pointing at the projected columns of the child's batch */
+    private TupleBatch projected;
+
     /** @param child child operator to project
      * @param schema the schema to which this projects child tuples */
     public ProjectOperator(PhysicalOperator child, Schema s, boolean shouldWrite) {
         super(s);
         this.child = child;
         this.shouldWrite = shouldWrite;
+        offsets = child.schema.indexesOf(s);
+        projected = TupleBatch.view(s);
     }
 
     /** resets child operator */
@@ -34,7 +46,28 @@ public class ProjectOperator extends PhysicalOperator {
     public Tuple getNextTuple() {
         Tuple nextTuple = child.getNextTuple();
         if (nextTuple == null) return null;
-        return nextTuple.project(schema);
+        return nextTuple.project(schema, offsets);
+    }
+
+    /** @return next child batch with its columns reordered to the projected schema; no values are
+     *         copied */
+    @Override
+    public TupleBatch getNextBatch() {
+        TupleBatch batch = child.getNextBatch();
+        if (batch == null) return null;
+        projected.project(batch, offsets);
+        return projected;
+    }
+
+    /** @return longest prefix of the child's sort order whose attributes are all projected */
+    @Override
+    public List<Attribute> sortOrder() {
+        List<Attribute> order = new ArrayList<>();
+        for (Attribute a : child.sortOrder()) {
+            if (schema.indexOf(a) < 0) break;
+            order.add(a);
+        }
+        return order;
     }
 
     @Override
@@ -0,0 +1,118 @@
+package com.dbms.operators.physical;
+
+import java.util.Arrays;
+
+/** A fixed-capacity set of rows for hash-based duplicate elimination and grouping. Rows are packed
+ * one after the other into a single int array, and the slot table is probed linearly (open
+ * addressing), so looking up a row allocates nothing. A lookup returns the slot where the row is or
+ * would go, which lets the caller test for a row and insert it with a single probe. Rows are
+ * numbered in insertion order, so callers can keep per-row state, such as the accumulators of a
+ * group, in parallel arrays. */
+final class RowHashSet {
+
+    /** Number of values per row */
+    private final int width;
+
+    /** Maximum number of rows */
+    private final int capacity;
+
+    /** Rows in insertion order; row i starts at {@code i * width} */
+    private final int[] data;
+
+    /** Hash of each row */
+    private final int[] hashes;
+
+    /** For each slot, 1 + index of the row in it, 0 if empty */
+    private final int[] slots;
+
+    /** Number of slots minus one; the number of slots is a power of two, at least twice the
+     * capacity */
+    private final int mask;
+
+    /** Number of rows */
+    private int size;
+
+    /** @param width    number of values per row
+     * @param capacity maximum number of rows; at least 1 */
+    RowHashSet(int width, int capacity) {
+        this.width = width;
+        this.capacity = capacity;
+        data = new int[width * capacity];
+        hashes = new int[capacity];
+        int numSlots = Integer.highestOneBit(Math.max(2 * capacity, 2) - 1) << 1;
+        slots = new int[numSlots];
+        mask = numSlots - 1;
+    }
+
+    /** @param row  values of a row
+     * @param hash hash of the row
+     * @return slot holding the row if it is in the set, otherwise the empty slot to insert it at */
+    int probe(int[] row, int hash) {
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int r = slots[slot] - 1;
+            if (hashes[r] == hash && equals(r, row)) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** @param slot slot returned by {@code probe}
+     * @return true if the probed row is not in the set */
+    boolean isAbsent(int slot) {
+        return slots[slot] == 0;
+    }
+
+    /** @param slot slot returned by {@code probe} for a row in the set
+     * @return 0-based index of the row in insertion order */
+    int index(int slot) {
+        return slots[slot] - 1;
+    }
+
+    /** Inserts a row that is not in the set yet; requires the set is not full.
+     *
+     * @param slot empty slot returned by {@code probe} for the row
+     * @param row  values of the row, copied into the set
+     * @param hash hash of the row
+     * @return 0-based index of the row in insertion order */
+    int insert(int slot, int[] row, int hash) {
+        System.arraycopy(row, 0, data, size * width, width);
+        hashes[size] = hash;
+        slots[slot] = ++size;
+        return size - 1;
+    }
+
+    /** @param r   0-based index of a row in insertion order
+     * @param out array to copy the values of the row into
+     * @param pos offset in out of the first value */
+    void copy(int r, int[] out, int pos) {
+        System.arraycopy(data, r * width, out, pos, width);
+    }
+
+    /** @return true if no more rows can be inserted */
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    /** @return number of rows in the set */
+    int size() {
+        return size;
+    }
+
+    /** Removes every row */
+    void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    /** @param r   index of a row in the set
+     * @param row values of a row
+     * @return true if the rows are equal */
+    private boolean equals(int r, int[] row) {
+        int start = r * width;
+        for (int c = 0; c < width; c++) {
+            if (data[start + c] != row[c]) return false;
+        }
+        return true;
+    }
+}
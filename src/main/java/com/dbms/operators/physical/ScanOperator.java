@@ -5,10 +5,10 @@ import static com.dbms.utils.Helpers.writeLevel;
 import com.dbms.utils.Catalog;
 import com.dbms.utils.Schema;
 import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
 import com.dbms.utils.TupleReader;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.List;
 
 /** An operator that reads data from file and builds Tuples. */
 public class ScanOperator extends PhysicalOperator {
@@ -24,7 +24,7 @@ public class ScanOperator extends PhysicalOperator {
         super(Schema.from(tableName, Catalog.getAttributes(Catalog.getRealTableName(tableName))));
         this.tableName = tableName;
         try {
-            reader = new TupleReader(Catalog.pathToTable(Catalog.getRealTableName(tableName)));
+            reader = new TupleReader(Catalog.pathToTable(Catalog.getRealTableName(tableName)), Catalog.MappedReads);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -34,7 +34,7 @@ public class ScanOperator extends PhysicalOperator {
     @Override
     public Tuple getNextTuple() {
         try {
-            List<Integer> next = reader.nextTuple();
+            int[] next = reader.nextTuple();
             if (next == null) return null;
             return new Tuple(schema, next);
         } catch (IOException e) {
@@ -43,6 +43,18 @@ public class ScanOperator extends PhysicalOperator {
         return null;
     }
 
+    /** @return next batch of Tuples, read from the file pages straight into column vectors */
+    @Override
+    public TupleBatch getNextBatch() {
+        try {
+            TupleBatch batch = emptyBatch();
+            if (reader.nextTuples(batch) > 0) return batch;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     /** closes DB file reader and opens a new one starting at the top of the file */
     @Override
     public void reset() {
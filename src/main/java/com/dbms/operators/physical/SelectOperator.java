@@ -2,9 +2,13 @@ package com.dbms.operators.physical;
 
 import static com.dbms.utils.Helpers.writeLevel;
 
-import com.dbms.utils.ExpressionParseVisitor;
+import com.dbms.utils.Attribute;
+import com.dbms.utils.ExpressionCompiler;
+import com.dbms.utils.Predicate;
 import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
 import java.io.PrintWriter;
+import java.util.List;
 import net.sf.jsqlparser.expression.Expression;
 
 /** An operator that returns only those child Tuples that satisfy a specified expression. */
@@ -12,8 +16,8 @@ public class SelectOperator extends PhysicalOperator {
     /** {@code scanOperator} is the child {@code ScanOperator} of the {@code SelectOperator} */
     public PhysicalOperator scanOp;
 
-    /** {@code visitor} helps convert the select conditions to programmatic types */
-    private ExpressionParseVisitor epv = new ExpressionParseVisitor();
+    /** select condition compiled against the child schema */
+    private Predicate predicate;
 
     /** select expression; Tuple is returned if this evaluates to true */
     private Expression exp;
@@ -24,6 +28,7 @@ public class SelectOperator extends PhysicalOperator {
         super(scanOperator.schema);
         scanOp = scanOperator;
         exp = expression;
+        predicate = ExpressionCompiler.compile(exp, schema);
     }
 
     /** resets underlying scan operator */
@@ -38,12 +43,28 @@ public class SelectOperator extends PhysicalOperator {
         while (true) {
             Tuple nextTuple = scanOp.getNextTuple();
             if (nextTuple == null) return null;
-            epv.currentTuple = nextTuple;
-            exp.accept(epv);
-            if (epv.booleanResult) return nextTuple;
+            if (predicate.test(nextTuple.getValues(), null)) return nextTuple;
         }
     }
 
+    /** @return the next child batch with its selection vector narrowed to the rows that pass the
+     *         select expression */
+    @Override
+    public TupleBatch getNextBatch() {
+        while (true) {
+            TupleBatch batch = scanOp.getNextBatch();
+            if (batch == null) return null;
+            predicate.filter(batch);
+            if (batch.count() > 0) return batch;
+        }
+    }
+
+    /** @return sort order of the child, which this operator preserves */
+    @Override
+    public List<Attribute> sortOrder() {
+        return scanOp.sortOrder();
+    }
+
     @Override
     public void write(PrintWriter pw, int level) {
         String s = String.format("Select[%s]", exp.toString());
@@ -0,0 +1,188 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Schema;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+
+/** An operator that computes aggregate functions over groups of a child whose Tuples with equal
+ * GROUP BY columns are adjacent, e.g. because the child is sorted or is an index scan on those
+ * columns. It streams through the child, keeping only the key and the accumulators of the current
+ * group, and returns each group as soon as a Tuple with another key arrives, so it runs in constant
+ * memory and returns the groups in the order of the child. Its Tuples hold the GROUP BY columns
+ * followed by the aggregates. Without GROUP BY columns, the whole child is a single group, which is
+ * returned even if the child is empty. */
+public class SortAggregateOperator extends PhysicalOperator {
+
+    public PhysicalOperator child;
+
+    /** GROUP BY columns, empty if the whole child is one group */
+    private List<Column> groupBy;
+
+    /** aggregate functions computed for every group */
+    private List<Function> functions;
+
+    /** Offsets of the GROUP BY columns in child rows */
+    private int[] keys;
+
+    /** Aggregate functions bound to the child schema */
+    private Aggregates aggregates;
+
+    /** Accumulators of the current group */
+    private long[] accumulators;
+
+    /** GROUP BY values of the current group */
+    private int[] key;
+
+    /** True if the current group has rows that were not returned yet */
+    private boolean inGroup;
+
+    /** True once any group was started */
+    private boolean anyGroup;
+
+    /** Current child batch, null before the first one */
+    private TupleBatch input;
+
+    /** Index of the next active row of {@code input} */
+    private int inputIndex;
+
+    /** True once the child returned its last batch */
+    private boolean childExhausted;
+
+    /** @param child     child operator whose Tuples with equal GROUP BY columns are adjacent
+     * @param groupBy   GROUP BY columns, empty if the whole child is one group
+     * @param functions aggregate functions to compute for every group */
+    public SortAggregateOperator(PhysicalOperator child, List<Column> groupBy, List<Function> functions) {
+        super(schema(groupBy, functions));
+        this.child = child;
+        this.groupBy = groupBy;
+        this.functions = functions;
+        keys = new int[groupBy.size()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = child.schema.indexOf(Attribute.fromColumn(groupBy.get(k)));
+            if (keys[k] < 0) throw new IllegalArgumentException("Unknown column " + groupBy.get(k));
+        }
+        aggregates = new Aggregates(functions, child.schema);
+        accumulators = new long[aggregates.width()];
+        key = new int[keys.length];
+    }
+
+    /** @param groupBy   GROUP BY columns
+     * @param functions aggregate functions
+     * @return schema of the GROUP BY columns followed by the aggregates */
+    static Schema schema(List<Column> groupBy, List<Function> functions) {
+        List<Attribute> s = new ArrayList<>(groupBy.size() + functions.size());
+        for (Column c : groupBy) s.add(Attribute.fromColumn(c));
+        for (Function f : functions) s.add(Attribute.fromExpression(f));
+        return new Schema(s);
+    }
+
+    /** Reads child rows until the current group ends and writes its results.
+     *
+     * @param out row to write the group into
+     * @return false if every group was returned */
+    private boolean nextGroup(int[] out) {
+        while (true) {
+            if (input == null || inputIndex == input.count()) {
+                input = childExhausted ? null : child.getNextBatch();
+                inputIndex = 0;
+                if (input == null) {
+                    childExhausted = true;
+                    if (!anyGroup && keys.length == 0) {
+                        // the whole empty child is one group
+                        aggregates.init(accumulators, 0);
+                        anyGroup = true;
+                        inGroup = true;
+                    }
+                    return inGroup && emit(out);
+                }
+            }
+            int[][] columns = input.columns();
+            int r = input.row(inputIndex);
+            if (inGroup && !sameKey(columns, r)) return emit(out);
+            if (!inGroup) {
+                for (int k = 0; k < keys.length; k++) key[k] = columns[keys[k]][r];
+                aggregates.init(accumulators, 0);
+                inGroup = true;
+                anyGroup = true;
+            }
+            aggregates.update(accumulators, 0, columns, r);
+            inputIndex++;
+        }
+    }
+
+    /** @param columns column vectors of a child batch
+     * @param r       physical row of the batch
+     * @return true if the row belongs to the current group */
+    private boolean sameKey(int[][] columns, int r) {
+        for (int k = 0; k < keys.length; k++) {
+            if (columns[keys[k]][r] != key[k]) return false;
+        }
+        return true;
+    }
+
+    /** Writes the current group and ends it.
+     *
+     * @param out row to write the group into
+     * @return true */
+    private boolean emit(int[] out) {
+        System.arraycopy(key, 0, out, 0, keys.length);
+        aggregates.results(accumulators, 0, out, keys.length);
+        inGroup = false;
+        return true;
+    }
+
+    /** @return next group */
+    @Override
+    public Tuple getNextTuple() {
+        int[] out = new int[schema.size()];
+        return nextGroup(out) ? new Tuple(schema, out) : null;
+    }
+
+    /** @return next batch of groups, written into the column vectors */
+    @Override
+    public TupleBatch getNextBatch() {
+        TupleBatch batch = emptyBatch();
+        int[] out = new int[schema.size()];
+        while (!batch.isFull() && nextGroup(out)) batch.add(out);
+        return batch.count() == 0 ? null : batch;
+    }
+
+    /** resets the child operator and starts over at the first group */
+    @Override
+    public void reset() {
+        child.reset();
+        input = null;
+        inputIndex = 0;
+        childExhausted = false;
+        inGroup = false;
+        anyGroup = false;
+    }
+
+    /** @return the GROUP BY columns, in the order the child is sorted on them, followed by the
+     *         aggregates, which never break ties since every group is returned once; empty if the
+     *         child is only known to be grouped */
+    @Override
+    public List<Attribute> sortOrder() {
+        List<Attribute> order = child.sortOrder();
+        if (order.size() < keys.length) return List.of();
+        List<Attribute> sorted = new ArrayList<>(order.subList(0, keys.length));
+        for (Attribute a : schema.get()) {
+            if (!sorted.contains(a)) sorted.add(a);
+        }
+        return sorted;
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        pw.println(writeLevel("SortAggregate" + groupBy + functions, level));
+        child.write(pw, level + 1);
+    }
+}
@@ -5,113 +5,190 @@ import static com.dbms.utils.Helpers.writeLevel;
 import com.dbms.utils.Attribute;
 import com.dbms.utils.Schema;
 import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import net.sf.jsqlparser.schema.Column;
 
-/** An operator specialized in sorted equi-join conditions */
+/** An operator specialized in sorted equi-join conditions. Both children must return their tuples
+ * sorted on their join columns, e.g. through an external sort, an index scan on the join column, or
+ * a sort merge join on the same key. The inner tuples with the current key are kept in memory, so
+ * that every outer tuple with that key is joined with them. */
 public class SortMergeJoinOperator extends PhysicalOperator {
 
     /** Sorted table on the left of the equal condition. */
-    public ExternalSortOperator left;
+    public PhysicalOperator left;
 
     /** Sorted table on the right of the equal condition. */
-    public ExternalSortOperator right;
+    public PhysicalOperator right;
+
+    /** Join columns of the left child, in order of the equality conditions */
+    private List<Column> leftColumns;
+
+    /** Join columns of the right child, in order of the equality conditions */
+    private List<Column> rightColumns;
 
     /** {@code} leftTuple} is an iterator to keep track of tuples in the left (outer) operator */
     private Tuple leftTuple;
 
-    /** {@code} rightTuple} is an iterator to keep track of tuples in the right (inner) operator */
+    /** {@code} rightTuple} is an iterator to keep track of tuples in the right (inner) operator,
+     * the first one after {@code group} */
     private Tuple rightTuple;
 
-    /** {@code rightIndex} keeps track of the index (row number) of the sorted right table. */
-    private int rightIndex;
+    /** Right tuples with the same key, which {@code leftTuple} is joined with if it has that key */
+    private List<Tuple> group = new ArrayList<>();
 
-    /** {@code lastEqual} as a marker for the last time {@code leftTuple} and {@code rightTuple}
-     * satisfied the equality join condition. It follows the right SortOperator when we need to find
-     * the next equality. It will be -1 after a merge has been completed. */
-    private int lastEqual;
+    /** Index in {@code group} of the next right tuple to join with {@code leftTuple} */
+    private int groupIndex;
 
-    /** Constructs a {@code SortMergeJoinOperator} using 2 {@code SortOperator} instances
-     *
-     * @param left  outer sorted iterator of tuples
-     * @param right inner sorted iterator of tuples */
-    public SortMergeJoinOperator(ExternalSortOperator left, ExternalSortOperator right) {
+    /** Offsets of the join columns in left tuples, in order of the equality conditions */
+    private int[] leftKeys;
+
+    /** Offsets of the join columns in right tuples, in order of the equality conditions */
+    private int[] rightKeys;
+
+    /** @param left         outer child, sorted on leftColumns
+     * @param right        inner child, sorted on rightColumns
+     * @param leftColumns  join columns of the left child, in order of the equality conditions
+     * @param rightColumns join columns of the right child, in order of the equality conditions */
+    public SortMergeJoinOperator(
+            PhysicalOperator left, PhysicalOperator right, List<Column> leftColumns, List<Column> rightColumns) {
         super(Schema.join(left.schema, right.schema));
         this.left = left;
         this.right = right;
+        this.leftColumns = leftColumns;
+        this.rightColumns = rightColumns;
+        leftKeys = left.schema.indexesOf(attributes(leftColumns));
+        rightKeys = right.schema.indexesOf(attributes(rightColumns));
         leftTuple = left.getNextTuple();
         rightTuple = right.getNextTuple();
-        rightIndex = 0;
-        lastEqual = -1;
     }
 
-    /** Performs the merge of 2 tuples when they satisfy the equality and returns it. It uses the
-     * left sorted table as a basis for the cross product (i.e. left x right).
+    /** Advances the merge to the next right tuple that satisfies the equality with
+     * {@code leftTuple}. It uses the left sorted table as a basis for the cross product (i.e. left x
+     * right).
      *
-     * @return merged Tuple that satisfies the equality condition */
-    @Override
-    public Tuple getNextTuple() {
-        while (true) {
-            if (leftTuple == null || rightTuple == null && lastEqual == -1) return null;
-
-            if (lastEqual == -1) {
-                while (leftTuple != null && mergeCondition(leftTuple, rightTuple) < 0) {
-                    // advance left until >= right
-                    leftTuple = left.getNextTuple();
-                }
-                if (leftTuple == null) return null;
-                while (rightTuple != null && mergeCondition(leftTuple, rightTuple) > 0) {
-                    // advance right until >= left
-                    rightTuple = right.getNextTuple();
-                    rightIndex++;
-                }
-                if (rightTuple == null) return null;
-
-                lastEqual = rightIndex;
+     * @return matching right tuple, null if no pairs are left */
+    private Tuple nextMatch() {
+        while (leftTuple != null) {
+            if (!group.isEmpty() && mergeCondition(leftTuple, group.get(0)) == 0) {
+                if (groupIndex < group.size()) return group.get(groupIndex++);
+                // joined with the whole group; the next left tuple may have the same key
+                leftTuple = left.getNextTuple();
+                groupIndex = 0;
+                continue;
             }
-
-            if (rightTuple != null && mergeCondition(leftTuple, rightTuple) == 0) {
-                Tuple result = Tuple.mergeTuples(leftTuple, rightTuple);
+            // collect the group of right tuples with the key of leftTuple, if any
+            group.clear();
+            groupIndex = 0;
+            while (rightTuple != null && mergeCondition(leftTuple, rightTuple) > 0) {
+                // advance right until >= left
                 rightTuple = right.getNextTuple();
-                return result;
-            } else {
-                right.reset(lastEqual);
+            }
+            if (rightTuple == null) return null;
+            if (mergeCondition(leftTuple, rightTuple) < 0) {
                 leftTuple = left.getNextTuple();
+                continue;
+            }
+            while (rightTuple != null && mergeCondition(leftTuple, rightTuple) == 0) {
+                group.add(rightTuple);
                 rightTuple = right.getNextTuple();
-                lastEqual = -1;
             }
         }
+        return null;
+    }
+
+    /** Performs the merge of 2 tuples when they satisfy the equality and returns it.
+     *
+     * @return merged Tuple that satisfies the equality condition */
+    @Override
+    public Tuple getNextTuple() {
+        Tuple match = nextMatch();
+        if (match == null) return null;
+        return Tuple.mergeTuples(schema, leftTuple, match);
+    }
+
+    /** @return next batch of merged rows, written into the column vectors without building merged
+     *         Tuples */
+    @Override
+    public TupleBatch getNextBatch() {
+        TupleBatch batch = emptyBatch();
+        Tuple match;
+        while (!batch.isFull() && (match = nextMatch()) != null) {
+            batch.add(leftTuple.getValues(), match.getValues());
+        }
+        return batch.count() == 0 ? null : batch;
     }
 
-    /** Resets both of the SortOperator objects. Resets rightIndex to 0 and lastEqual to -1. */
+    /** Resets both children and empties the group of right tuples */
     @Override
     public void reset() {
         left.reset();
         right.reset();
         leftTuple = left.getNextTuple();
         rightTuple = right.getNextTuple();
-        rightIndex = 0;
-        lastEqual = -1;
+        group.clear();
+        groupIndex = 0;
+    }
+
+    /** @return sort order of the left child, whose tuples are joined in order */
+    @Override
+    public List<Attribute> sortOrder() {
+        return left.sortOrder();
+    }
+
+    /** @param order attributes, most significant first
+     * @return true if the output is sorted on the attributes, where each right join column may
+     *         stand for the left join column it equals, e.g. for a further SMJ on the same key */
+    @Override
+    public boolean isSortedOn(List<Attribute> order) {
+        return left.isSortedOn(toLeftKeys(order));
+    }
+
+    /** @param attributes attributes in any order
+     * @return true if the output is sorted on the attributes in some order, where each right join
+     *         column may stand for the left join column it equals */
+    @Override
+    public boolean isGroupedOn(Collection<Attribute> attributes) {
+        return left.isGroupedOn(toLeftKeys(attributes));
+    }
+
+    /** @param attributes attributes of the output
+     * @return the attributes, with each right join column replaced by the left join column it
+     *         equals in every output tuple */
+    private List<Attribute> toLeftKeys(Collection<Attribute> attributes) {
+        List<Attribute> rightAttributes = attributes(rightColumns);
+        List<Attribute> mapped = new ArrayList<>(attributes.size());
+        for (Attribute a : attributes) {
+            int k = rightAttributes.indexOf(a);
+            mapped.add(k >= 0 ? Attribute.fromColumn(leftColumns.get(k)) : a);
+        }
+        return mapped;
+    }
+
+    /** @param columns columns of a child
+     * @return the attributes of the columns, in order */
+    private static List<Attribute> attributes(List<Column> columns) {
+        List<Attribute> attributes = new ArrayList<>(columns.size());
+        for (Column c : columns) attributes.add(Attribute.fromColumn(c));
+        return attributes;
     }
 
-    /** Acts as a compare function between 2 tuples. Uses the orderBys of underlying sort operator
-     * for the equality condition ordering.
+    /** Acts as a compare function between 2 tuples. Compares the join columns in order of the
+     * equality conditions.
      *
      * @param leftTuple  the row referenced on the left of an EqualsTo expression (e.g. A.B = C.D,
      *                   leftTuple would be in the A table)
      * @param rightTuple the row referenced on the right of an EqualsTo expression (e.g. A.B = C.D,
      *                   rightTuple would be in the C table)
-     * @return 1 if leftTuple has a greater value than rightTuple, -1 if leftTuple has a smaller
-     *         value than rightTuple, 0 if they're equal */
+     * @return positive if leftTuple has a greater key than rightTuple, negative if leftTuple has a
+     *         smaller key than rightTuple, 0 if they're equal */
     private int mergeCondition(Tuple leftTuple, Tuple rightTuple) {
-        for (int i = 0; i < right.orderBys.size(); i++) {
-            Column leftCol = (Column) left.orderBys.get(i).getExpression();
-            Column rightCol = (Column) right.orderBys.get(i).getExpression();
-            int leftVal = leftTuple.get(Attribute.fromColumn(leftCol));
-            int rightVal = rightTuple.get(Attribute.fromColumn(rightCol));
-            int comp = Integer.compare(leftVal, rightVal);
+        for (int i = 0; i < rightKeys.length; i++) {
+            int comp = Integer.compare(leftTuple.get(leftKeys[i]), rightTuple.get(rightKeys[i]));
             if (comp != 0) return comp;
         }
 
@@ -121,11 +198,10 @@ public class SortMergeJoinOperator extends PhysicalOperator {
     @Override
     public void write(PrintWriter pw, int level) {
         List<String> equals = new LinkedList<>();
-        for (int i = 0; i < right.orderBys.size(); i++) {
-            equals.add(left.orderBys.get(i).getExpression().toString() + " = "
-                    + right.orderBys.get(i).getExpression().toString());
+        for (int i = 0; i < leftColumns.size(); i++) {
+            equals.add(leftColumns.get(i) + " = " + rightColumns.get(i));
         }
-        String s = String.format("SMJ[%s]", String.join("AND", equals));
+        String s = String.format("SMJ[%s]%s", String.join(" AND ", equals), estimate());
         pw.println(writeLevel(s, level));
         left.write(pw, level + 1);
         right.write(pw, level + 1);
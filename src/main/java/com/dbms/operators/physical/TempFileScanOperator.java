@@ -0,0 +1,70 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.utils.Schema;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import com.dbms.utils.TupleReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/** An operator that reads back tuples an operator spilled to a file in the temp directory. It is
+ * only created while a query runs, so it never appears in a printed plan. */
+class TempFileScanOperator extends PhysicalOperator {
+
+    /** path to the spilled file */
+    private String path;
+
+    /** reader for the spilled file */
+    private TupleReader reader;
+
+    /** @param path   path to a file written by {@code TupleWriter}
+     * @param schema schema of the spilled tuples
+     * @throws IOException */
+    TempFileScanOperator(String path, Schema schema) throws IOException {
+        super(schema);
+        this.path = path;
+        reader = new TupleReader(path);
+    }
+
+    /** @return next spilled Tuple */
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            int[] next = reader.nextTuple();
+            if (next == null) return null;
+            return new Tuple(schema, next);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** @return next batch of spilled Tuples, read straight into column vectors */
+    @Override
+    public TupleBatch getNextBatch() {
+        try {
+            TupleBatch batch = emptyBatch();
+            if (reader.nextTuples(batch) > 0) return batch;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /** reopens the spilled file at its first tuple */
+    @Override
+    public void reset() {
+        try {
+            reader.reset();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        pw.println(writeLevel("TempFileScan[" + path + "]", level));
+    }
+}
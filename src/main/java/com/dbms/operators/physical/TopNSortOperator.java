@@ -0,0 +1,151 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.writeLevel;
+
+import com.dbms.operators.logical.LogicalLimitOperator;
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+
+/** An operator that returns the first tuples of its child in the order specified by orderBys, for
+ * an ORDER BY with a LIMIT. Instead of sorting the whole child, it keeps the {@code offset + limit}
+ * smallest tuples seen so far in a bounded max-heap, replacing the largest of them whenever a
+ * smaller tuple arrives, and sorts only those at the end. The heap lives in memory, so the planner
+ * only uses this operator when the kept tuples fit on the sort's buffer pages; nothing is ever
+ * written to the temp directory. Ties are broken on the remaining columns like in
+ * {@code ExternalSortOperator}, so both return the same tuples. */
+public class TopNSortOperator extends PhysicalOperator {
+
+    public PhysicalOperator child;
+
+    /** {@code orderBys} is an ordered-list of columns to sort by */
+    List<OrderByElement> orderBys;
+
+    /** maximum number of tuples to return */
+    private long limit;
+
+    /** number of sorted tuples to skip before returning any */
+    private long offset;
+
+    /** Kept rows; a max-heap while reading the child, sorted afterwards */
+    private int[][] rows;
+
+    /** Number of kept rows */
+    private int size;
+
+    /** Index in {@code rows} of the next row to return */
+    private int next;
+
+    /** Tuple comparator for child tuples */
+    private TupleComparator tc;
+
+    /** Reads all Tuples from child, keeping the first {@code offset + limit} of them in the order
+     * specified by orderBys.
+     *
+     * @param child    child operator
+     * @param orderBys list of orderBys, null if none
+     * @param limit    maximum number of tuples to return
+     * @param offset   number of sorted tuples to skip before returning any; {@code offset + limit}
+     *                 must fit in an int */
+    public TopNSortOperator(PhysicalOperator child, List<OrderByElement> orderBys, long limit, long offset) {
+        super(child.schema);
+        this.child = child;
+        this.orderBys = orderBys;
+        this.limit = limit;
+        this.offset = offset;
+        tc = new TupleComparator(orderBys, schema);
+        rows = new int[Math.toIntExact(offset + limit)][];
+        select();
+        Arrays.sort(rows, 0, size, tc::compare);
+        next = (int) Math.min(offset, size);
+    }
+
+    /** Reads every child batch into the heap of kept rows. */
+    private void select() {
+        if (rows.length == 0) return;
+        int numAttributes = schema.size();
+        int[] row = new int[numAttributes];
+        TupleBatch batch;
+        while ((batch = child.getNextBatch()) != null) {
+            int[][] columns = batch.columns();
+            for (int i = 0; i < batch.count(); i++) {
+                int r = batch.row(i);
+                for (int c = 0; c < numAttributes; c++) row[c] = columns[c][r];
+                if (size < rows.length) {
+                    rows[size] = row.clone();
+                    siftUp(size++);
+                } else if (tc.compare(row, rows[0]) < 0) {
+                    // reuse the evicted array for the new row
+                    System.arraycopy(row, 0, rows[0], 0, numAttributes);
+                    siftDown(0);
+                }
+            }
+        }
+    }
+
+    /** @param i index of a row that may be larger than its parent */
+    private void siftUp(int i) {
+        int[] row = rows[i];
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (tc.compare(rows[parent], row) >= 0) break;
+            rows[i] = rows[parent];
+            i = parent;
+        }
+        rows[i] = row;
+    }
+
+    /** @param i index of a row that may be smaller than its children */
+    private void siftDown(int i) {
+        int[] row = rows[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && tc.compare(rows[child + 1], rows[child]) > 0) child++;
+            if (tc.compare(row, rows[child]) >= 0) break;
+            rows[i] = rows[child];
+            i = child;
+        }
+        rows[i] = row;
+    }
+
+    /** @return next Tuple in sorted order, null once the limit is reached */
+    @Override
+    public Tuple getNextTuple() {
+        if (next == size) return null;
+        return new Tuple(schema, rows[next++].clone());
+    }
+
+    /** @return next batch of sorted Tuples, copied from the kept rows */
+    @Override
+    public TupleBatch getNextBatch() {
+        if (next == size) return null;
+        TupleBatch batch = emptyBatch();
+        while (next < size && !batch.isFull()) batch.add(rows[next++]);
+        return batch;
+    }
+
+    /** resets to the first returned tuple; the child is not read again */
+    @Override
+    public void reset() {
+        next = (int) Math.min(offset, size);
+    }
+
+    /** @return the ORDER BY columns followed by the remaining columns */
+    @Override
+    public List<Attribute> sortOrder() {
+        return tc.order();
+    }
+
+    @Override
+    public void write(PrintWriter pw, int level) {
+        String s =
+                LogicalLimitOperator.describe("TopN", limit, offset) + (orderBys != null ? orderBys.toString() : "[]");
+        pw.println(writeLevel(s, level));
+        child.write(pw, level + 1);
+    }
+}
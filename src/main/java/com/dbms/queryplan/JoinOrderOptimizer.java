@@ -1,33 +1,77 @@
 package com.dbms.queryplan;
 
+import static com.dbms.utils.Helpers.getEqualityConditions;
+import static com.dbms.utils.Helpers.isEquiJoin;
+import static com.dbms.utils.Helpers.keyColumns;
+
+import com.dbms.index.Index;
+import com.dbms.index.IndexExpressionVisitor;
 import com.dbms.operators.logical.LogicalJoinOperator;
 import com.dbms.operators.logical.LogicalOperator;
 import com.dbms.operators.logical.LogicalScanOperator;
 import com.dbms.operators.logical.LogicalSelectOperator;
 import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
+import com.dbms.utils.Stats;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.schema.Column;
 
-/** Optimizes the join order by using the dynamic programming to build up the best join ordering
- * with lowest intermediate sizes. */
+/** Optimizes the join order by using the dynamic programming to build up the join tree with the
+ * lowest estimated cost. The tree may be bushy: the inner child of a join is either a table or the
+ * join of a disjoint subset, so that independent joins are computed separately and then joined.
+ * The join method of every join is chosen along with the order: each way of joining two smaller
+ * subsets is costed with every join method that can compute it, and their union keeps the
+ * cheapest.
+ *
+ * <p>Subsets of the tables are bitmasks, with a bit per table. Only subsets connected by join
+ * conditions are enumerated, by DPccp (Moerkotte and Neumann), so no plan joins two subsets by a
+ * cross product unless the query itself has one. Joins of more than {@code Catalog.DPTables}
+ * tables are ordered greedily instead. A long has 64 bits, so at most {@link #MAX_TABLES} tables
+ * can be joined. */
 public final class JoinOrderOptimizer {
 
+    /** Relative difference in cost below which two plans tie, since summing the same costs in
+     * another order rounds differently */
+    private static final double TIE = 1e-9;
+
+    /** Most tables a join can have, one per bit of a subset */
+    static final int MAX_TABLES = Long.SIZE;
+
     /** List of all (aliased) table names as they appear in the query */
     List<String> allNames = new ArrayList<>();
 
     /** maps (aliased) table name to child operator */
     Map<String, LogicalOperator> children;
 
-    /** Table to map subsets of table names to their optimal order and the cost of that ordering */
-    Map<String, DPTuple> dpTable = new HashMap<>();
+    /** (aliased) table name of each bit of the subsets, numbered in breadth-first order of the join
+     * graph */
+    private String[] tables;
+
+    /** maps (aliased) table name to its bit in the subsets */
+    private Map<String, Integer> bits = new HashMap<>();
+
+    /** subset of the tables joined with each table, by a join condition or by a cross product if
+     * the join graph is not connected */
+    private long[] neighbors;
+
+    /** join condition between each pair of tables, by bit, from the side of the first; null if the
+     * tables have no join condition */
+    private JoinEdge[][] edges;
+
+    /** number of attributes of each table, by bit */
+    private int[] widths;
+
+    /** Table to map subsets of tables to their optimal plan and the cost of that plan */
+    DPTable dpTable = new DPTable();
 
     /** list of transitively equal attribute sets as determined by the union find */
     List<Set<Attribute>> equalitySets;
@@ -35,38 +79,222 @@ public final class JoinOrderOptimizer {
     /** the UF visitor that parsed this query's expression */
     UnionFindVisitor uv;
 
-    public JoinOrderOptimizer(LogicalJoinOperator joinOp) {
+    /** @param joinOp logical join of at most 64 tables
+     * @throws IOException */
+    public JoinOrderOptimizer(LogicalJoinOperator joinOp) throws IOException {
         allNames = new ArrayList<>(joinOp.tableNames);
         uv = joinOp.uv;
         equalitySets = uv.unionFind.getAllAttributeSets();
         children = joinOp.children;
+        numberTables();
         calculateDPTable();
     }
 
-    /** Constructs a key from a list of table names to lookup their corresponding values in the
-     * DPTable.
+    /** Builds the join graph and numbers the tables in breadth-first order of it, which DPccp needs
+     * to enumerate every subset after the subsets it splits into. If the graph is not connected,
+     * every table is also joined with the tables outside its component, by a cross product. */
+    private void numberTables() {
+        int n = allNames.size();
+        boolean[][] joined = new boolean[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                joined[i][j] = joined[j][i] = uv.getExpression(allNames.get(i), allNames.get(j)) != null;
+            }
+        }
+        List<Integer> order = breadthFirst(joined);
+        if (order.size() < n) {
+            // join the components by cross products
+            int[] component = new int[n];
+            Arrays.fill(component, -1);
+            for (int c = 0, start = 0; start < n; start++) {
+                if (component[start] != -1) continue;
+                for (int t : breadthFirst(joined, start)) component[t] = c;
+                c++;
+            }
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) joined[i][j] |= component[i] != component[j];
+            }
+            order = breadthFirst(joined);
+        }
+        tables = new String[n];
+        neighbors = new long[n];
+        edges = new JoinEdge[n][n];
+        widths = new int[n];
+        for (int k = 0; k < n; k++) {
+            tables[k] = allNames.get(order.get(k));
+            bits.put(tables[k], k);
+            widths[k] =
+                    Catalog.getAttributes(Catalog.getRealTableName(tables[k])).size();
+        }
+        for (int k = 0; k < n; k++) {
+            for (int l = 0; l < n; l++) {
+                if (joined[order.get(k)][order.get(l)]) neighbors[k] |= 1L << l;
+                Expression condition = k != l ? uv.getExpression(tables[k], tables[l]) : null;
+                if (condition != null) {
+                    edges[k][l] = new JoinEdge(
+                            condition, tables[k], uv.getJoinEqualities(tables[k], Arrays.asList(tables[l])));
+                }
+            }
+        }
+    }
+
+    /** @param joined whether each pair of tables, by index in the query, is joined
+     * @return indexes of the tables reached from the first table in breadth-first order */
+    private static List<Integer> breadthFirst(boolean[][] joined) {
+        return breadthFirst(joined, 0);
+    }
+
+    /** @param joined whether each pair of tables, by index in the query, is joined
+     * @param start  index of the first table
+     * @return indexes of the tables reached from the start in breadth-first order */
+    private static List<Integer> breadthFirst(boolean[][] joined, int start) {
+        List<Integer> order = new ArrayList<>();
+        boolean[] seen = new boolean[joined.length];
+        order.add(start);
+        seen[start] = true;
+        for (int next = 0; next < order.size(); next++) {
+            int t = order.get(next);
+            for (int u = 0; u < joined.length; u++) {
+                if (joined[t][u] && !seen[u]) {
+                    seen[u] = true;
+                    order.add(u);
+                }
+            }
+        }
+        return order;
+    }
+
+    /** @param names (aliased) table names
+     * @return subset of the tables */
+    private long subset(List<String> names) {
+        long s = 0;
+        for (String name : names) s |= bitOf(name);
+        return s;
+    }
+
+    /** @param name (aliased) table name
+     * @return subset of only the table, empty if it is not joined here */
+    private long bitOf(String name) {
+        Integer k = bits.get(name);
+        return k != null ? 1L << k : 0;
+    }
+
+    /** @param s subset of the tables
+     * @return tables joined with a table of the subset, outside of the subset */
+    private long neighborhood(long s) {
+        long n = 0;
+        for (long rest = s; rest != 0; rest &= rest - 1) n |= neighbors[Long.numberOfTrailingZeros(rest)];
+        return n & ~s;
+    }
+
+    /** @param i bit of a table
+     * @return subset of the tables whose bit is at most i */
+    private static long upTo(int i) {
+        return i == 63 ? -1L : (1L << (i + 1)) - 1;
+    }
+
+    /** Fills the DP Table, where the keys are the connected subsets of the children of the logical
+     * join, and the values are the tuples containing the optimal join ordering and join methods,
+     * associated cost and output size, and a V-Value map for each attribute.
+     *
+     * @throws IOException */
+    public void calculateDPTable() throws IOException {
+        for (int k = 0; k < tables.length; k++) dpTable.put(1L << k, createDPTuple(k));
+        if (tables.length <= Catalog.DPTables) {
+            enumerateSubsets();
+        } else {
+            orderGreedily();
+        }
+    }
+
+    /** Enumerates every connected subset S1 of the tables, from the highest numbered table down, by
+     * DPccp. Each is then paired with every connected subset S2 next to it that has only tables
+     * numbered above the lowest numbered table of S1, so that every pair is joined once. The
+     * breadth-first numbering, and growing subsets by the subsets of their neighbors in ascending
+     * order, make all the pairs of both halves come before the pair itself. */
+    private void enumerateSubsets() {
+        for (int i = tables.length - 1; i >= 0; i--) {
+            long v = 1L << i;
+            enumerateComplements(v);
+            enumerateSubsets(v, upTo(i));
+        }
+    }
+
+    /** @param s connected subset of the tables
+     * @param x tables excluded from the subsets grown from s */
+    private void enumerateSubsets(long s, long x) {
+        long n = neighborhood(s) & ~x;
+        for (long sub = n & -n; sub != 0; sub = (sub - n) & n) enumerateComplements(s | sub);
+        for (long sub = n & -n; sub != 0; sub = (sub - n) & n) enumerateSubsets(s | sub, x | n);
+    }
+
+    /** Joins a connected subset with every connected subset next to it that has only tables
+     * numbered above the lowest numbered table of s1
      *
-     * @param names list of (aliased) table names
-     * @return DPTable key */
-    public String namesToKey(List<String> names) {
-        Collections.sort(names);
-        return names.toString();
-    }
-
-    /** Fills the DP Table, where the keys are the power set of the children of the logical join,
-     * and the values are the tuples containing the optimal join ordering, associated cost and
-     * output size, and a V-Value map for each attribute. */
-    public void calculateDPTable() {
-        // for every possible subset size i
-        for (int i = 1; i <= allNames.size(); i++) {
-            // fill subsetsOfSizeI with all subsets of size i
-            List<List<String>> subsetsOfSizeI = new ArrayList<>();
-            generateCombinationOfSize(subsetsOfSizeI, i);
-
-            for (List<String> subset : subsetsOfSizeI) {
-                // fill the DP table for every subset of size i
-                dpTable.put(namesToKey(subset), valuesForSubset(subset));
+     * @param s1 connected subset of the tables */
+    private void enumerateComplements(long s1) {
+        long x = s1 | upTo(Long.numberOfTrailingZeros(s1));
+        long n = neighborhood(s1) & ~x;
+        for (long rest = n; rest != 0; ) {
+            int i = 63 - Long.numberOfLeadingZeros(rest);
+            long v = 1L << i;
+            rest &= ~v;
+            join(s1, v);
+            enumerateComplements(s1, v, x | (n & upTo(i)));
+        }
+    }
+
+    /** @param s1 connected subset of the tables
+     * @param s2 connected subset next to s1
+     * @param x  tables excluded from the subsets grown from s2 */
+    private void enumerateComplements(long s1, long s2, long x) {
+        long n = neighborhood(s2) & ~x;
+        for (long sub = n & -n; sub != 0; sub = (sub - n) & n) join(s1, s2 | sub);
+        for (long sub = n & -n; sub != 0; sub = (sub - n) & n) enumerateComplements(s1, s2 | sub, x | n);
+    }
+
+    /** Costs the plans for the union of two disjoint connected subsets joined by a join condition,
+     * with either subset as the inner child.
+     *
+     * @param s1 connected subset of the tables
+     * @param s2 connected subset of the tables next to s1 */
+    private void join(long s1, long s2) {
+        DPTuple t1 = dpTable.get(s1);
+        DPTuple t2 = dpTable.get(s2);
+        // costed first, a single inner table is kept on a tie
+        if (Long.bitCount(s2) == 1) {
+            addJoin(t1, t2);
+            addJoin(t2, t1);
+        } else {
+            addJoin(t2, t1);
+            addJoin(t1, t2);
+        }
+    }
+
+    /** Orders the tables greedily, by GOO: starts with a plan for each table and keeps joining the
+     * two plans next to each other whose join is cheapest, until a single plan joins all the
+     * tables. */
+    private void orderGreedily() {
+        List<Long> plans = new ArrayList<>();
+        for (int k = 0; k < tables.length; k++) plans.add(1L << k);
+        while (plans.size() > 1) {
+            int first = -1;
+            int second = -1;
+            for (int i = 0; i < plans.size(); i++) {
+                for (int j = i + 1; j < plans.size(); j++) {
+                    long s1 = plans.get(i);
+                    long s2 = plans.get(j);
+                    if ((neighborhood(s1) & s2) == 0) continue;
+                    join(s1, s2);
+                    if (first == -1
+                            || dpTable.get(s1 | s2).cost < dpTable.get(plans.get(first) | plans.get(second)).cost) {
+                        first = i;
+                        second = j;
+                    }
+                }
             }
+            plans.set(first, plans.get(first) | plans.get(second));
+            plans.remove(second);
         }
     }
 
@@ -74,57 +302,136 @@ public final class JoinOrderOptimizer {
      *
      * @return List of (aliased) table names representing the best ordering */
     public List<String> getBestOrder() {
-        return dpTable.get(namesToKey(allNames)).joins;
+        return dpTable.get(subset(allNames)).joins;
     }
 
-    /** @param order the optimal order of tables
-     * @return DP Tuple for this ordering */
-    private DPTuple createDPTuple(List<String> order) {
-        String innerTableName = order.get(order.size() - 1);
-        DPTuple outerTuple = dpTable.get(namesToKey(order.subList(0, order.size() - 1)));
-        double size = computeSize(outerTuple, innerTableName);
-        return new DPTuple(order, 0, createVSet(outerTuple, innerTableName, size), size);
+    /** @return the best plan joining all the tables */
+    DPTuple getBestPlan() {
+        return dpTable.get(subset(allNames));
     }
 
-    /** Calculates the best ordering and cost for a subset, using a recurrence based on smaller
-     * subsets
+    /** @param k bit of a table
+     * @return DP Tuple for the table, whose cost is that of scanning it
+     * @throws IOException */
+    private DPTuple createDPTuple(int k) throws IOException {
+        double size = computeSize(null, 1L << k);
+        double cost = Catalog.STATS.getTableScanCost(Catalog.getRealTableName(tables[k]));
+        // a selection read through an index returns the rows in key order
+        List<Set<Attribute>> order = new ArrayList<>();
+        LogicalOperator child = children.get(tables[k]);
+        if (child instanceof LogicalSelectOperator) {
+            IndexExpressionVisitor iev =
+                    PhysicalPlanBuilder.cheapestIndex(tables[k], ((LogicalSelectOperator) child).exp);
+            if (iev != null) order.add(Set.of(Attribute.bundle(tables[k], iev.index.name.COLUMN)));
+        }
+        return new DPTuple(1L << k, Arrays.asList(tables[k]), order, cost, createVSet(null, 1L << k, size), size);
+    }
+
+    /** Costs joining the best plans of two disjoint subsets, with the cheapest join method, and
+     * keeps it as the best plan of their union if it is cheaper than the best so far.
      *
-     * @param subset the subset which we calculate the optimal ordering and cost of
-     * @return a DPTuple with the best ordering and cost of the subset */
-    private DPTuple valuesForSubset(List<String> subset) {
-        if (subset.size() == 1) {
-            // base case: cost is 0, there is only one order
-            return createDPTuple(subset);
-        } else if (subset.size() == 2) {
-            // secondary base case: cost is 0, order: smaller relation goes on the outside
-            if (Catalog.STATS.numRows(subset.get(0)) > Catalog.STATS.numRows(subset.get(1))) {
-                Collections.reverse(subset);
-            }
-            return createDPTuple(subset);
-        } else {
-            // recursive case:
-            // compare all the subsets which are 1 smaller than the current
-            // eg. if current subset is ABCD, then take the minimum cost out of
-            // BCD, ACD, ABD, and ABC
-            int indexOfBestExclusion = -1;
-            double minimumCost = Double.MAX_VALUE;
-            DPTuple bestPrevTuple = null;
-            for (int exclude = 0; exclude < subset.size(); exclude++) {
-                List<String> smallerSubset = new ArrayList<>(subset);
-                smallerSubset.remove(exclude);
-                DPTuple prevTuple = dpTable.get(namesToKey(smallerSubset));
-                if (prevTuple.cost + prevTuple.size < minimumCost) {
-                    minimumCost = prevTuple.cost + prevTuple.size;
-                    indexOfBestExclusion = exclude;
-                    bestPrevTuple = prevTuple;
-                }
+     * @param outer DP Tuple of the outer subset
+     * @param inner DP Tuple of the inner subset */
+    private void addJoin(DPTuple outer, DPTuple inner) {
+        long s = outer.tables | inner.tables;
+        double size = computeSize(outer, inner.tables);
+        JoinChoice join = cheapestJoin(outer, inner, size);
+        DPTuple best = dpTable.get(s);
+        if (best != null && best.cost <= (outer.cost + join.cost) * (1 + TIE)) return;
+        dpTable.put(s, new DPTuple(outer, inner, join, createVSet(outer, inner.tables, size), size));
+    }
+
+    /** Costs every join method that can join the best plans of two disjoint subsets. BNLJ can
+     * compute any join, producing the inner child again for every block of outer pages; hash joins
+     * and SMJ need an equijoin, and INLJ also needs a single inner table with an index on one of
+     * its join columns.
+     *
+     * @param outer DP Tuple of the outer subset
+     * @param inner DP Tuple of the inner subset
+     * @param size  estimated number of rows of the join
+     * @return the cheapest join method and its cost, including that of producing the inner child
+     *         and the output rows */
+    private JoinChoice cheapestJoin(DPTuple outer, DPTuple inner, double size) {
+        double outerPages = Catalog.STATS.getNumPages(outer.size, numAttributes(outer.tables));
+        double innerPages = Catalog.STATS.getNumPages(inner.size, numAttributes(inner.tables));
+        double outputCost = size * Stats.CPU_ROW_COST;
+
+        JoinChoice best = new JoinChoice(
+                JoinMethod.BNLJ,
+                null,
+                Catalog.STATS.getBlockNestedLoopJoinCost(outer.size, outerPages, inner.size, inner.cost) + outputCost);
+        List<Column> outerColumns = new ArrayList<>();
+        List<Column> innerColumns = new ArrayList<>();
+        if (!joinColumns(outer.tables, inner.tables, outerColumns, innerColumns)) return best;
+        best = cheaper(
+                best,
+                new JoinChoice(
+                        JoinMethod.HASH,
+                        null,
+                        Catalog.STATS.getHashJoinCost(outer.size, outerPages, inner.size, innerPages, inner.cost)
+                                + outputCost));
+        // a child already sorted on its join columns is not sorted again
+        boolean sortOuter = !outer.isSortedOn(PhysicalPlanBuilder.attributes(outerColumns));
+        boolean sortInner = !inner.isSortedOn(PhysicalPlanBuilder.attributes(innerColumns));
+        best = cheaper(
+                best,
+                new JoinChoice(
+                        outerColumns,
+                        innerColumns,
+                        Catalog.STATS.getSortMergeJoinCost(
+                                        outer.size,
+                                        outerPages,
+                                        inner.size,
+                                        innerPages,
+                                        inner.cost,
+                                        sortOuter,
+                                        sortInner)
+                                + outputCost));
+        if (inner.join != null) return best;
+        List<Index> indexes = Catalog.getIndexes(Catalog.getRealTableName(inner.joins.get(0)));
+        if (indexes == null) return best;
+        for (Column c : innerColumns) {
+            for (Index i : indexes) {
+                if (!c.getColumnName().equals(i.name.COLUMN)) continue;
+                double cost = Catalog.STATS.getIndexJoinCost(i, outer.size) + outputCost;
+                best = cheaper(best, new JoinChoice(JoinMethod.INLJ, i, cost));
             }
+        }
+        return best;
+    }
 
-            // given the best predecessor subset, return the DPTuple for this subset
-            List<String> bestOrder = new ArrayList<>(bestPrevTuple.joins);
-            bestOrder.add(subset.get(indexOfBestExclusion));
-            return createDPTuple(bestOrder);
+    /** @param outer        subset of the outer tables
+     * @param inner        disjoint subset of the inner tables
+     * @param outerColumns filled with the columns of the outer tables in the join condition
+     * @param innerColumns filled with the columns of the inner tables the outer columns equal, in
+     *                     the same order
+     * @return true if the join condition is an equijoin */
+    private boolean joinColumns(long outer, long inner, List<Column> outerColumns, List<Column> innerColumns) {
+        for (long i = inner; i != 0; i &= i - 1) {
+            for (long o = outer; o != 0; o &= o - 1) {
+                JoinEdge edge = edges[Long.numberOfTrailingZeros(i)][Long.numberOfTrailingZeros(o)];
+                if (edge == null) continue;
+                if (!edge.equiJoin) return false;
+                innerColumns.addAll(edge.columns);
+                outerColumns.addAll(edge.otherColumns);
+            }
         }
+        return !innerColumns.isEmpty();
+    }
+
+    /** @param a a join choice
+     * @param b another join choice
+     * @return the choice with the lower cost, a if they cost the same */
+    private static JoinChoice cheaper(JoinChoice a, JoinChoice b) {
+        return b.cost < a.cost ? b : a;
+    }
+
+    /** @param s subset of the tables
+     * @return number of attributes of the join of the tables */
+    private int numAttributes(long s) {
+        int n = 0;
+        for (long rest = s; rest != 0; rest &= rest - 1) n += widths[Long.numberOfTrailingZeros(rest)];
+        return n;
     }
 
     /** @param val the value to clamp
@@ -136,10 +443,12 @@ public final class JoinOrderOptimizer {
     }
 
     /** @param prevTuple previous tuple with best cost, null if single table
-     * @param innerTable new inner table to add to join
-     * @return size of this join with the inner table */
-    private double computeSize(DPTuple prevTuple, String innerTable) {
+     * @param inner     subset of the inner tables to add to join, a single table if prevTuple is
+     *                  null
+     * @return size of this join with the inner tables */
+    private double computeSize(DPTuple prevTuple, long inner) {
         if (prevTuple == null) {
+            String innerTable = tables[Long.numberOfTrailingZeros(inner)];
             // find the table which corresponds with onlyTable
             LogicalOperator logicalChild = children.get(innerTable);
             if (logicalChild instanceof LogicalScanOperator) {
@@ -149,36 +458,41 @@ public final class JoinOrderOptimizer {
             // case 2: select operator
             double baseSize = Catalog.STATS.numRows(innerTable);
             for (Attribute a : Catalog.getAliasedAttributes(innerTable)) {
-                int extent = uv.unionFind.getAttributeExtent(a);
-                double rfactor = Catalog.STATS.getReductionFactor(a, extent);
-                baseSize *= rfactor;
+                baseSize *= uv.unionFind.getReductionFactor(a);
             }
             return clamp(baseSize, null);
         } else {
             // case 3: join
-            DPTuple innerTuple = dpTable.get(namesToKey(Arrays.asList(innerTable)));
-            List<Set<Attribute>> joinEqualitySets = uv.getJoinEqualities(innerTable, prevTuple.joins);
+            DPTuple innerTuple = dpTable.get(inner);
             double denominator = 1;
             // iterate through all equality sets, getting max V-Value and multiplying denominator
-            for (Set<Attribute> eqSet : joinEqualitySets) {
-                double bestV = Double.MIN_VALUE;
-                for (Attribute a : eqSet) {
-                    double v = innerTuple.VSet.containsKey(a) ? innerTuple.VSet.get(a) : prevTuple.VSet.get(a);
-                    bestV = Math.max(v, bestV);
+            for (long i = inner; i != 0; i &= i - 1) {
+                for (long o = prevTuple.tables; o != 0; o &= o - 1) {
+                    JoinEdge edge = edges[Long.numberOfTrailingZeros(i)][Long.numberOfTrailingZeros(o)];
+                    if (edge == null) continue;
+                    for (Set<Attribute> eqSet : edge.equalities) {
+                        double bestV = Double.MIN_VALUE;
+                        for (Attribute a : eqSet) {
+                            Double v = innerTuple.VSet.get(a);
+                            bestV = Math.max(v != null ? v : prevTuple.VSet.get(a), bestV);
+                        }
+                        denominator *= bestV;
+                    }
                 }
-                denominator *= bestV;
             }
             return clamp(innerTuple.size * prevTuple.size / denominator, null);
         }
     }
 
-    /** @param prevTuple previous tuple representing outer tables
-     * @param innerTable inner table to add to the join
-     * @param size       the size of this join
+    /** @param prevTuple previous tuple representing outer tables, null if single table
+     * @param inner     subset of the inner tables to add to the join, a single table if prevTuple
+     *                  is null
+     * @param size      the size of this join
      * @return V-Value set for each attribute in the join */
-    private Map<Attribute, Double> createVSet(DPTuple prevTuple, String innerTable, double size) {
+    private Map<Attribute, Double> createVSet(DPTuple prevTuple, long inner, double size) {
         Map<Attribute, Double> vSet;
         if (prevTuple == null) {
+            String innerTable = tables[Long.numberOfTrailingZeros(inner)];
             vSet = new HashMap<>();
             // find the table which corresponds with onlyTable
             LogicalOperator logicalChild = children.get(innerTable);
@@ -191,18 +505,16 @@ public final class JoinOrderOptimizer {
                 // case 2: select operator
                 for (Attribute a : Catalog.getAliasedAttributes(innerTable)) {
                     double baseCost = Catalog.STATS.baseTableV(a);
-                    int extent = uv.unionFind.getAttributeExtent(a);
-                    double rfactor = Catalog.STATS.getReductionFactor(a, extent);
+                    double rfactor = uv.unionFind.getReductionFactor(a);
                     // clamp to estimated join size
                     vSet.put(a, clamp(baseCost * rfactor, size));
                 }
             }
         } else {
             // case 3: join
-            DPTuple innerTuple = dpTable.get(namesToKey(Arrays.asList(innerTable)));
-            Set<String> outerTables = new HashSet<>(prevTuple.joins);
-            List<Set<Attribute>> joinEqualitySets = getJoinEqualitySets(innerTable, outerTables);
-            vSet = prevTuple.VSet;
+            DPTuple innerTuple = dpTable.get(inner);
+            List<Set<Attribute>> joinEqualitySets = getJoinEqualitySets(inner, prevTuple.tables);
+            vSet = new HashMap<>(prevTuple.VSet);
             vSet.putAll(innerTuple.VSet);
             // iterate through all equality sets, setting all attribute V-Values to lowest in set
             for (Set<Attribute> eqSet : joinEqualitySets) {
@@ -216,83 +528,267 @@ public final class JoinOrderOptimizer {
         return vSet;
     }
 
-    /** @param name inner table name
-     * @param seen set of table names in outer table
+    /** @param inner subset of the inner tables
+     * @param outer disjoint subset of the outer tables
      * @return Sets of attributes joined by equality this join */
-    public List<Set<Attribute>> getJoinEqualitySets(String name, Set<String> seen) {
+    private List<Set<Attribute>> getJoinEqualitySets(long inner, long outer) {
         List<Set<Attribute>> joinEqualitySets = new LinkedList<>();
         for (Set<Attribute> s : equalitySets) {
-            boolean hasInner = false;
-            boolean hasOuter = false;
-            for (Attribute a : s) {
-                hasInner |= a.TABLE.equals(name);
-                hasOuter |= seen.contains(a.TABLE);
-                if (hasInner && hasOuter) break;
-            }
-            if (hasInner && hasOuter) {
+            long seen = 0;
+            for (Attribute a : s) seen |= bitOf(a.TABLE);
+            if ((seen & inner) != 0 && (seen & outer) != 0) {
                 Set<Attribute> filtered = new HashSet<>(s); // dereference from original set
-                filtered.removeIf(a -> !a.TABLE.equals(name) && !seen.contains(a.TABLE));
+                filtered.removeIf(a -> (bitOf(a.TABLE) & (outer | inner)) == 0);
                 joinEqualitySets.add(filtered);
             }
         }
         return joinEqualitySets;
     }
 
-    /** Helper for generating combinations. We store these combinations in the parameter
-     * subsetsOfSizeI
-     *
-     * @param subsetsOfSizeI list in which we store all subsets of size i that we find
-     * @param n              the size of the list
-     * @param r              the size of the combinations to find
-     * @param index          current index in data
-     * @param data           list for temporarily storing subsets
-     * @param i              the current start */
-    private void combinationUtil(List<List<String>> subsetsOfSizeI, int r, int index, List<String> data, int i) {
-        // Current combination is ready, store to subsets
-        if (index == r) {
-            subsetsOfSizeI.add(new ArrayList<>(data.subList(0, index)));
-            return;
-        }
+    /** The join condition between two tables, from the side of one of them */
+    private static final class JoinEdge {
 
-        if (i >= allNames.size()) return;
+        /** Whether the condition has only equalities */
+        final boolean equiJoin;
 
-        data.add(index, allNames.get(i));
-        combinationUtil(subsetsOfSizeI, r, index + 1, data, i + 1);
-        combinationUtil(subsetsOfSizeI, r, index, data, i + 1);
-    }
+        /** Columns of this side's table in the equalities of the condition, null if it is not an
+         * equijoin */
+        final List<Column> columns;
 
-    /** Generates all subsets of a certain size and stores them in the input list
-     *
-     * @param subsetsOfSizeI list in which we store all subsets of size r
-     * @param r              the size of the subsets */
-    private void generateCombinationOfSize(List<List<String>> subsetsOfSizeI, int r) {
-        // A temporary array to store combinations
-        List<String> data = new ArrayList<>(r);
+        /** Columns of the other table that equal {@code columns}, in the same order, null if it is
+         * not an equijoin */
+        final List<Column> otherColumns;
+
+        /** Sets of attributes equated by the condition */
+        final List<Set<Attribute>> equalities;
 
-        combinationUtil(subsetsOfSizeI, r, 0, data, 0);
+        /** @param condition  join condition between the tables
+         * @param table      (aliased) name of this side's table
+         * @param equalities sets of attributes equated by the condition */
+        JoinEdge(Expression condition, String table, List<Set<Attribute>> equalities) {
+            equiJoin = isEquiJoin(condition);
+            columns = equiJoin ? keyColumns(getEqualityConditions(condition), Arrays.asList(table), true) : null;
+            otherColumns = equiJoin ? keyColumns(getEqualityConditions(condition), Arrays.asList(table), false) : null;
+            this.equalities = equalities;
+        }
     }
 }
 
-/** Represents an entry in the DP table, storing the optimal order, output size, cost, and
- * V-Values. */
+/** Represents an entry in the DP table, storing the optimal plan, output size, cost, and V-Values.
+ * The plan of a single table scans it; the plan of a join joins the plans of two smaller subsets. */
 class DPTuple {
 
-    /** Best ordering of (aliased) tables for the join */
-    List<String> joins;
+    /** Subset of the tables joined */
+    final long tables;
+
+    /** (aliased) tables in the order of the plan's output: those of the outer child, then those of
+     * the inner child */
+    final List<String> joins;
+
+    /** Plan of the outer child, null for a single table */
+    final DPTuple outer;
+
+    /** Plan of the inner child, null for a single table */
+    final DPTuple inner;
 
-    /** Cost of this ordering */
-    double cost;
+    /** Join method of the root join, null for a single table */
+    final JoinChoice join;
+
+    /** Attributes the output of the plan is sorted on, most significant first; each position holds
+     * the attributes an SMJ made equal, any of which can stand for it */
+    final List<Set<Attribute>> order;
+
+    /** Estimated I/O and CPU cost of this plan */
+    final double cost;
 
     /** V-Values for each attribute in final join output */
-    Map<Attribute, Double> VSet;
+    final Map<Attribute, Double> VSet;
 
     /** Size of final join output */
-    double size;
+    final double size;
 
-    public DPTuple(List<String> argJoins, double argCost, Map<Attribute, Double> argVSet, double size) {
+    /** @param argTables subset of only the table
+     * @param argJoins  (aliased) name of the table
+     * @param argOrder  attributes the table is read in the order of, e.g. an index key, each in a
+     *                  set of its own
+     * @param argCost   estimated cost of scanning the table
+     * @param argVSet   V-Values of the table's attributes
+     * @param size      estimated number of rows of the table */
+    DPTuple(
+            long argTables,
+            List<String> argJoins,
+            List<Set<Attribute>> argOrder,
+            double argCost,
+            Map<Attribute, Double> argVSet,
+            double size) {
+        tables = argTables;
         joins = argJoins;
+        outer = null;
+        inner = null;
+        join = null;
+        order = argOrder;
         cost = argCost;
         VSet = argVSet;
         this.size = size;
     }
+
+    /** @param argOuter plan of the outer child
+     * @param argInner plan of the inner child, over a disjoint subset
+     * @param argJoin  join method of the join and its cost
+     * @param argVSet  V-Values for each attribute in the join output
+     * @param size     estimated number of rows of the join */
+    DPTuple(DPTuple argOuter, DPTuple argInner, JoinChoice argJoin, Map<Attribute, Double> argVSet, double size) {
+        tables = argOuter.tables | argInner.tables;
+        joins = new ArrayList<>(argOuter.joins);
+        joins.addAll(argInner.joins);
+        outer = argOuter;
+        inner = argInner;
+        join = argJoin;
+        order = argOuter.sortOrderAfter(argJoin);
+        cost = argOuter.cost + argJoin.cost;
+        VSet = argVSet;
+        this.size = size;
+    }
+
+    /** Mirrors {@code PhysicalOperator.isSortedOn} on the operators the plan is built into.
+     *
+     * @param attributes attributes, most significant first
+     * @return true if the output is sorted on the attributes in this order */
+    boolean isSortedOn(List<Attribute> attributes) {
+        if (order.size() < attributes.size()) return false;
+        for (int k = 0; k < attributes.size(); k++) {
+            if (!order.get(k).contains(attributes.get(k))) return false;
+        }
+        return true;
+    }
+
+    /** An INLJ keeps the order of its outer child, and an SMJ that of its outer child sorted on the
+     * join columns if it was not already, where each inner join column can stand for the outer
+     * column it equals.
+     *
+     * @param join join of this plan, as the outer child, with another plan
+     * @return the order of the join's output */
+    List<Set<Attribute>> sortOrderAfter(JoinChoice join) {
+        if (join.method == JoinMethod.INLJ) return order;
+        if (join.method != JoinMethod.SMJ) return List.of();
+        List<Attribute> outerKeys = PhysicalPlanBuilder.attributes(join.outerColumns);
+        List<Attribute> innerKeys = PhysicalPlanBuilder.attributes(join.innerColumns);
+        List<Set<Attribute>> sorted = new ArrayList<>();
+        for (int k = 0; k < outerKeys.size(); k++) {
+            Set<Attribute> equal = new HashSet<>(isSortedOn(outerKeys) ? order.get(k) : Set.of(outerKeys.get(k)));
+            equal.add(innerKeys.get(k));
+            sorted.add(equal);
+        }
+        if (isSortedOn(outerKeys)) sorted.addAll(order.subList(outerKeys.size(), order.size()));
+        return sorted;
+    }
+}
+
+/** Join methods the optimizer chooses from */
+enum JoinMethod {
+    /** block nested loop join */
+    BNLJ,
+    /** in-memory hash join, or hybrid hash join if neither child fits in memory */
+    HASH,
+    /** sort merge join */
+    SMJ,
+    /** index nested loop join */
+    INLJ
+}
+
+/** The join method chosen for a join of the plan and its estimated cost */
+class JoinChoice {
+
+    /** Join method */
+    final JoinMethod method;
+
+    /** Index of the inner table probed by an INLJ, null for other methods */
+    final Index index;
+
+    /** Join columns of the outer child an SMJ sorts on, null for other methods */
+    final List<Column> outerColumns;
+
+    /** Join columns of the inner child an SMJ sorts on, in the order of outerColumns; null for other
+     * methods */
+    final List<Column> innerColumns;
+
+    /** Estimated I/O and CPU cost of the join, including the cost of producing its inner child but
+     * excluding that of its outer child */
+    final double cost;
+
+    JoinChoice(JoinMethod method, Index index, double cost) {
+        this.method = method;
+        this.index = index;
+        outerColumns = null;
+        innerColumns = null;
+        this.cost = cost;
+    }
+
+    /** @param outerColumns join columns of the outer child
+     * @param innerColumns join columns of the inner child, in the same order
+     * @param cost         estimated cost of an SMJ on the columns */
+    JoinChoice(List<Column> outerColumns, List<Column> innerColumns, double cost) {
+        method = JoinMethod.SMJ;
+        index = null;
+        this.outerColumns = outerColumns;
+        this.innerColumns = innerColumns;
+        this.cost = cost;
+    }
+}
+
+/** A hash table from subsets of the tables, as bitmasks, to their entries in the DP table. It uses
+ * open addressing with linear probing over an array of keys, so that keys are not boxed. */
+class DPTable {
+
+    /** Subset in each slot, 0 if the slot is empty */
+    private long[] keys = new long[16];
+
+    /** DP Tuple of the subset in each slot */
+    private DPTuple[] values = new DPTuple[16];
+
+    /** Number of subsets in the table */
+    private int size;
+
+    /** @param s nonempty subset of the tables
+     * @return the DP Tuple of the subset, null if it has none */
+    DPTuple get(long s) {
+        for (int i = slot(s, keys.length); keys[i] != 0; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == s) return values[i];
+        }
+        return null;
+    }
+
+    /** @param s     nonempty subset of the tables
+     * @param tuple DP Tuple of the subset, replacing any previous one */
+    void put(long s, DPTuple tuple) {
+        if (2 * (size + 1) > keys.length) grow();
+        int i = slot(s, keys.length);
+        while (keys[i] != 0 && keys[i] != s) i = (i + 1) & (keys.length - 1);
+        if (keys[i] == 0) size++;
+        keys[i] = s;
+        values[i] = tuple;
+    }
+
+    /** Doubles the number of slots, keeping the table at most half full */
+    private void grow() {
+        long[] oldKeys = keys;
+        DPTuple[] oldValues = values;
+        keys = new long[2 * oldKeys.length];
+        values = new DPTuple[keys.length];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) continue;
+            int i = slot(oldKeys[j], keys.length);
+            while (keys[i] != 0) i = (i + 1) & (keys.length - 1);
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    /** @param s        subset of the tables
+     * @param capacity number of slots, a power of 2
+     * @return first slot to probe for the subset */
+    private static int slot(long s, int capacity) {
+        long h = s * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (capacity - 1);
+    }
 }
@@ -1,29 +1,43 @@
 package com.dbms.queryplan;
 
+import com.dbms.operators.logical.LogicalAggregateOperator;
 import com.dbms.operators.logical.LogicalDuplicateEliminationOperator;
 import com.dbms.operators.logical.LogicalJoinOperator;
+import com.dbms.operators.logical.LogicalLimitOperator;
 import com.dbms.operators.logical.LogicalOperator;
 import com.dbms.operators.logical.LogicalProjectOperator;
 import com.dbms.operators.logical.LogicalScanOperator;
 import com.dbms.operators.logical.LogicalSelectOperator;
 import com.dbms.operators.logical.LogicalSortOperator;
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import net.sf.jsqlparser.expression.AllValue;
+import net.sf.jsqlparser.expression.BinaryExpression;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NullValue;
+import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.AllColumns;
 import net.sf.jsqlparser.statement.select.Distinct;
 import net.sf.jsqlparser.statement.select.FromItem;
+import net.sf.jsqlparser.statement.select.GroupByElement;
 import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.Offset;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 import net.sf.jsqlparser.statement.select.PlainSelect;
 import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
 import net.sf.jsqlparser.statement.select.SelectItem;
 
 /** Builds a query plan from a Statement and stores the root operator. */
@@ -80,6 +94,10 @@ public class LogicalPlanBuilder {
         FromItem mainFromItem = body.getFromItem();
         List<Join> joins = body.getJoins();
         List<String> tableNames = extractNames(mainFromItem, joins);
+        if (tableNames.size() > JoinOrderOptimizer.MAX_TABLES) {
+            throw new IllegalArgumentException(
+                    "A join has at most " + JoinOrderOptimizer.MAX_TABLES + " tables: " + tableNames.size());
+        }
         List<OrderByElement> orderByElements = body.getOrderByElements();
         Distinct distinct = body.getDistinct();
 
@@ -93,12 +111,100 @@ public class LogicalPlanBuilder {
             subRoot = createScanAndSelect(tableNames.get(0), exp);
         }
 
-        // add if necessary: projection, sorting, duplicate elimination
+        // add if necessary: aggregation, projection, sorting, duplicate elimination
+        subRoot = addAggregate(subRoot, isAllColumns ? null : selectItems, body.getGroupBy(), body.getHaving());
         if (!isAllColumns) subRoot = new LogicalProjectOperator(subRoot, selectItems);
-        subRoot = orderByElements != null || distinct != null
-                ? new LogicalSortOperator(subRoot, orderByElements)
-                : subRoot;
-        root = distinct != null ? new LogicalDuplicateEliminationOperator(subRoot) : subRoot;
+        // DISTINCT alone is done by hashing, so it only needs a sort for ORDER BY
+        if (orderByElements != null) subRoot = new LogicalSortOperator(subRoot, orderByElements);
+        subRoot = distinct != null ? new LogicalDuplicateEliminationOperator(subRoot) : subRoot;
+        root = addLimit(subRoot, body.getLimit(), body.getOffset());
+    }
+
+    /** @param subRoot     root of the plan over the FROM tables
+     * @param selectItems select items, null if all columns are selected
+     * @param groupBy     GROUP BY clause, null if none
+     * @param having      HAVING condition, null if none
+     * @return aggregate operator over subRoot, followed by a selection on the HAVING condition, if
+     *         the query has a GROUP BY clause or aggregate functions; otherwise subRoot */
+    private LogicalOperator addAggregate(
+            LogicalOperator subRoot, List<SelectItem> selectItems, GroupByElement groupBy, Expression having) {
+        List<Function> functions = new ArrayList<>();
+        if (selectItems != null) {
+            for (SelectItem item : selectItems) {
+                collectFunctions(((SelectExpressionItem) item).getExpression(), functions);
+            }
+        }
+        collectFunctions(having, functions);
+        if (groupBy == null && functions.isEmpty()) return subRoot;
+
+        List<Column> groupByColumns = new ArrayList<>();
+        if (groupBy != null) {
+            for (Expression exp : groupBy.getGroupByExpressionList().getExpressions()) {
+                if (!(exp instanceof Column)) throw new UnsupportedOperationException("Unsupported GROUP BY " + exp);
+                groupByColumns.add((Column) exp);
+            }
+        }
+        if (selectItems != null) {
+            for (SelectItem item : selectItems) {
+                Expression exp = ((SelectExpressionItem) item).getExpression();
+                if (exp instanceof Column && groupByColumns.stream().noneMatch(c -> sameColumn(c, (Column) exp))) {
+                    throw new IllegalArgumentException(exp + " must appear in the GROUP BY clause");
+                }
+            }
+        }
+        LogicalOperator aggregate = new LogicalAggregateOperator(subRoot, groupByColumns, functions);
+        return having != null ? new LogicalSelectOperator(aggregate, having) : aggregate;
+    }
+
+    /** Adds the aggregate functions of an expression to a list, skipping functions already in it.
+     *
+     * @param exp       expression of a select item or the HAVING condition, null if none
+     * @param functions list to add the functions to */
+    private static void collectFunctions(Expression exp, List<Function> functions) {
+        if (exp instanceof Function) {
+            Attribute a = Attribute.fromExpression(exp);
+            if (functions.stream().noneMatch(f -> Attribute.fromExpression(f).equals(a))) {
+                functions.add((Function) exp);
+            }
+        } else if (exp instanceof BinaryExpression) {
+            collectFunctions(((BinaryExpression) exp).getLeftExpression(), functions);
+            collectFunctions(((BinaryExpression) exp).getRightExpression(), functions);
+        }
+    }
+
+    /** @param c1 column
+     * @param c2 column
+     * @return true if both columns name the same attribute */
+    private static boolean sameColumn(Column c1, Column c2) {
+        return Attribute.fromColumn(c1).equals(Attribute.fromColumn(c2));
+    }
+
+    /** @param subRoot root of the plan without its limit
+     * @param limit   LIMIT clause, null if none
+     * @param offset  OFFSET clause, null if none
+     * @return limit operator over subRoot if the query has a LIMIT or an OFFSET, otherwise subRoot */
+    private LogicalOperator addLimit(LogicalOperator subRoot, Limit limit, Offset offset) {
+        long rowCount = Long.MAX_VALUE;
+        long skip = 0;
+        if (limit != null) {
+            Expression count = limit.getRowCount();
+            // LIMIT ALL and LIMIT NULL do not limit
+            if (!(count instanceof AllValue) && !(count instanceof NullValue)) rowCount = longValue(count);
+            // LIMIT offset, count
+            if (limit.getOffset() != null) skip = longValue(limit.getOffset());
+        }
+        if (offset != null) skip = longValue(offset.getOffset());
+        if (rowCount == Long.MAX_VALUE && skip == 0) return subRoot;
+        return new LogicalLimitOperator(subRoot, rowCount, skip);
+    }
+
+    /** @param exp row count or offset of a LIMIT clause; must be a non-negative integer literal
+     * @return value of exp */
+    private static long longValue(Expression exp) {
+        if (!(exp instanceof LongValue) || ((LongValue) exp).getValue() < 0) {
+            throw new IllegalArgumentException("LIMIT and OFFSET must be non-negative integers: " + exp);
+        }
+        return ((LongValue) exp).getValue();
     }
 
     /** Writes this plan. Assumes a statement was already processed.
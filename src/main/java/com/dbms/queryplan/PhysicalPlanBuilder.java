@@ -2,14 +2,15 @@ package com.dbms.queryplan;
 
 import static com.dbms.utils.Helpers.getColumnNamesFromSelectItems;
 import static com.dbms.utils.Helpers.getEqualityConditions;
-import static com.dbms.utils.Helpers.getProperTableName;
-import static com.dbms.utils.Helpers.isEquiJoin;
+import static com.dbms.utils.Helpers.keyColumns;
 import static com.dbms.utils.Helpers.wrapListOfExpressions;
 
 import com.dbms.index.Index;
 import com.dbms.index.IndexExpressionVisitor;
+import com.dbms.operators.logical.LogicalAggregateOperator;
 import com.dbms.operators.logical.LogicalDuplicateEliminationOperator;
 import com.dbms.operators.logical.LogicalJoinOperator;
+import com.dbms.operators.logical.LogicalLimitOperator;
 import com.dbms.operators.logical.LogicalOperator;
 import com.dbms.operators.logical.LogicalProjectOperator;
 import com.dbms.operators.logical.LogicalScanOperator;
@@ -18,22 +19,33 @@ import com.dbms.operators.logical.LogicalSortOperator;
 import com.dbms.operators.physical.BlockNestedLoopJoinOperator;
 import com.dbms.operators.physical.DuplicateEliminationOperator;
 import com.dbms.operators.physical.ExternalSortOperator;
+import com.dbms.operators.physical.HashAggregateOperator;
+import com.dbms.operators.physical.HashDuplicateEliminationOperator;
+import com.dbms.operators.physical.HashJoinOperator;
+import com.dbms.operators.physical.HybridHashJoinOperator;
+import com.dbms.operators.physical.IndexNestedLoopJoinOperator;
 import com.dbms.operators.physical.IndexScanOperator;
+import com.dbms.operators.physical.LimitOperator;
 import com.dbms.operators.physical.PhysicalOperator;
 import com.dbms.operators.physical.ProjectOperator;
 import com.dbms.operators.physical.ScanOperator;
 import com.dbms.operators.physical.SelectOperator;
+import com.dbms.operators.physical.SortAggregateOperator;
 import com.dbms.operators.physical.SortMergeJoinOperator;
+import com.dbms.operators.physical.TopNSortOperator;
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
+import com.dbms.utils.IO;
 import com.dbms.utils.Schema;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.select.OrderByElement;
@@ -57,16 +69,37 @@ public class PhysicalPlanBuilder {
      * @param logicalSelect is the select operator from the logical plan
      * @throws IOException */
     public void visit(LogicalSelectOperator logicalSelect) throws IOException {
+        if (!(logicalSelect.child instanceof LogicalScanOperator)) {
+            // a HAVING condition over an aggregate
+            logicalSelect.child.accept(this);
+            physOp = new SelectOperator(physOp, logicalSelect.exp);
+            return;
+        }
         String tableName = ((LogicalScanOperator) logicalSelect.child).tableName;
-        String unaliasedName = Catalog.getRealTableName(tableName);
-        List<Index> indexes = Catalog.getIndexes(unaliasedName);
+        IndexExpressionVisitor bestIev = cheapestIndex(tableName, logicalSelect.exp);
 
-        // if no indexes available, create a scan and select
-        if (indexes == null) {
+        // if scanning is cheaper, use a scan and select, otherwise use the best index
+        if (bestIev == null) {
             logicalSelect.child.accept(this);
             physOp = new SelectOperator(physOp, logicalSelect.exp);
-            return;
+        } else {
+            physOp = new IndexScanOperator(tableName, bestIev.index, bestIev.low, bestIev.high);
+            if (!bestIev.nonIndexedExps.isEmpty()) {
+                // use both IndexScan and normal selection
+                physOp = new SelectOperator(physOp, wrapListOfExpressions(bestIev.nonIndexedExps));
+            }
         }
+    }
+
+    /** @param tableName (aliased) table name
+     * @param exp       selection on the table
+     * @return the visitor of the selection for the index that is cheapest to scan for it, null if
+     *         the table has no usable index or scanning it is cheaper
+     * @throws IOException */
+    static IndexExpressionVisitor cheapestIndex(String tableName, Expression exp) throws IOException {
+        String unaliasedName = Catalog.getRealTableName(tableName);
+        List<Index> indexes = Catalog.getIndexes(unaliasedName);
+        if (indexes == null) return null;
 
         // get the scan cost and search for the index with lowest cost
         double scanCost = Catalog.STATS.getTableScanCost(unaliasedName);
@@ -74,27 +107,16 @@ public class PhysicalPlanBuilder {
         double bestCost = Integer.MAX_VALUE;
         for (Index i : indexes) {
             IndexExpressionVisitor iev = new IndexExpressionVisitor(i);
-            logicalSelect.exp.accept(iev);
+            exp.accept(iev);
             if (iev.isIndexable) {
-                double cost = Catalog.STATS.getTableIndexCost(i, iev.extent());
+                double cost = Catalog.STATS.getTableIndexCost(i, iev.low, iev.high);
                 if (cost < bestCost) {
                     bestIev = iev;
                     bestCost = cost;
                 }
             }
         }
-
-        // if scanning is cheaper, use a scan and select, otherwise use the best index
-        if (scanCost < bestCost) {
-            logicalSelect.child.accept(this);
-            physOp = new SelectOperator(physOp, logicalSelect.exp);
-        } else {
-            physOp = new IndexScanOperator(tableName, bestIev.index, bestIev.low, bestIev.high);
-            if (!bestIev.nonIndexedExps.isEmpty()) {
-                // use both IndexScan and normal selection
-                physOp = new SelectOperator(physOp, wrapListOfExpressions(bestIev.nonIndexedExps));
-            }
-        }
+        return scanCost < bestCost ? null : bestIev;
     }
 
     /** Construct physical project from logical project
@@ -107,138 +129,227 @@ public class PhysicalPlanBuilder {
         physOp = new ProjectOperator(physOp, s, true);
     }
 
-    /** Construct physical sort from logical sort
+    /** Construct physical sort from logical sort. No sort is added if the child already returns its
+     * tuples in the order the sort would, e.g. a clustered index scan on the ORDER BY column or a
+     * sort aggregate on the ORDER BY columns.
      *
      * @param logicalSort is the sort operator from the logical plan
      * @throws IOException */
     public void visit(LogicalSortOperator logicalSort) throws IOException {
         logicalSort.child.accept(this);
-        physOp = new ExternalSortOperator(physOp, logicalSort.orderBys, Catalog.EXTPages);
+        if (!isSortedOn(logicalSort.orderBys)) {
+            physOp = new ExternalSortOperator(physOp, logicalSort.orderBys, Catalog.EXTPages);
+        }
+    }
+
+    /** @param orderBys ORDER BY columns
+     * @return true if physOp returns its tuples in the order an external sort on orderBys would */
+    private boolean isSortedOn(List<OrderByElement> orderBys) {
+        return physOp.isSortedOn(ExternalSortOperator.orderFor(orderBys, physOp.schema));
     }
 
-    /** Construct physical duplicate elimination from logical duplicate elimination
+    /** Construct physical duplicate elimination from logical duplicate elimination. Sorted input,
+     * which the query needs for its ORDER BY anyway, is deduplicated by comparing adjacent tuples;
+     * otherwise duplicates are eliminated by hashing, without sorting.
      *
      * @param logicalDupl is the duplicate elimination operator from the physical plan
      * @throws IOException */
     public void visit(LogicalDuplicateEliminationOperator logicalDupl) throws IOException {
         logicalDupl.child.accept(this);
-        physOp = new DuplicateEliminationOperator(physOp);
+        physOp = logicalDupl.child instanceof LogicalSortOperator
+                ? new DuplicateEliminationOperator(physOp)
+                : new HashDuplicateEliminationOperator(physOp, Catalog.HJPages);
+    }
+
+    /** Construct physical aggregate from logical aggregate. If the child already returns the tuples
+     * of each group together, e.g. an index scan on the GROUP BY column, a sort aggregate streams
+     * through the groups in constant memory; otherwise a hash aggregate builds them.
+     *
+     * @param logicalAggregate is the aggregate operator from the logical plan
+     * @throws IOException */
+    public void visit(LogicalAggregateOperator logicalAggregate) throws IOException {
+        logicalAggregate.child.accept(this);
+        List<Attribute> groupBy = new ArrayList<>();
+        for (Column c : logicalAggregate.groupBy) groupBy.add(Attribute.fromColumn(c));
+        physOp = physOp.isGroupedOn(groupBy)
+                ? new SortAggregateOperator(physOp, logicalAggregate.groupBy, logicalAggregate.functions)
+                : new HashAggregateOperator(
+                        physOp, logicalAggregate.groupBy, logicalAggregate.functions, Catalog.HJPages);
+    }
+
+    /** Construct physical limit from logical limit. A limit directly over a sort becomes a Top-N sort
+     * if the tuples it keeps fit on the sort's buffer pages; otherwise the child is fully sorted and
+     * its first tuples are returned. A child that is already sorted is not sorted again.
+     *
+     * @param logicalLimit is the limit operator from the logical plan
+     * @throws IOException */
+    public void visit(LogicalLimitOperator logicalLimit) throws IOException {
+        long limit = logicalLimit.limit;
+        long offset = logicalLimit.offset;
+        if (logicalLimit.child instanceof LogicalSortOperator && limit <= Long.MAX_VALUE - offset) {
+            LogicalSortOperator logicalSort = (LogicalSortOperator) logicalLimit.child;
+            logicalSort.child.accept(this);
+            // a page has 8 bytes of metadata; a tuple wider than a page still takes one
+            long tuplesPerPage = Math.max(1, (IO.PAGE_SIZE - 8) / (physOp.schema.size() * 4));
+            if (isSortedOn(logicalSort.orderBys)) {
+                physOp = new LimitOperator(physOp, limit, offset);
+            } else if (offset + limit <= Catalog.EXTPages * tuplesPerPage) {
+                physOp = new TopNSortOperator(physOp, logicalSort.orderBys, limit, offset);
+            } else {
+                physOp = new ExternalSortOperator(physOp, logicalSort.orderBys, Catalog.EXTPages);
+                physOp = new LimitOperator(physOp, limit, offset);
+            }
+            return;
+        }
+        logicalLimit.child.accept(this);
+        physOp = new LimitOperator(physOp, limit, offset);
     }
 
-    /** Constructs the left deep join tree with optimal order. Inserts a project operator at the
-     * root of this tree if the optimal join order is different than the join order in the query.
+    /** Constructs the join tree with optimal order, which may be bushy. Inserts a project operator
+     * at the root of this tree if the optimal join order is different than the join order in the
+     * query.
      *
      * @param logicalJoin is the join operator from the logical plan
      * @throws IOException */
     public void visit(LogicalJoinOperator logicalJoin) throws IOException {
-        // we use DP to calculate the best ordering for the children of logicalJoin
+        // we use DP to calculate the best plan for the children of logicalJoin
         JoinOrderOptimizer opt = new JoinOrderOptimizer(logicalJoin);
-        // we then create a left deep tree of physical operators using the best join order
-        List<String> optOrder = opt.getBestOrder();
-        physOp = createLeftDeepTree(optOrder, logicalJoin, logicalJoin.children);
-        if (!logicalJoin.tableNames.equals(optOrder)) {
+        // we then create a tree of physical operators following the best plan
+        DPTuple plan = opt.getBestPlan();
+        physOp = createJoinTree(plan, logicalJoin.uv, logicalJoin.children);
+        if (!logicalJoin.tableNames.equals(plan.joins)) {
             physOp = new ProjectOperator(physOp, Schema.from(logicalJoin.tableNames), false);
         }
     }
 
-    /** @param tables table names (aliaed), removes first
-     * @param children the Logical Scan/Select operators corresponding to tables
-     * @return
+    /** @param plan     plan chosen by the join order optimizer for some of the tables
+     * @param uv       the {@code UnionFindVisitor} for obtaining the join conditions
+     * @param children the logical scan/select operators of the tables
+     * @return physical operator of the plan: the scan/select of a single table, or a join whose
+     *         inner child may be a join itself
      * @throws IOException */
-    private PhysicalOperator getNextOperator(List<String> tables, Map<String, LogicalOperator> children)
+    private PhysicalOperator createJoinTree(DPTuple plan, UnionFindVisitor uv, Map<String, LogicalOperator> children)
             throws IOException {
-        String tableName = tables.remove(0);
-        LogicalOperator logicalChild = children.get(tableName);
-        logicalChild.accept(this);
-
-        // physOp is the physical operator for the logical operator that tableName maps to
-        return physOp;
+        if (plan.join == null) {
+            children.get(plan.joins.get(0)).accept(this);
+            return physOp;
+        }
+        PhysicalOperator left = createJoinTree(plan.outer, uv, children);
+        Expression joinExp = uv.getExpression(plan.inner.joins, plan.outer.joins);
+        PhysicalOperator joinOp = selectJoinImplementation(plan, left, joinExp, uv, children);
+        joinOp.setEstimate(plan.cost, plan.size);
+        return joinOp;
     }
 
-    /** @param left       outer child
-     * @param right          inner child
-     * @param joinExp        join expression, null if this is a cross product
-     * @param innerTableName inner child's table name
-     * @return SMJ operator if joinExp is an equijoin, otherwise a BNLJ operator
+    /** @param plan     plan of the join, with the join method chosen by the join order optimizer
+     * @param left     outer child
+     * @param joinExp  join expression, null if this is a cross product; an equijoin unless the
+     *                 method is BNLJ
+     * @param uv       the {@code UnionFindVisitor} for obtaining the join conditions of the inner
+     *                 child
+     * @param children the logical scan/select operators of the tables
+     * @return INLJ operator on the chosen index, SMJ operator, BNLJ operator, or for a hash join an
+     *         HJ operator if the smaller child fits in the hash join budget, otherwise a hybrid hash
+     *         join operator
      * @throws IOException */
     private PhysicalOperator selectJoinImplementation(
-            PhysicalOperator left, PhysicalOperator right, Expression joinExp, String innerTableName)
+            DPTuple plan,
+            PhysicalOperator left,
+            Expression joinExp,
+            UnionFindVisitor uv,
+            Map<String, LogicalOperator> children)
             throws IOException {
-        if (isEquiJoin(joinExp)) {
-            List<EqualsTo> equalityConditions = getEqualityConditions(joinExp);
-            return createSortMergeJoinOperator(equalityConditions, left, right, innerTableName);
-        } else {
+        JoinChoice join = plan.join;
+        List<String> innerNames = plan.inner.joins;
+        if (join.method == JoinMethod.INLJ) {
+            String innerTableName = innerNames.get(0);
+            return createIndexNestedLoopJoin(left, innerTableName, children.get(innerTableName), joinExp, join.index);
+        }
+        PhysicalOperator right = createJoinTree(plan.inner, uv, children);
+        if (join.method == JoinMethod.BNLJ) {
             return new BlockNestedLoopJoinOperator(left, right, joinExp, Catalog.BNLJPages);
         }
+        if (join.method == JoinMethod.SMJ) {
+            // the optimizer costed the sorts for the join columns in this order
+            return createSortMergeJoinOperator(left, right, join.outerColumns, join.innerColumns);
+        }
+        List<EqualsTo> equalityConditions = getEqualityConditions(joinExp);
+        List<Column> outerColumns = keyColumns(equalityConditions, innerNames, false);
+        List<Column> innerColumns = keyColumns(equalityConditions, innerNames, true);
+        double outerPages = Catalog.STATS.getNumPages(plan.outer.size, left.schema.size());
+        double innerPages = Catalog.STATS.getNumPages(plan.inner.size, right.schema.size());
+        boolean buildOuter = outerPages <= innerPages;
+        if (Math.min(outerPages, innerPages) <= Catalog.HJPages) {
+            return new HashJoinOperator(left, right, outerColumns, innerColumns, buildOuter);
+        }
+        return new HybridHashJoinOperator(left, right, outerColumns, innerColumns, buildOuter, Catalog.HJPages);
     }
 
-    /** Creates children for join condition parsing
-     *
-     * @param tables   tables to place in tree. If aliases exist, then tables consists solely of
-     *                 aliases. Otherwise, tables contains actual table names; tables.length > 1
-     * @param uv       the {@code UnionFindVisitor} for obtaining the join conditions
-     * @param children the list of logical scan/select operators corresponding to tables
-     * @return a {@code LogicalJoinOperator} containing the left-deep tree
-     * @throws IOException, FileNotFoundException */
-    private PhysicalOperator createLeftDeepTree(
-            List<String> tables, LogicalJoinOperator logicalJoin, Map<String, LogicalOperator> children)
-            throws IOException, FileNotFoundException {
-        UnionFindVisitor uv = logicalJoin.uv;
-
-        String leftName = tables.get(0);
-        PhysicalOperator leftOp = getNextOperator(tables, children);
-
-        String rightName = tables.get(0);
-        PhysicalOperator rightOp = getNextOperator(tables, children);
-
-        Expression joinExp = uv.getExpression(leftName, rightName);
-        PhysicalOperator joinOp = selectJoinImplementation(leftOp, rightOp, joinExp, rightName);
-
-        List<String> seenNames = new ArrayList<>();
-        seenNames.add(leftName);
-        seenNames.add(rightName);
-
-        while (tables.size() > 0) {
-            String nextName = tables.get(0);
-            PhysicalOperator nextOp = getNextOperator(tables, children);
-            joinExp = uv.getExpression(nextName, seenNames);
-            joinOp = selectJoinImplementation(joinOp, nextOp, joinExp, nextName);
-            seenNames.add(nextName);
+    /** @param columns columns to sort on, most significant first
+     * @return ascending ORDER BY elements on the columns */
+    private static List<OrderByElement> orderBys(List<Column> columns) {
+        List<OrderByElement> orderBys = new ArrayList<>(columns.size());
+        for (Column col : columns) {
+            OrderByElement orderBy = new OrderByElement();
+            orderBy.setExpression(col);
+            orderBys.add(orderBy);
         }
-        return joinOp;
+        return orderBys;
     }
 
-    /** @param equalityConditions list of EqualTo expressions found in the EquiJoin condition
-     * @param joinOperator       is the logical join operator
-     * @param localLeft          is the local left physical operator
-     * @param localRight         is the local right physical operator
-     * @return initialized SortMergeJoin Operator with left and right sorted children
+    /** @param left           outer child
+     * @param innerTableName inner child's table name
+     * @param innerChild     logical scan/select operator of the inner child
+     * @param joinExp        equijoin expression
+     * @param index          index of the inner table on one of its join columns
+     * @return INLJ operator that probes the index with the outer column equal to its key
      * @throws IOException */
-    private SortMergeJoinOperator createSortMergeJoinOperator(
-            List<EqualsTo> equalityConditions,
-            PhysicalOperator localLeft,
-            PhysicalOperator localRight,
-            String innerTableName)
+    private PhysicalOperator createIndexNestedLoopJoin(
+            PhysicalOperator left, String innerTableName, LogicalOperator innerChild, Expression joinExp, Index index)
             throws IOException {
-        List<OrderByElement> leftOrderByElements = new LinkedList<>();
-        List<OrderByElement> rightOrderByElements = new LinkedList<>();
-        for (EqualsTo condition : equalityConditions) {
-            Column leftCol = (Column) condition.getLeftExpression();
-            Column rightCol = (Column) condition.getRightExpression();
-            boolean leftIsInner = getProperTableName(leftCol.getTable()).equals(innerTableName);
+        List<EqualsTo> equalityConditions = getEqualityConditions(joinExp);
+        List<Column> outerColumns = keyColumns(equalityConditions, Arrays.asList(innerTableName), false);
+        List<Column> innerColumns = keyColumns(equalityConditions, Arrays.asList(innerTableName), true);
+        Column outerColumn = null;
+        for (int k = 0; k < innerColumns.size() && outerColumn == null; k++) {
+            if (innerColumns.get(k).getColumnName().equals(index.name.COLUMN)) outerColumn = outerColumns.get(k);
+        }
 
-            OrderByElement left = new OrderByElement();
-            left.setExpression(leftIsInner ? rightCol : leftCol);
-            OrderByElement right = new OrderByElement();
-            right.setExpression(leftIsInner ? leftCol : rightCol);
+        // the index scan replaces the inner scan/select, so the selection joins the join condition
+        Expression condition = joinExp;
+        if (innerChild instanceof LogicalSelectOperator) {
+            condition = new AndExpression(joinExp, ((LogicalSelectOperator) innerChild).exp);
+        }
+        IndexScanOperator inner = new IndexScanOperator(innerTableName, index, null, null);
+        return new IndexNestedLoopJoinOperator(left, inner, outerColumn, condition);
+    }
 
-            leftOrderByElements.add(left);
-            rightOrderByElements.add(right);
+    /** @param left         outer child
+     * @param right        inner child
+     * @param outerColumns join columns of the outer child, in order of the equality conditions
+     * @param innerColumns join columns of the inner child, in order of the equality conditions
+     * @return SMJ operator over both children sorted on their join columns. A child is only sorted
+     *         if it does not return its tuples in that order already, e.g. an index scan on the
+     *         join column or an SMJ on the same key.
+     * @throws IOException */
+    private static SortMergeJoinOperator createSortMergeJoinOperator(
+            PhysicalOperator left, PhysicalOperator right, List<Column> outerColumns, List<Column> innerColumns)
+            throws IOException {
+        if (!left.isSortedOn(attributes(outerColumns))) {
+            left = new ExternalSortOperator(left, orderBys(outerColumns), Catalog.EXTPages);
         }
+        if (!right.isSortedOn(attributes(innerColumns))) {
+            right = new ExternalSortOperator(right, orderBys(innerColumns), Catalog.EXTPages);
+        }
+        return new SortMergeJoinOperator(left, right, outerColumns, innerColumns);
+    }
 
-        return new SortMergeJoinOperator(
-                new ExternalSortOperator(localLeft, leftOrderByElements, Catalog.EXTPages),
-                new ExternalSortOperator(localRight, rightOrderByElements, Catalog.EXTPages));
+    /** @param columns columns of an operator's output
+     * @return the attributes of the columns, in order */
+    static List<Attribute> attributes(List<Column> columns) {
+        List<Attribute> attributes = new ArrayList<>(columns.size());
+        for (Column c : columns) attributes.add(Attribute.fromColumn(c));
+        return attributes;
     }
 
     /** Writes this plan. Assumes a logical plan was already visited and physOp is not null.
@@ -4,7 +4,6 @@ import static com.dbms.utils.Helpers.strExpToExp;
 
 import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
-import com.dbms.utils.Range;
 import com.google.common.base.Joiner;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -36,11 +35,12 @@ public class UnionFind {
     }
 
     /** @param a attribute with (aliased) table name
-     * @return extent of values for this attribute within base table range and select */
-    public int getAttributeExtent(Attribute a) {
-        Range r = Catalog.STATS.getAttributeRange(a.unalias());
-        if (!elements.containsKey(a)) return r.extent();
-        return elements.get(a).extent(r);
+     * @return estimated fraction of the base table rows within the bounds of the selection on this
+     *         attribute, 1 if it has none */
+    public double getReductionFactor(Attribute a) {
+        UnionFindElement e = elements.get(a);
+        if (e == null) return 1;
+        return Catalog.STATS.getReductionFactor(a, e.min, e.max);
     }
 
     /** Get the {@code UnionFindElement} associated with an attribute. If it doesn't exist, it puts
@@ -213,14 +213,6 @@ class UnionFindElement {
         this.equality = max == min ? min : equality;
     }
 
-    /** @param r range of values to use if null bounds
-     * @return number of values represented by this element's bounds within the range */
-    public int extent(Range r) {
-        int top = max != null ? max : r.max;
-        int bottom = min != null ? min : r.min;
-        return top - bottom + 1;
-    }
-
     @Override
     public String toString() {
         return Arrays.asList(attributes.toString(), "equals " + equality, "min " + min, "max " + max)
@@ -77,16 +77,18 @@ public class UnionFindVisitor extends ExpressionVisitorBase {
         return wrapListOfExpressions(exps);
     }
 
-    /** @param name inner table
-     * @param names all tables in outer subtree
-     * @return expression with conjuncts that reference the inner table and any table in the outer
-     *         subtree */
-    public Expression getExpression(String name, List<String> names) {
+    /** @param innerNames all tables in inner subtree
+     * @param names      all tables in outer subtree
+     * @return expression with conjuncts that reference any table in the inner subtree and any table
+     *         in the outer subtree */
+    public Expression getExpression(List<String> innerNames, List<String> names) {
         List<Expression> exps = new LinkedList<>();
-        for (int i = 0; i < names.size(); i++) {
-            List<Expression> joinExps = joinUnusables.get(namesToKey(name, names.get(i)));
-            if (joinExps == null) continue;
-            exps.addAll(joinExps);
+        for (String name : innerNames) {
+            for (int i = 0; i < names.size(); i++) {
+                List<Expression> joinExps = joinUnusables.get(namesToKey(name, names.get(i)));
+                if (joinExps == null) continue;
+                exps.addAll(joinExps);
+            }
         }
         return wrapListOfExpressions(exps);
     }
@@ -3,6 +3,7 @@ package com.dbms.utils;
 import static com.dbms.utils.Helpers.getProperTableName;
 
 import java.util.Objects;
+import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.schema.Column;
 
 /** Class to represent a column name of a tuple, along with the aliased table name that the tuple
@@ -14,6 +15,9 @@ public final class Attribute {
     /** {@code COLUMN} is the name of the column as a {@code String}. */
     public final String COLUMN;
 
+    /** Cached hash of the table and column names */
+    private final int hash;
+
     /** A private constructor used for initializing a {@code Attribute} type.
      *
      * @param table  is the aliased name of the table as a {@code String}
@@ -21,6 +25,7 @@ public final class Attribute {
     private Attribute(String table, String column) {
         TABLE = table;
         COLUMN = column;
+        hash = Objects.hash(table, column);
     }
 
     /** A function used to call the constructor, so the clients do not need to use the {@code new}
@@ -56,9 +61,21 @@ public final class Attribute {
         return Attribute.bundle(getProperTableName(c.getTable()), c.getColumnName());
     }
 
+    /** Create attribute from a column or a computed expression, such as an aggregate function. A
+     * computed expression has an empty table name and its SQL text as column name, so that every
+     * occurrence of the expression in a query names the same attribute.
+     *
+     * @param e is a {@code Column} or a computed {@code Expression}
+     * @return {@code Attribute} object naming the value of {@code e} */
+    public static Attribute fromExpression(Expression e) {
+        if (e instanceof Column) return fromColumn((Column) e);
+        return Attribute.bundle("", e.toString());
+    }
+
     /** Two {@code Schema} objects are equal if they have identical table and column names. */
     @Override
     public boolean equals(Object other) {
+        if (this == other) return true;
         if (other instanceof Attribute) {
             Attribute otherName = (Attribute) other;
             return TABLE.equals(otherName.TABLE) && COLUMN.equals(otherName.COLUMN);
@@ -68,12 +85,12 @@ public final class Attribute {
 
     @Override
     public String toString() {
-        return TABLE + "." + COLUMN;
+        return TABLE.isEmpty() ? COLUMN : TABLE + "." + COLUMN;
     }
 
     /** {@code Schema} types are hashed using their table and column {@code String} values. */
     @Override
     public int hashCode() {
-        return Objects.hash(TABLE, COLUMN);
+        return hash;
     }
 }
@@ -0,0 +1,295 @@
+package com.dbms.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/** A cache of file pages shared by every reader and writer of table, index, and temp files. Pages
+ * are keyed by (file path, page number) and held in a fixed number of frames. A reader pins a page
+ * while it reads from the page and unpins it when it moves on; only unpinned frames can be
+ * evicted, using the clock (second chance) policy. Writers write pages through to their file and
+ * also store them in the pool, so runs and partitions that are read back right after being written
+ * are usually hits. */
+public class BufferPool {
+
+    /** Number of files whose channels are kept open for reading */
+    private static final int MAX_OPEN_FILES = 64;
+
+    /** A page-sized buffer holding one page of a file. */
+    public static final class Frame {
+        /** Contents of the page; readers must only use absolute gets */
+        private final ByteBuffer data = ByteBuffer.allocate(IO.PAGE_SIZE);
+
+        /** True if the frame belongs to the pool, false if it was made because every frame was
+         * pinned */
+        private final boolean managed;
+
+        /** Page held by this frame, null if the frame is free or not managed by the pool */
+        private PageKey key;
+
+        /** Number of readers using this frame */
+        private int pins;
+
+        /** True if the page was used since the clock hand last passed this frame */
+        private boolean referenced;
+
+        private Frame(boolean managed) {
+            this.managed = managed;
+        }
+
+        /** @return contents of the page */
+        public ByteBuffer data() {
+            return data;
+        }
+    }
+
+    /** Identifies a page of a file. */
+    private static final class PageKey {
+        final String path;
+        final int pageId;
+
+        PageKey(String path, int pageId) {
+            this.path = path;
+            this.pageId = pageId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PageKey)) return false;
+            PageKey other = (PageKey) o;
+            return pageId == other.pageId && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, pageId);
+        }
+    }
+
+    /** All frames of the pool; allocated on first use */
+    private final Frame[] frames;
+
+    /** Number of frames allocated so far */
+    private int allocated;
+
+    /** Position of the clock hand in {@code frames} */
+    private int hand;
+
+    /** Maps each cached page to its frame */
+    private final Map<PageKey, Frame> pages = new HashMap<>();
+
+    /** Open read channels by file path, least recently used first */
+    private final Map<String, FileChannel> channels = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileChannel> eldest) {
+            if (size() <= MAX_OPEN_FILES) return false;
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    };
+
+    /** Memory mappings of files by path */
+    private final Map<String, MappedByteBuffer> mappings = new HashMap<>();
+
+    /** Number of pins served from the pool */
+    private long hits;
+
+    /** Number of pins that read the page from its file */
+    private long misses;
+
+    /** @param numFrames number of page frames in the pool; at least 1 */
+    public BufferPool(int numFrames) {
+        frames = new Frame[numFrames];
+    }
+
+    /** Pins a page, reading it from its file if it is not cached. If every frame is pinned, the
+     * page is read into a frame outside the pool, which is not cached.
+     *
+     * @param path   path to the file
+     * @param pageId 0-based page number
+     * @return pinned frame holding the page, null if the file has no such page
+     * @throws IOException */
+    public synchronized Frame pin(String path, int pageId) throws IOException {
+        PageKey key = new PageKey(path, pageId);
+        Frame frame = pages.get(key);
+        if (frame != null) {
+            hits++;
+            frame.pins++;
+            frame.referenced = true;
+            return frame;
+        }
+        FileChannel fc = channel(path);
+        // a page past the end of the file is neither a hit nor a miss, and evicts nothing
+        if ((long) pageId * IO.PAGE_SIZE >= fc.size()) return null;
+        misses++;
+        frame = victim();
+        read(fc, pageId, frame.data);
+        if (frame.managed) {
+            frame.key = key;
+            pages.put(key, frame);
+        }
+        frame.pins = 1;
+        frame.referenced = true;
+        return frame;
+    }
+
+    /** @param frame frame pinned by {@code pin}, or null */
+    public synchronized void unpin(Frame frame) {
+        if (frame != null && frame.pins > 0) frame.pins--;
+    }
+
+    /** Stores a page that a writer just wrote to its file, replacing any cached copy.
+     *
+     * @param path   path to the file
+     * @param pageId 0-based page number
+     * @param page   contents of the page */
+    public synchronized void put(String path, int pageId, ByteBuffer page) {
+        PageKey key = new PageKey(path, pageId);
+        Frame frame = pages.remove(key);
+        if (frame != null && frame.pins > 0) {
+            // a reader still uses the old contents; let it keep them
+            frame.key = null;
+            frame = null;
+        }
+        if (frame == null) {
+            frame = victim();
+            if (!frame.managed) return;
+        }
+        ByteBuffer src = page.duplicate();
+        src.clear();
+        frame.data.clear();
+        frame.data.put(src);
+        frame.data.clear();
+        frame.key = key;
+        frame.pins = 0;
+        frame.referenced = true;
+        pages.put(key, frame);
+    }
+
+    /** Maps a whole file into memory, for readers that read pages straight from the mapping instead
+     * of pinning copies of them. Mappings are shared by all readers of the file; a file must not be
+     * rewritten while a reader still uses its mapping.
+     *
+     * @param path path to the file
+     * @return read-only view of the file's mapping, null if the file is too large to map in one
+     *         buffer
+     * @throws IOException */
+    public synchronized ByteBuffer map(String path) throws IOException {
+        MappedByteBuffer mapping = mappings.get(path);
+        if (mapping == null) {
+            try (FileChannel fc = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+                if (fc.size() > Integer.MAX_VALUE) return null;
+                mapping = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            }
+            mappings.put(path, mapping);
+        }
+        return mapping.duplicate();
+    }
+
+    /** Drops every cached page and the mapping of a file, e.g. because a writer is about to
+     * recreate it.
+     *
+     * @param path path to the file */
+    public synchronized void invalidate(String path) {
+        pages.values().removeIf(frame -> {
+            if (!frame.key.path.equals(path)) return false;
+            frame.key = null;
+            return true;
+        });
+        FileChannel fc = channels.remove(path);
+        if (fc != null) closeQuietly(fc);
+        mappings.remove(path);
+    }
+
+    /** Drops every cached page and mapping and closes every file, e.g. before the temp directory is
+     * deleted. Frames that are still pinned are left to their readers and taken out of the pool. */
+    public synchronized void clear() {
+        for (int i = 0; i < allocated; i++) {
+            if (frames[i].pins > 0) frames[i] = new Frame(true);
+            frames[i].key = null;
+        }
+        pages.clear();
+        channels.values().forEach(BufferPool::closeQuietly);
+        channels.clear();
+        mappings.clear();
+    }
+
+    /** @return number of pins served from the pool */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return number of pins that read the page from its file */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** Sets the hit and miss counters to 0 */
+    public synchronized void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /** Finds a frame to hold a new page: a never used frame if any are left, otherwise the first
+     * unpinned frame the clock hand reaches that was not referenced since its last pass.
+     *
+     * @return free frame of the pool, or a new frame outside the pool if every frame is pinned */
+    private Frame victim() {
+        if (allocated < frames.length) return frames[allocated++] = new Frame(true);
+        for (int i = 0; i < 2 * frames.length; i++) {
+            Frame frame = frames[hand];
+            hand = (hand + 1) % frames.length;
+            if (frame.pins > 0) continue;
+            if (frame.referenced) {
+                frame.referenced = false;
+                continue;
+            }
+            if (frame.key != null) pages.remove(frame.key);
+            frame.key = null;
+            return frame;
+        }
+        return new Frame(false);
+    }
+
+    /** @param path path to the file
+     * @return open read channel of the file
+     * @throws IOException */
+    private FileChannel channel(String path) throws IOException {
+        FileChannel fc = channels.get(path);
+        if (fc == null) {
+            fc = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            channels.put(path, fc);
+        }
+        return fc;
+    }
+
+    /** @param fc     read channel of the file
+     * @param pageId 0-based page number of a page in the file
+     * @param data   buffer to fill with the page
+     * @throws IOException */
+    private static void read(FileChannel fc, int pageId, ByteBuffer data) throws IOException {
+        data.clear();
+        long position = (long) pageId * IO.PAGE_SIZE;
+        while (data.hasRemaining()) {
+            int n = fc.read(data, position + data.position());
+            if (n < 0) break;
+        }
+        data.clear();
+    }
+
+    /** @param fc channel to close, ignoring errors */
+    private static void closeQuietly(FileChannel fc) {
+        try {
+            fc.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -3,11 +3,9 @@ package com.dbms.utils;
 import com.dbms.index.Index;
 import com.dbms.index.TreeIndexBuilder;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -38,8 +36,8 @@ public class Catalog {
     /** path to temp directory */
     private static String temp;
 
-    /** Map from (unaliased) table name to list of {@code Attribute} objects */
-    private static Map<String, List<Attribute>> schema;
+    /** Map from (unaliased) table name to the {@code Schema} of the table */
+    private static Map<String, Schema> schema;
 
     /** Map of aliases to real table names */
     private static Map<String, String> aliasMap = new HashMap<>();
@@ -51,12 +49,38 @@ public class Catalog {
      * min/max of attributes */
     public static Stats STATS;
 
-    /** Number of pages to use in external sort */
+    /** Number of pages to use in external sort, shared by all of its threads */
     public static int EXTPages = 5;
 
+    /** Number of threads external sort uses to sort runs and merge them; 1 sorts on the calling
+     * thread */
+    public static int EXTThreads = 1;
+
     /** Number of pages to use in BNLJ */
     public static int BNLJPages = 5;
 
+    /** Number of pages the build side of a hash join may fill */
+    public static int HJPages = 64;
+
+    /** Largest number of tables whose join order is found by dynamic programming; the order of
+     * larger joins is chosen greedily */
+    public static int DPTables = 14;
+
+    /** Number of page frames in {@code BUFFER_POOL} */
+    public static final int BUFFER_POOL_PAGES = 1024;
+
+    /** Cache of table, index, and temp file pages shared by all readers and writers; replace it to
+     * change the number of frames */
+    public static BufferPool BUFFER_POOL = new BufferPool(BUFFER_POOL_PAGES);
+
+    /** Whether table and index files are read straight from memory mappings instead of through
+     * {@code BUFFER_POOL} */
+    public static boolean MappedReads = false;
+
+    /** Fraction of the pages of each table read at random to compute its stats when they are not
+     * up to date; 1 reads every page */
+    public static double StatsSampleFraction = 1;
+
     /** @param segments file path to join
      * @return segments joined with File.seperator */
     private static String join(String... segments) {
@@ -82,11 +106,13 @@ public class Catalog {
         br.close();
         schema = getSchema(Catalog.input);
         INDEXES = getIndexInfo(readerFromPath(Catalog.input, "db", "index_info.txt"));
-        STATS = new Stats(new BufferedWriter(new FileWriter(join(input, "db", "stats.txt"))), schema);
+        STATS = new Stats(join(input, "db"), schema);
     }
 
+    /** @param s map from (unaliased) table name to list of {@code Attribute} objects */
     public static void setSchema(Map<String, List<Attribute>> s) {
-        schema = s;
+        schema = new HashMap<>();
+        s.forEach((table, attributes) -> schema.put(table, new Schema(attributes)));
     }
 
     /** Initializes {@code Catalog.INDEXES}
@@ -120,8 +146,8 @@ public class Catalog {
      * @param input file path of schema file
      * @return schema map containing schema info
      * @throws IOException */
-    private static Map<String, List<Attribute>> getSchema(String input) throws IOException {
-        Map<String, List<Attribute>> schemaMap = new HashMap<>();
+    private static Map<String, Schema> getSchema(String input) throws IOException {
+        Map<String, Schema> schemaMap = new HashMap<>();
         BufferedReader schemaBr = readerFromPath(input, "db", "schema.txt");
         String line;
         while ((line = schemaBr.readLine()) != null) {
@@ -131,7 +157,7 @@ public class Catalog {
             while (table.hasMoreTokens()) {
                 attributes.add(Attribute.bundle(tableName, table.nextToken()));
             }
-            schemaMap.put(tableName, attributes);
+            schemaMap.put(tableName, new Schema(attributes));
         }
         schemaBr.close();
         return schemaMap;
@@ -184,18 +210,18 @@ public class Catalog {
     /** @param name (unaliased) name of the table to extract columns
      * @return list of {@code Attribute} */
     public static List<Attribute> getAttributes(String name) {
-        return schema.get(name);
+        return schema.get(name).get();
     }
 
     /** @param name (aliased) name of the table to extract columns
      * @return list of {@code Attribute} with (aliased) table names */
     public static List<Attribute> getAliasedAttributes(String name) {
-        List<Attribute> attributes = schema.get(getRealTableName(name));
+        List<Attribute> attributes = getAttributes(getRealTableName(name));
         return attributes.stream().map(a -> a.alias(name)).collect(Collectors.toCollection(LinkedList::new));
     }
 
     /** @param cn (unaliased) table name and associated column name
-     * @return 0-based index of the column in the schema */
+     * @return 0-based index of the column in the schema, -1 if not present */
     public static int getColumnIndex(Attribute cn) {
         return schema.get(cn.TABLE).indexOf(cn);
     }
@@ -242,6 +268,7 @@ public class Catalog {
      *
      * @throws IOException */
     public static void cleanTempDir() throws IOException {
+        BUFFER_POOL.clear();
         Files.walkFileTree(Paths.get(temp), new SimpleFileVisitor<Path>() {
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
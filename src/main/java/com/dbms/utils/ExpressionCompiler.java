@@ -0,0 +1,316 @@
+package com.dbms.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * A visitor that compiles the expressions supported by {@code ExpressionParseVisitor} into a tree of
+ * {@code Predicate} objects. The JsqlParser tree is walked once; every column is bound to an offset
+ * in the left or right input schema and constant comparisons are folded. For joins, the predicate
+ * tests a pair of rows directly, so pairs that fail the condition are never merged.
+ */
+public class ExpressionCompiler extends ExpressionVisitorBase {
+
+    /** Schema of the left (or only) input */
+    private final Schema left;
+
+    /** Schema of the right input, null for a selection */
+    private final Schema right;
+
+    /** The predicate compiled from the most recently visited boolean expression */
+    private Predicate predicate;
+
+    /** The operand compiled from the most recently visited column or value */
+    private Operand operand;
+
+    /** @param left  schema of the left (or only) input
+     * @param right schema of the right input, null for a selection */
+    private ExpressionCompiler(Schema left, Schema right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    /** @param exp selection condition, null if none
+     * @param s   schema of the selected rows
+     * @return predicate evaluating {@code exp} on rows of {@code s} */
+    public static Predicate compile(Expression exp, Schema s) {
+        return compile(exp, s, null);
+    }
+
+    /** @param exp   join condition, null if none
+     * @param left  schema of the left input
+     * @param right schema of the right input, null for a selection
+     * @return predicate evaluating {@code exp} on a pair of left and right rows */
+    public static Predicate compile(Expression exp, Schema left, Schema right) {
+        if (exp == null) return Predicate.TRUE;
+        return new ExpressionCompiler(left, right).compilePredicate(exp);
+    }
+
+    /** @param exp boolean expression
+     * @return compiled predicate */
+    private Predicate compilePredicate(Expression exp) {
+        exp.accept(this);
+        return predicate;
+    }
+
+    /** @param exp column or value expression
+     * @return compiled operand */
+    private Operand compileOperand(Expression exp) {
+        exp.accept(this);
+        return operand;
+    }
+
+    /** Compiles both sides of a comparison, folding it if both sides are constants.
+     *
+     * @param exp comparison expression
+     * @param op  comparison operator */
+    private void compileComparison(BinaryExpression exp, int op) {
+        Operand a = compileOperand(exp.getLeftExpression());
+        Operand b = compileOperand(exp.getRightExpression());
+        if (a.side == Operand.CONSTANT && b.side == Operand.CONSTANT) {
+            predicate = Comparison.compare(op, a.value, b.value) ? Predicate.TRUE : Predicate.FALSE;
+        } else {
+            predicate = new Comparison(op, a, b);
+        }
+    }
+
+    /** Collects the conjuncts of a (left-deep) AND expression.
+     *
+     * @param exp      expression to flatten
+     * @param conjuncts list accumulating compiled conjuncts */
+    private void flatten(Expression exp, List<Predicate> conjuncts) {
+        if (exp instanceof AndExpression) {
+            AndExpression and = (AndExpression) exp;
+            flatten(and.getLeftExpression(), conjuncts);
+            flatten(and.getRightExpression(), conjuncts);
+        } else {
+            conjuncts.add(compilePredicate(exp));
+        }
+    }
+
+    /** compiles A AND B AND ... into a single conjunction */
+    @Override
+    public void visit(AndExpression exp) {
+        List<Predicate> conjuncts = new ArrayList<>();
+        flatten(exp, conjuncts);
+        conjuncts.removeIf(p -> p == Predicate.TRUE);
+        if (conjuncts.contains(Predicate.FALSE)) {
+            predicate = Predicate.FALSE;
+        } else if (conjuncts.isEmpty()) {
+            predicate = Predicate.TRUE;
+        } else if (conjuncts.size() == 1) {
+            predicate = conjuncts.get(0);
+        } else {
+            predicate = new Conjunction(conjuncts.toArray(new Predicate[conjuncts.size()]));
+        }
+    }
+
+    /** compiles A == B */
+    @Override
+    public void visit(EqualsTo exp) {
+        compileComparison(exp, Comparison.EQ);
+    }
+
+    /** compiles A != B */
+    @Override
+    public void visit(NotEqualsTo exp) {
+        compileComparison(exp, Comparison.NE);
+    }
+
+    /** compiles A > B */
+    @Override
+    public void visit(GreaterThan exp) {
+        compileComparison(exp, Comparison.GT);
+    }
+
+    /** compiles A >= B */
+    @Override
+    public void visit(GreaterThanEquals exp) {
+        compileComparison(exp, Comparison.GE);
+    }
+
+    /** compiles A < B */
+    @Override
+    public void visit(MinorThan exp) {
+        compileComparison(exp, Comparison.LT);
+    }
+
+    /** compiles A <= B */
+    @Override
+    public void visit(MinorThanEquals exp) {
+        compileComparison(exp, Comparison.LE);
+    }
+
+    /** compiles a long value into a constant operand */
+    @Override
+    public void visit(LongValue longValue) {
+        operand = new Operand(Operand.CONSTANT, 0, longValue.getValue());
+    }
+
+    /** binds a column reference to its offset in the left or right input schema */
+    @Override
+    public void visit(Column col) {
+        bind(Attribute.fromColumn(col));
+    }
+
+    /** binds an aggregate function, e.g. in a HAVING condition, to the column an aggregate operator
+     * computed it into */
+    @Override
+    public void visit(Function function) {
+        bind(Attribute.fromExpression(function));
+    }
+
+    /** @param a attribute of the left or right input schema */
+    private void bind(Attribute a) {
+        int slot = left.indexOf(a);
+        if (slot >= 0) {
+            operand = new Operand(Operand.LEFT, slot, 0);
+            return;
+        }
+        slot = right != null ? right.indexOf(a) : -1;
+        if (slot < 0) throw new IllegalArgumentException("Unknown column " + a);
+        operand = new Operand(Operand.RIGHT, slot, 0);
+    }
+}
+
+/** A column of the left or right input row, or a constant, bound at compile time. */
+final class Operand {
+    static final int CONSTANT = 0;
+    static final int LEFT = 1;
+    static final int RIGHT = 2;
+
+    /** one of CONSTANT, LEFT, RIGHT */
+    final int side;
+
+    /** offset of the column in its input row */
+    final int slot;
+
+    /** value of a constant operand */
+    final long value;
+
+    Operand(int side, int slot, long value) {
+        this.side = side;
+        this.slot = slot;
+        this.value = value;
+    }
+
+    /** @param l left input row
+     * @param r right input row
+     * @return value of this operand for the given rows */
+    long eval(int[] l, int[] r) {
+        switch (side) {
+            case LEFT:
+                return l[slot];
+            case RIGHT:
+                return r[slot];
+            default:
+                return value;
+        }
+    }
+}
+
+/** A comparison between two bound operands. */
+final class Comparison implements Predicate {
+    static final int EQ = 0;
+    static final int NE = 1;
+    static final int GT = 2;
+    static final int GE = 3;
+    static final int LT = 4;
+    static final int LE = 5;
+
+    /** comparison operator */
+    private final int op;
+
+    /** left and right operands */
+    private final Operand a, b;
+
+    Comparison(int op, Operand a, Operand b) {
+        this.op = op;
+        this.a = a;
+        this.b = b;
+    }
+
+    /** @param op comparison operator
+     * @param x  left value
+     * @param y  right value
+     * @return result of {@code x op y} */
+    static boolean compare(int op, long x, long y) {
+        switch (op) {
+            case EQ:
+                return x == y;
+            case NE:
+                return x != y;
+            case GT:
+                return x > y;
+            case GE:
+                return x >= y;
+            case LT:
+                return x < y;
+            default:
+                return x <= y;
+        }
+    }
+
+    @Override
+    public boolean test(int[] left, int[] right) {
+        return compare(op, a.eval(left, right), b.eval(left, right));
+    }
+
+    /** Compares whole column vectors, or a column vector against a constant. */
+    @Override
+    public void filter(TupleBatch batch) {
+        if (a.side == Operand.RIGHT || b.side == Operand.RIGHT) {
+            Predicate.super.filter(batch);
+            return;
+        }
+        int n = batch.count();
+        int[] sel = batch.selection();
+        int[] x = a.side == Operand.LEFT ? batch.columns()[a.slot] : null;
+        int[] y = b.side == Operand.LEFT ? batch.columns()[b.slot] : null;
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            int r = sel[i];
+            if (compare(op, x != null ? x[r] : a.value, y != null ? y[r] : b.value)) sel[k++] = r;
+        }
+        batch.select(k);
+    }
+}
+
+/** A conjunction of predicates, evaluated left to right with short-circuiting. */
+final class Conjunction implements Predicate {
+    /** conjuncts in evaluation order */
+    private final Predicate[] conjuncts;
+
+    Conjunction(Predicate[] conjuncts) {
+        this.conjuncts = conjuncts;
+    }
+
+    @Override
+    public boolean test(int[] left, int[] right) {
+        for (Predicate p : conjuncts) {
+            if (!p.test(left, right)) return false;
+        }
+        return true;
+    }
+
+    /** Each conjunct only looks at the rows that passed the previous ones. */
+    @Override
+    public void filter(TupleBatch batch) {
+        for (Predicate p : conjuncts) {
+            if (batch.count() == 0) return;
+            p.filter(batch);
+        }
+    }
+}
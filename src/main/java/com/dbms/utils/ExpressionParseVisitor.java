@@ -1,6 +1,9 @@
 package com.dbms.utils;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
 import net.sf.jsqlparser.expression.LongValue;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
@@ -14,7 +17,8 @@ import net.sf.jsqlparser.schema.Column;
 /**
  * A visitor that evaluates the following types of JsqlParser expressions: AndExpression, Column,
  * LongValue, EqualsTo, NotEqualsTo, GreaterThan, GreaterThanEquals, MinorThan and
- * MinorThanEquals.
+ * MinorThanEquals. An aggregate Function is read from the column an aggregate operator computed it
+ * into.
  */
 public class ExpressionParseVisitor extends ExpressionVisitorBase {
 
@@ -27,6 +31,24 @@ public class ExpressionParseVisitor extends ExpressionVisitorBase {
     /** The current Tuple for which to evaluate the expression */
     public Tuple currentTuple;
 
+    /** Schema of every evaluated Tuple, null if columns are looked up by name on each Tuple */
+    private final Schema schema;
+
+    /** Maps each column node of the expression to its offset in {@code schema}. Columns are bound
+     * the first time they are visited and reused for every following Tuple. */
+    private final Map<Expression, Integer> slots = new IdentityHashMap<>();
+
+    /** Creates a visitor that looks up columns by name in the schema of each evaluated Tuple */
+    public ExpressionParseVisitor() {
+        this(null);
+    }
+
+    /** @param s schema of every Tuple this visitor will evaluate; column references are bound to
+     *          offsets in this schema */
+    public ExpressionParseVisitor(Schema s) {
+        schema = s;
+    }
+
     /**
      * @param exp The expression which the visitor evaluates
      * @return the boolean result of evaluating exp
@@ -110,6 +132,27 @@ public class ExpressionParseVisitor extends ExpressionVisitorBase {
     /** Evaluates a column reference by looking up the corresponding column in the current Tuple */
     @Override
     public void visit(Column col) {
-        longResult = currentTuple.get(Attribute.fromColumn(col));
+        lookUp(col);
+    }
+
+    /** Evaluates an aggregate function by looking up the column an aggregate operator computed it
+     * into in the current Tuple */
+    @Override
+    public void visit(Function function) {
+        lookUp(function);
+    }
+
+    /** @param exp column or aggregate function whose value is a column of the current Tuple */
+    private void lookUp(Expression exp) {
+        if (schema == null) {
+            longResult = currentTuple.get(Attribute.fromExpression(exp));
+            return;
+        }
+        Integer slot = slots.get(exp);
+        if (slot == null) {
+            slot = schema.indexOf(Attribute.fromExpression(exp));
+            slots.put(exp, slot);
+        }
+        longResult = currentTuple.get(slot);
     }
 }
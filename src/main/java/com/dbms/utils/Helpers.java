@@ -1,5 +1,6 @@
 package com.dbms.utils;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import net.sf.jsqlparser.JSQLParserException;
@@ -80,14 +81,12 @@ public class Helpers {
         return table.getAlias() != null ? table.getAlias().getName() : table.getName();
     }
 
-    /** @param selectItems select items in the query
+    /** @param selectItems select items in the query; columns or aggregate functions
      * @return list of (aliased) table names and column names associated with the items */
     public static List<Attribute> getColumnNamesFromSelectItems(List<SelectItem> selectItems) {
         List<Attribute> names = new LinkedList<>();
         for (SelectItem item : selectItems) {
-            Column col = (Column) ((SelectExpressionItem) item).getExpression();
-            String tableName = getProperTableName(col.getTable());
-            names.add(Attribute.bundle(tableName, col.getColumnName()));
+            names.add(Attribute.fromExpression(((SelectExpressionItem) item).getExpression()));
         }
         return names;
     }
@@ -116,6 +115,22 @@ public class Helpers {
         return result;
     }
 
+    /** @param equalityConditions list of EqualTo expressions found in the EquiJoin condition
+     * @param innerTableNames    (aliased) names of the inner child's tables
+     * @param inner              true for the inner child's columns, false for the outer child's
+     * @return columns of one child in the equality conditions, in order of the conditions */
+    public static List<Column> keyColumns(
+            List<EqualsTo> equalityConditions, List<String> innerTableNames, boolean inner) {
+        List<Column> columns = new ArrayList<>(equalityConditions.size());
+        for (EqualsTo condition : equalityConditions) {
+            Column leftCol = (Column) condition.getLeftExpression();
+            Column rightCol = (Column) condition.getRightExpression();
+            boolean leftIsInner = innerTableNames.contains(getProperTableName(leftCol.getTable()));
+            columns.add(leftIsInner == inner ? leftCol : rightCol);
+        }
+        return columns;
+    }
+
     /** @param exp The Expression associated with the JoinOperator.
      * @return {@code true} when {@code exp} has only {@code EqualsTo} conditions, {@code false}
      *         otherwise */
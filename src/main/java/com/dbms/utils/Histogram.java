@@ -0,0 +1,123 @@
+package com.dbms.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** An equi-depth histogram of the values of a column. Bucket boundaries are quantiles of a sample
+ * of the column, so every bucket holds about the same number of rows, and a value that fills more
+ * than a bucket gets a bucket of its own. Each bucket spans from the smallest to the largest value
+ * sampled in it, and values are assumed to be spread uniformly within a bucket. */
+public class Histogram {
+
+    /** Number of buckets built from a sample, if it has as many values */
+    static final int BUCKETS = 64;
+
+    /** Inclusive lower bound of each bucket, ascending */
+    private final int[] lows;
+
+    /** Inclusive upper bound of each bucket, below the lower bound of the next bucket */
+    private final int[] highs;
+
+    /** Fraction of the rows in each bucket */
+    private final double[] fractions;
+
+    /** @param lows      inclusive lower bound of each bucket, ascending
+     * @param highs     inclusive upper bound of each bucket, below the lower bound of the next
+     * @param fractions fraction of the rows in each bucket */
+    Histogram(int[] lows, int[] highs, double[] fractions) {
+        this.lows = lows;
+        this.highs = highs;
+        this.fractions = fractions;
+    }
+
+    /** Builds a histogram from a sample of a column, whose quantiles are the bucket boundaries.
+     *
+     * @param sample values sampled from the column; only the first n are used, and they are sorted
+     *               in place
+     * @param n      number of sampled values
+     * @param min    smallest value of the column, the lower bound of the first bucket
+     * @param max    largest value of the column, the upper bound of the last bucket
+     * @return histogram over [min, max]; a single bucket if the sample is empty */
+    static Histogram build(int[] sample, int n, int min, int max) {
+        if (n == 0) return new Histogram(new int[] {min}, new int[] {max}, new double[] {1});
+        Arrays.sort(sample, 0, n);
+        List<int[]> buckets = new ArrayList<>();
+        int start = 0;
+        while (start < n) {
+            // cut at the next quantile after start
+            long k = (long) start * BUCKETS / n + 1;
+            while (k * n / BUCKETS <= start) k++;
+            int end = (int) (k * n / BUCKETS);
+            if (end < n && sample[end] == sample[end - 1]) {
+                // the cut splits the copies of a value: end the bucket before them, or after them
+                // if they start the bucket
+                int first = end - 1;
+                while (first > start && sample[first - 1] == sample[end]) first--;
+                if (first > start) {
+                    end = first;
+                } else {
+                    while (end < n && sample[end] == sample[start]) end++;
+                }
+            }
+            buckets.add(new int[] {start, end});
+            start = end;
+        }
+        int[] lows = new int[buckets.size()];
+        int[] highs = new int[lows.length];
+        double[] fractions = new double[lows.length];
+        for (int i = 0; i < lows.length; i++) {
+            int[] b = buckets.get(i);
+            lows[i] = i == 0 ? min : sample[b[0]];
+            highs[i] = i == lows.length - 1 ? max : sample[b[1] - 1];
+            fractions[i] = (b[1] - b[0]) / (double) n;
+        }
+        return new Histogram(lows, highs, fractions);
+    }
+
+    /** @param low  inclusive lower bound on values, null if unbound
+     * @param high inclusive upper bound on values, null if unbound
+     * @return estimated fraction of the rows with a value within the bounds */
+    public double selectivity(Integer low, Integer high) {
+        long lo = low != null ? low : Long.MIN_VALUE;
+        long hi = high != null ? high : Long.MAX_VALUE;
+        double selected = 0;
+        for (int i = 0; i < lows.length; i++) {
+            long overlap = Math.min(hi, highs[i]) - Math.max(lo, lows[i]) + 1;
+            if (overlap > 0) selected += fractions[i] * overlap / ((long) highs[i] - lows[i] + 1);
+        }
+        return Math.min(selected, 1);
+    }
+
+    /** @return number of buckets */
+    int buckets() {
+        return lows.length;
+    }
+
+    /** @return the {@code low:high:fraction} entry of each bucket, separated by spaces */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lows.length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(lows[i]).append(':').append(highs[i]).append(':').append(fractions[i]);
+        }
+        return sb.toString();
+    }
+
+    /** @param fields the entries of {@code toString}, starting at index start
+     * @param start  index of the first entry in fields
+     * @return the histogram the entries describe */
+    static Histogram parse(String[] fields, int start) {
+        int[] lows = new int[fields.length - start];
+        int[] highs = new int[lows.length];
+        double[] fractions = new double[lows.length];
+        for (int i = 0; i < lows.length; i++) {
+            String[] bucket = fields[start + i].split(":");
+            lows[i] = Integer.parseInt(bucket[0]);
+            highs[i] = Integer.parseInt(bucket[1]);
+            fractions[i] = Double.parseDouble(bucket[2]);
+        }
+        return new Histogram(lows, highs, fractions);
+    }
+}
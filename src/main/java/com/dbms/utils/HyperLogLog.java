@@ -0,0 +1,51 @@
+package com.dbms.utils;
+
+/** A HyperLogLog sketch that estimates the number of distinct values added to it in a fixed 4 KB,
+ * with a standard error of about 1.6%. Each value is hashed to one of 4096 registers, which keeps
+ * the largest number of leading zeros seen in the rest of the hashes. */
+class HyperLogLog {
+
+    /** Number of hash bits that choose the register */
+    private static final int P = 12;
+
+    /** Number of registers */
+    private static final int M = 1 << P;
+
+    /** Bias correction of the raw estimate for M registers */
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / M);
+
+    /** Largest rank seen by each register */
+    private final byte[] registers = new byte[M];
+
+    /** @param value value to add */
+    void add(int value) {
+        long h = hash(value);
+        int register = (int) (h >>> (64 - P));
+        // the sentinel bit bounds the rank if the remaining bits are all zero
+        int rank = Long.numberOfLeadingZeros((h << P) | (1L << (P - 1))) + 1;
+        if (rank > registers[register]) registers[register] = (byte) rank;
+    }
+
+    /** @return estimated number of distinct values added */
+    double estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double estimate = ALPHA * M * M / sum;
+        // few distinct values leave registers empty; linear counting is more accurate then
+        if (estimate <= 2.5 * M && zeros > 0) estimate = M * Math.log((double) M / zeros);
+        return estimate;
+    }
+
+    /** @param value value to hash
+     * @return 64 well-mixed bits of the value (the SplitMix64 finalizer) */
+    private static long hash(int value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -9,7 +9,7 @@ import java.nio.channels.FileChannel;
 public class IO {
 
     /** Bytes per page */
-    protected static final int PAGE_SIZE = 4096;
+    public static final int PAGE_SIZE = 4096;
 
     /** IO buffer */
     protected ByteBuffer buffer;
@@ -26,10 +26,16 @@ public class IO {
     /** The index at which to IO the next integer in the buffer */
     protected int bufferIndex;
 
-    /** Clears the buffer by filling it with zeros and resetting the position to the front. */
-    protected void clearBuffer() {
+    /** A page of zeros, never written to */
+    private static final byte[] ZEROS = new byte[PAGE_SIZE];
+
+    /** Fills the buffer with zeros from bufferIndex, the end of the valid data, to the end of the
+     * page so that no values of the previous page are written, and resets the position to the
+     * front. */
+    protected void zeroTail() {
         buffer.clear();
-        buffer.put(new byte[PAGE_SIZE]); // hack to reset with zeros
+        buffer.position(bufferIndex);
+        buffer.put(ZEROS, 0, PAGE_SIZE - bufferIndex);
         buffer.clear();
     }
 }
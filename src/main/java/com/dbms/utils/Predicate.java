@@ -0,0 +1,38 @@
+package com.dbms.utils;
+
+/** A selection or join condition compiled by {@code ExpressionCompiler}. Column references are
+ * bound to offsets in the input rows when the predicate is compiled, so testing a row does no name
+ * lookups and allocates nothing. */
+@FunctionalInterface
+public interface Predicate {
+
+    /** A predicate that accepts every row, used for missing conditions */
+    Predicate TRUE = (left, right) -> true;
+
+    /** A predicate that rejects every row */
+    Predicate FALSE = (left, right) -> false;
+
+    /** @param left  values of the left input row, or the only row for a selection
+     * @param right values of the right input row of a join, null for a selection
+     * @return true if the row(s) satisfy the condition */
+    boolean test(int[] left, int[] right);
+
+    /** Removes the rows of a selection batch that do not satisfy this predicate by compacting its
+     * selection vector. The default implementation gathers each active row and calls {@code test};
+     * comparisons override it to run over whole column vectors.
+     *
+     * @param batch rows of the only input of a selection */
+    default void filter(TupleBatch batch) {
+        int n = batch.count();
+        int[] sel = batch.selection();
+        int[][] columns = batch.columns();
+        int[] row = new int[columns.length];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            int r = sel[i];
+            for (int c = 0; c < columns.length; c++) row[c] = columns[c][r];
+            if (test(row, null)) sel[k++] = r;
+        }
+        batch.select(k);
+    }
+}
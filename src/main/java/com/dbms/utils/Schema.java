@@ -1,33 +1,75 @@
 package com.dbms.utils;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-/** Wrapper class for {@code List<ColumnName>}, providing useful methods for building schemas. */
+/** Immutable, positional list of {@code Attribute} objects, providing useful methods for building
+ * schemas. The offset of every attribute is computed once when the schema is built, so operators
+ * can bind column references to integer slots at plan time. */
 public class Schema {
     /** representation of a schema */
-    private List<Attribute> schema;
+    private final List<Attribute> schema;
 
-    /** @param wraps a list of column names in a schema */
+    /** Maps each attribute to its 0-based offset in {@code schema} */
+    private final Map<Attribute, Integer> offsets;
+
+    /** @param schema list of column names in a schema; copied, so later changes to the list do not
+     *               affect this schema */
     public Schema(List<Attribute> schema) {
-        this.schema = schema;
+        this.schema = Collections.unmodifiableList(new ArrayList<>(schema));
+        offsets = new HashMap<>(schema.size() * 2);
+        for (int i = 0; i < schema.size(); i++) offsets.putIfAbsent(schema.get(i), i);
     }
 
-    /** @return list of column names represented by this schema */
+    /** @return unmodifiable list of column names represented by this schema */
     public List<Attribute> get() {
         return schema;
     }
 
+    /** @param i 0-based offset
+     * @return attribute at offset {@code i} */
+    public Attribute get(int i) {
+        return schema.get(i);
+    }
+
     /** @return number of columns in this schema */
     public int size() {
         return schema.size();
     }
 
+    /** @param a attribute with (aliased) table name
+     * @return 0-based offset of the attribute in this schema, -1 if not present */
+    public int indexOf(Attribute a) {
+        Integer i = offsets.get(a);
+        return i != null ? i : -1;
+    }
+
+    /** Resolves the offsets of another schema's attributes in this schema, so that operators can
+     * map tuples positionally instead of looking up every attribute per tuple.
+     *
+     * @param s schema whose attributes are all contained in this schema
+     * @return for each attribute of {@code s}, its offset in this schema */
+    public int[] indexesOf(Schema s) {
+        return indexesOf(s.get());
+    }
+
+    /** @param attributes attributes that are all contained in this schema
+     * @return for each attribute, its offset in this schema */
+    public int[] indexesOf(List<Attribute> attributes) {
+        int[] out = new int[attributes.size()];
+        int i = 0;
+        for (Attribute a : attributes) out[i++] = indexOf(a);
+        return out;
+    }
+
     /** @param tableName (aliased) table name
      * @param attributes list of {@code Attribute} objects associated with the table
      * @return schema representing all column names from tableName x columnNames */
     public static Schema from(String tableName, List<Attribute> attributes) {
-        List<Attribute> s = new LinkedList<>();
+        List<Attribute> s = new ArrayList<>(attributes.size());
         for (Attribute a : attributes) s.add(a.alias(tableName));
         return new Schema(s);
     }
@@ -35,7 +77,7 @@ public class Schema {
     /** @param tableNames list of aliased table names
      * @return schema with all table attributes combined in tableNames order */
     public static Schema from(List<String> tableNames) {
-        List<Attribute> s = new LinkedList<>();
+        List<Attribute> s = new ArrayList<>();
         for (String name : tableNames) s.addAll(Catalog.getAliasedAttributes(name));
         return new Schema(s);
     }
@@ -44,9 +86,14 @@ public class Schema {
      * @param s2 right schema
      * @return joined schema with all left schema columns then right schema columns */
     public static Schema join(Schema s1, Schema s2) {
-        List<Attribute> s = new LinkedList<>();
-        s1.get().forEach(cn -> s.add(cn));
-        s2.get().forEach(cn -> s.add(cn));
+        List<Attribute> s = new ArrayList<>(s1.size() + s2.size());
+        s.addAll(s1.get());
+        s.addAll(s2.get());
         return new Schema(s);
     }
+
+    @Override
+    public String toString() {
+        return schema.toString();
+    }
 }
@@ -2,97 +2,483 @@ package com.dbms.utils;
 
 import com.dbms.index.Index;
 import com.dbms.index.TreeDeserializer;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-/** Class that keeps track of the stats of all the tables in the database. */
+/** Class that keeps track of the stats of all the tables in the database: the number of rows of
+ * each table, and the range, an equi-depth histogram, and an estimated number of distinct values of
+ * each column. The histograms are built from a uniform sample of rows kept while scanning, and the
+ * distinct values are counted with a HyperLogLog sketch. The ranges are saved to {@code stats.txt}
+ * in the database directory, the histograms and distinct counts to {@code stats_histograms.txt},
+ * and a fingerprint of each table file (its size and modification time) to
+ * {@code stats_fingerprints.txt}. A table whose file still has the saved fingerprint reuses its
+ * saved stats, which are only read and parsed when the table's stats are first used; the other
+ * tables are scanned again, in parallel. */
 public class Stats extends IO {
 
-    /** Maps unaliased table name to its stats */
+    /** Name of the file in the database directory holding the stats of every table */
+    static final String STATS_FILE = "stats.txt";
+
+    /** Name of the file in the database directory holding the fingerprint of every table file */
+    static final String FINGERPRINTS_FILE = "stats_fingerprints.txt";
+
+    /** Name of the file in the database directory holding the histogram and the number of distinct
+     * values of every column */
+    static final String HISTOGRAMS_FILE = "stats_histograms.txt";
+
+    /** Number of rows sampled from each table to build its histograms */
+    static final int SAMPLE_ROWS = 4096;
+
+    /** CPU cost of reading, hashing or writing a row in memory, in page I/Os */
+    public static final double CPU_ROW_COST = 0.01;
+
+    /** CPU cost of comparing two rows, in page I/Os */
+    public static final double CPU_COMPARISON_COST = 0.0025;
+
+    /** Maps unaliased table name to its stats, once scanned or read */
     private Map<String, TableStats> stats = new HashMap<>();
 
-    /** Constructor for a {@code Stats} object
+    /** Unaliased names of the tables whose saved stats are reused but not read yet */
+    private Set<String> unread = new HashSet<>();
+
+    /** Maps table name to its line of the saved stats, null until the saved stats of a table are
+     * first read */
+    private Map<String, String> savedStats;
+
+    /** Maps {@code table.column} to its line of the saved histograms, null until the saved stats of
+     * a table are first read */
+    private Map<String, String> savedHistograms;
+
+    /** Maps unaliased table name to the fingerprint of its file when its stats were computed */
+    private Map<String, String> fingerprints = new HashMap<>();
+
+    /** Database directory */
+    private String db;
+
+    /** Schema of the database */
+    private Map<String, Schema> schema;
+
+    /** Number of tables scanned because they had no valid saved stats */
+    private int scanned;
+
+    /** Constructor for a {@code Stats} object. Reuses the saved stats of tables whose files did not
+     * change, scans the others, and saves the stats again if any table was scanned. Only the
+     * fingerprints are read here; the saved stats are read when first used.
      *
-     * @param bw     {@code BufferedWriter} for writing the stats to {@code stats.txt}
+     * @param db     path to the database directory
      * @param schema schema of our database
      * @throws IOException */
-    Stats(BufferedWriter bw, Map<String, List<Attribute>> schema) throws IOException {
+    Stats(String db, Map<String, Schema> schema) throws IOException {
+        this.db = db;
+        this.schema = schema;
+        Map<String, String> savedFingerprints = readLines(FINGERPRINTS_FILE);
+        List<String> stale = new ArrayList<>();
         for (String table : schema.keySet()) {
-            TupleReader tr = new TupleReader(Catalog.pathToTable(table));
-            List<Attribute> columnNames = schema.get(table);
-            String result = table;
-            Map<String, Range> columnInfo = new HashMap<>();
-            Integer max[] = new Integer[columnNames.size()];
-            Integer min[] = new Integer[columnNames.size()];
-            Arrays.fill(max, Integer.MIN_VALUE);
-            Arrays.fill(min, Integer.MAX_VALUE);
-            List<Integer> row;
-            Integer numRows = 0;
-            while ((row = tr.nextTuple()) != null) {
-                for (int i = 0; i < row.size(); i++) {
-                    int element = row.get(i);
-                    if (element > max[i]) max[i] = element;
-                    if (element < min[i]) min[i] = element;
+            String fingerprint = fingerprint(table);
+            if (fingerprint.equals(savedFingerprints.get(table))) {
+                unread.add(table);
+                fingerprints.put(table, fingerprint);
+            } else {
+                stale.add(table);
+            }
+        }
+        scan(stale);
+        if (!stale.isEmpty()) save();
+    }
+
+    /** @param table (unaliased) table name
+     * @return stats of the table. Reused saved stats are parsed on first use; if they cannot be,
+     *         e.g. because they were saved in an older format, the table is scanned and the stats
+     *         are saved again.
+     * @throws UncheckedIOException if the saved stats cannot be read or the table cannot be
+     *                              scanned */
+    private TableStats tableStats(String table) {
+        if (!unread.remove(table)) return stats.get(table);
+        try {
+            if (savedStats == null) {
+                savedStats = readLines(STATS_FILE);
+                savedHistograms = readLines(HISTOGRAMS_FILE);
+            }
+            TableStats saved = parse(savedStats.get(table), savedHistograms, schema.get(table));
+            if (saved != null) {
+                stats.put(table, saved);
+            } else {
+                scan(List.of(table));
+                save();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stats.get(table);
+    }
+
+    /** Computes the stats of tables by scanning them, one table per thread.
+     *
+     * @param tables (unaliased) names of the tables to scan
+     * @throws IOException */
+    private void scan(List<String> tables) throws IOException {
+        scanned += tables.size();
+        if (tables.isEmpty()) return;
+        int threads = Math.min(tables.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<TableStats>> results = new ArrayList<>();
+            for (String table : tables) {
+                // the fingerprint is taken first, so a table changed during its scan is scanned again
+                fingerprints.put(table, fingerprint(table));
+                results.add(pool.submit(() -> scan(table)));
+            }
+            for (int i = 0; i < tables.size(); i++) stats.put(tables.get(i), await(results.get(i)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Scans a table, or a sample of its pages if {@code Catalog.StatsSampleFraction} is below 1.
+     * Sampled pages are chosen at random and read in file order, seeking straight to each one.
+     * Pages are full except for the last one, so the number of rows is still exact. The random
+     * choices are seeded by the table name, so that the same table always gets the same stats.
+     *
+     * @param table (unaliased) table name
+     * @return stats of the table
+     * @throws IOException */
+    private TableStats scan(String table) throws IOException {
+        String path = Catalog.pathToTable(table);
+        long pages = (new File(path).length() + PAGE_SIZE - 1) / PAGE_SIZE;
+        long sampledPages = (long) Math.ceil(Catalog.StatsSampleFraction * pages);
+        List<Attribute> columns = schema.get(table).get();
+        Random random = new Random(table.hashCode());
+        TableSample sample = new TableSample(columns.size(), random);
+        TupleReader tr = new TupleReader(path, Catalog.MappedReads);
+        int[] row = new int[columns.size()];
+        long rows;
+        if (sampledPages >= pages) {
+            while (tr.nextTuple(row)) sample.add(row);
+            rows = sample.rows;
+        } else {
+            int lastPageRows = tr.seekPage((int) pages - 1);
+            rows = (pages - 1) * tr.seekPage(0) + lastPageRows;
+            for (int page : randomPages((int) pages, (int) Math.max(1, sampledPages), random)) {
+                int n = tr.seekPage(page);
+                for (int t = 0; t < n; t++) {
+                    tr.nextTuple(row);
+                    sample.add(row);
                 }
-                numRows++;
             }
-            result += " " + numRows + " ";
-            for (int i = 0; i < columnNames.size(); i++) {
-                String columnName = columnNames.get(i).COLUMN;
-                result += String.join(",", columnName, min[i].toString(), max[i].toString());
-                if (i < columnNames.size() - 1) result += " ";
-                columnInfo.put(columnName, new Range(min[i], max[i]));
+        }
+        tr.close();
+        return sample.stats(columns, rows);
+    }
+
+    /** Chooses distinct pages uniformly at random by Floyd's algorithm
+     *
+     * @param pages  number of pages of the file
+     * @param k      number of pages to choose; at most pages
+     * @param random source of randomness
+     * @return indexes of the chosen pages, ascending */
+    private static SortedSet<Integer> randomPages(int pages, int k, Random random) {
+        SortedSet<Integer> chosen = new TreeSet<>();
+        for (int j = pages - k; j < pages; j++) {
+            int page = random.nextInt(j + 1);
+            chosen.add(chosen.contains(page) ? j : page);
+        }
+        return chosen;
+    }
+
+    /** Waits for the scan of a table
+     *
+     * @param result pending stats of the table
+     * @return stats of the table
+     * @throws IOException if the scan threw one, or if interrupted */
+    private static TableStats await(Future<TableStats> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /** @param table (unaliased) table name
+     * @return size and modification time of the table file */
+    private static String fingerprint(String table) {
+        File f = new File(Catalog.pathToTable(table));
+        return f.length() + " " + f.lastModified();
+    }
+
+    /** @param line       saved stats of a table after its name: its number of rows and a
+     *                   {@code column,min,max} entry per column; null if none were saved
+     * @param histograms maps {@code table.column} to the saved number of distinct values of the
+     *                   column and its bounds, followed by its histogram
+     * @param schema     schema of the table
+     * @return stats of the table, null if line is null or the saved stats do not cover exactly the
+     *         schema's columns or are in an older format */
+    private static TableStats parse(String line, Map<String, String> histograms, Schema schema) {
+        if (line == null) return null;
+        String[] fields = line.split(" ");
+        if (fields.length != schema.size() + 1) return null;
+        Map<String, Range> columnInfo = new HashMap<>();
+        for (int i = 1; i < fields.length; i++) {
+            String[] column = fields[i].split(",");
+            columnInfo.put(column[0], new Range(Integer.parseInt(column[1]), Integer.parseInt(column[2])));
+        }
+        Map<String, Histogram> columnHistograms = new HashMap<>();
+        Map<String, Integer> distinct = new HashMap<>();
+        Map<String, Range> distinctBounds = new HashMap<>();
+        for (Attribute a : schema.get()) {
+            String saved = histograms.get(a.toString());
+            if (!columnInfo.containsKey(a.COLUMN) || saved == null) return null;
+            String[] entries = saved.split(" ");
+            try {
+                distinct.put(a.COLUMN, Integer.parseInt(entries[0]));
+                distinctBounds.put(a.COLUMN, new Range(Integer.parseInt(entries[1]), Integer.parseInt(entries[2])));
+                columnHistograms.put(a.COLUMN, Histogram.parse(entries, 3));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                // saved in an older format
+                return null;
+            }
+        }
+        return new TableStats(Integer.parseInt(fields[0]), columnInfo, columnHistograms, distinct, distinctBounds);
+    }
+
+    /** @param file name of a file in the database directory whose lines start with a table name
+     * @return maps each table name to the rest of its line, empty if the file does not exist
+     * @throws IOException */
+    private Map<String, String> readLines(String file) throws IOException {
+        Map<String, String> lines = new HashMap<>();
+        File f = new File(db, file);
+        if (!f.exists()) return lines;
+        try (BufferedReader br = new BufferedReader(new FileReader(f))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space > 0) lines.put(line.substring(0, space), line.substring(space + 1));
+            }
+        }
+        return lines;
+    }
+
+    /** Saves the stats and the fingerprints of every table, reading the saved stats still unread
+     * first since their file is overwritten
+     *
+     * @throws IOException */
+    private void save() throws IOException {
+        for (String table : schema.keySet()) tableStats(table);
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(new File(db, STATS_FILE)))) {
+            for (String table : schema.keySet()) {
+                TableStats ts = tableStats(table);
+                String result = table + " " + ts.ROWS + " ";
+                List<String> columns = new ArrayList<>();
+                for (Attribute a : schema.get(table).get()) {
+                    Range r = ts.get(a.COLUMN);
+                    columns.add(String.join(",", a.COLUMN, Integer.toString(r.min), Integer.toString(r.max)));
+                }
+                bw.write(result + String.join(" ", columns));
+                bw.newLine();
+            }
+        }
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(new File(db, HISTOGRAMS_FILE)))) {
+            for (String table : schema.keySet()) {
+                TableStats ts = tableStats(table);
+                for (Attribute a : schema.get(table).get()) {
+                    Range bounds = ts.distinctBounds(a.COLUMN);
+                    bw.write(String.join(
+                            " ",
+                            a.toString(),
+                            ts.distinct(a.COLUMN).toString(),
+                            Integer.toString(bounds.min),
+                            Integer.toString(bounds.max),
+                            ts.histogram(a.COLUMN).toString()));
+                    bw.newLine();
+                }
+            }
+        }
+        saveFingerprints();
+    }
+
+    /** Saves the fingerprints of every table
+     *
+     * @throws IOException */
+    private void saveFingerprints() throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(new File(db, FINGERPRINTS_FILE)))) {
+            for (String table : schema.keySet()) {
+                bw.write(table + " " + fingerprints.get(table));
+                bw.newLine();
             }
-            stats.put(table, new TableStats(numRows, columnInfo));
-            bw.write(result);
-            bw.newLine();
         }
-        bw.close();
+    }
+
+    /** Records that a table file was rewritten with the same tuples, e.g. in another order for a
+     * clustered index, so that its stats are still reused on the next start.
+     *
+     * @param table (unaliased) table name
+     * @throws IOException */
+    public void tableRewritten(String table) throws IOException {
+        fingerprints.put(table, fingerprint(table));
+        saveFingerprints();
+    }
+
+    /** @return number of tables scanned so far because they had no valid saved stats */
+    int scanned() {
+        return scanned;
     }
 
     /** @param tableName (unaliased) table name
      * @return number of pages in the relation */
     private double getNumPages(String tableName) {
-        TableStats tstats = stats.get(tableName);
+        TableStats tstats = tableStats(tableName);
         return tstats.ROWS * tstats.NUM_ATTRIBUTES * 4.0 / PAGE_SIZE;
     }
 
+    /** @param rows          estimated number of rows
+     * @param numAttributes number of attributes per row
+     * @return number of pages needed to hold the rows */
+    public double getNumPages(double rows, int numAttributes) {
+        return rows * numAttributes * 4.0 / PAGE_SIZE;
+    }
+
     /** @param tableName (unaliased) table name
      * @return I/O cost of scanning the table (number of pages) */
     public double getTableScanCost(String tableName) {
         return getNumPages(tableName);
     }
 
-    /** @param i  the index for which to calculate the cost
-     * @param extent the extent of values being selected
-     * @return I/O cost of using the index to select the values
+    /** @param i    the index for which to calculate the cost
+     * @param low  inclusive lower bound on the selected keys, null if unbound
+     * @param high inclusive upper bound on the selected keys, null if unbound
+     * @return I/O cost of using the index to select the values: the pages holding the selected
+     *         rows if the index is clustered, otherwise the selected leaves and a page per
+     *         selected row
      * @throws IOException */
-    public double getTableIndexCost(Index i, int extent) throws IOException {
+    public double getTableIndexCost(Index i, Integer low, Integer high) throws IOException {
         TreeDeserializer td = new TreeDeserializer(i);
         int numLeaves = td.numLeaves;
         td.close();
-        double reductionFactor = getReductionFactor(i.name, extent);
+        double reductionFactor = getReductionFactor(i.name, low, high);
         if (i.isClustered) {
             return 3 + getNumPages(i.name.TABLE) * reductionFactor;
         } else {
-            return 3 + numLeaves * reductionFactor + extent * reductionFactor;
+            return 3 + numLeaves * reductionFactor + tableStats(i.name.TABLE).ROWS * reductionFactor;
         }
     }
 
+    /** Estimates the cost of an index nested loop join, which descends the index once per outer
+     * row and then reads the inner rows with the outer row's key.
+     *
+     * @param i         index on the join column of the inner table
+     * @param outerRows estimated number of outer rows
+     * @return I/O and CPU cost of probing the index with every outer row */
+    public double getIndexJoinCost(Index i, double outerRows) {
+        TableStats tstats = tableStats(i.name.TABLE);
+        double matches = tstats.ROWS * 1.0 / tstats.distinct(i.name.COLUMN);
+        double probeCost = i.isClustered ? 3 + getNumPages(matches, tstats.NUM_ATTRIBUTES) : 3 + matches;
+        return outerRows * (probeCost + matches * CPU_ROW_COST);
+    }
+
+    /** Estimates the cost of a block nested loop join, which produces the inner child once per
+     * block of {@code Catalog.BNLJPages} outer pages and compares every pair of rows.
+     *
+     * @param outerRows     estimated number of outer rows
+     * @param outerPages    estimated number of outer pages
+     * @param innerRows     estimated number of inner rows
+     * @param innerScanCost cost of producing the inner child once, e.g. of reading the inner table
+     * @return I/O and CPU cost of the join, excluding the cost of the outer child */
+    public double getBlockNestedLoopJoinCost(
+            double outerRows, double outerPages, double innerRows, double innerScanCost) {
+        double blocks = Math.max(1, Math.ceil(outerPages / Catalog.BNLJPages));
+        return blocks * innerScanCost + outerRows * innerRows * CPU_COMPARISON_COST;
+    }
+
+    /** Estimates the cost of a hash join that builds on the smaller child. If that child does not
+     * fit in {@code Catalog.HJPages}, the share of both children in spilled partitions is written
+     * and read back once.
+     *
+     * @param outerRows     estimated number of outer rows
+     * @param outerPages    estimated number of outer pages
+     * @param innerRows     estimated number of inner rows
+     * @param innerPages    estimated number of inner pages
+     * @param innerScanCost cost of producing the inner child once, e.g. of reading the inner table
+     * @return I/O and CPU cost of the join, excluding the cost of the outer child */
+    public double getHashJoinCost(
+            double outerRows, double outerPages, double innerRows, double innerPages, double innerScanCost) {
+        double buildPages = Math.min(outerPages, innerPages);
+        double spilled = buildPages <= Catalog.HJPages ? 0 : 1 - Catalog.HJPages / buildPages;
+        return innerScanCost
+                + 2 * spilled * (outerPages + innerPages)
+                + (1 + spilled) * (outerRows + innerRows) * CPU_ROW_COST;
+    }
+
+    /** Estimates the cost of a sort merge join, which sorts the children that are not already
+     * sorted on their join columns and merges them.
+     *
+     * @param outerRows     estimated number of outer rows
+     * @param outerPages    estimated number of outer pages
+     * @param innerRows     estimated number of inner rows
+     * @param innerPages    estimated number of inner pages
+     * @param innerScanCost cost of producing the inner child once, e.g. of reading the inner table
+     * @param sortOuter     true if the outer child must be sorted
+     * @param sortInner     true if the inner child must be sorted
+     * @return I/O and CPU cost of the join, excluding the cost of the outer child */
+    public double getSortMergeJoinCost(
+            double outerRows,
+            double outerPages,
+            double innerRows,
+            double innerPages,
+            double innerScanCost,
+            boolean sortOuter,
+            boolean sortInner) {
+        return innerScanCost
+                + (sortOuter ? getSortCost(outerRows, outerPages) : 0)
+                + (sortInner ? getSortCost(innerRows, innerPages) : 0)
+                + (outerRows + innerRows) * CPU_ROW_COST;
+    }
+
+    /** Estimates the cost of an external sort with {@code Catalog.EXTPages} pages. Replacement
+     * selection makes runs of about twice the buffer, and each merge pass merges one fewer run
+     * than the buffer has pages. The rows are written and read back once by the initial pass and
+     * once more by every merge pass.
+     *
+     * @param rows  estimated number of rows to sort
+     * @param pages estimated number of pages to sort
+     * @return I/O and CPU cost of the sort, excluding the cost of its child */
+    public double getSortCost(double rows, double pages) {
+        double runs = Math.ceil(pages / (2.0 * Catalog.EXTPages));
+        double fanIn = Math.max(2, Catalog.EXTPages - 1);
+        double merges = runs <= 1 ? 0 : Math.ceil(Math.log(runs) / Math.log(fanIn));
+        double comparisons = rows * Math.log(Math.max(rows, 2)) / Math.log(2);
+        return 2 * pages * (1 + merges) + comparisons * CPU_COMPARISON_COST;
+    }
+
     /** Gets the range of values for a given table and attribute
      *
      * @param a {@code Attribute} object that stores the unaliased table name and column name
      * @return {@code Range} object that contains the minimum and maximum of the table and column */
     public Range getAttributeRange(Attribute a) {
-        return stats.get(a.TABLE).get(a.COLUMN);
+        return tableStats(a.TABLE).get(a.COLUMN);
     }
 
     /** Number of rows in a given table
@@ -100,7 +486,7 @@ public class Stats extends IO {
      * @param tableName the aliased name of table
      * @return number of rows in that table */
     public int numRows(String tableName) {
-        return stats.get(Catalog.getRealTableName(tableName)).ROWS;
+        return tableStats(Catalog.getRealTableName(tableName)).ROWS;
     }
 
     /** Number of attributes in a given table
@@ -108,22 +494,32 @@ public class Stats extends IO {
      * @param tableName the unaliased name of table
      * @return number of attributes/columns it has */
     public int numAttributes(String tableName) {
-        return stats.get(tableName).NUM_ATTRIBUTES;
+        return tableStats(tableName).NUM_ATTRIBUTES;
     }
 
     /** @param a Attribute with (aliased) table name
-     * @return base table V-Value for this attribute */
+     * @return base table V-Value for this attribute: its estimated number of distinct values */
     public int baseTableV(Attribute a) {
         String unaliased = Catalog.getRealTableName(a.TABLE);
-        return stats.get(unaliased).get(a.COLUMN).extent();
+        return tableStats(unaliased).distinct(a.COLUMN);
+    }
+
+    /** @param a Attribute with (aliased) table name
+     * @return bounds on the number of distinct values of this attribute; they differ only if its
+     *         stats were computed from a sample of its table's pages */
+    public Range getDistinctBounds(Attribute a) {
+        String unaliased = Catalog.getRealTableName(a.TABLE);
+        return tableStats(unaliased).distinctBounds(a.COLUMN);
     }
 
-    /** @param a  Attribute with (aliased) table name
-     * @param extent extent of values in selection
-     * @return the reduction factor: ratio of selected values to total possible values */
-    public double getReductionFactor(Attribute a, int extent) {
+    /** @param a    Attribute with (aliased) table name
+     * @param low  inclusive lower bound on selected values, null if unbound
+     * @param high inclusive upper bound on selected values, null if unbound
+     * @return the reduction factor: estimated fraction of the rows with a selected value, from the
+     *         attribute's histogram */
+    public double getReductionFactor(Attribute a, Integer low, Integer high) {
         String unaliased = Catalog.getRealTableName(a.TABLE);
-        return extent * 1.0 / stats.get(unaliased).get(a.COLUMN).extent();
+        return tableStats(unaliased).histogram(a.COLUMN).selectivity(low, high);
     }
 
     /** Generates random tuples with the given {@code stats}
@@ -131,18 +527,19 @@ public class Stats extends IO {
      * @param path destination directory of table with random tuples
      * @throws IOException */
     void generate(String path) throws IOException {
-        for (String tableName : stats.keySet()) {
+        for (String tableName : schema.keySet()) {
             TupleWriter tw = new TupleWriter(String.join(File.separator, path, tableName));
-            TableStats ts = stats.get(tableName);
-            Set<Attribute> schema = new HashSet<>();
+            TableStats ts = tableStats(tableName);
+            List<Attribute> attributes = new LinkedList<>();
+            for (String column : ts.columns()) attributes.add(Attribute.bundle(tableName, column));
+            Schema schema = new Schema(attributes);
             for (int i = 0; i < ts.ROWS; i++) {
-                List<Integer> rngList = new LinkedList<>();
+                int[] rngList = new int[attributes.size()];
+                int j = 0;
                 for (String column : ts.columns()) {
                     int min = ts.get(column).min;
                     int max = ts.get(column).max;
-                    int rng = (int) (Math.random() * (max - min)) + min;
-                    rngList.add(rng);
-                    schema.add(Attribute.bundle(tableName, column));
+                    rngList[j++] = (int) (Math.random() * (max - min)) + min;
                 }
                 Tuple t = new Tuple(schema, rngList);
                 tw.writeTuple(t);
@@ -152,8 +549,8 @@ public class Stats extends IO {
     }
 }
 
-/** Class that keeps track of stats of a table: number of rows, attributes, and stats about its
- * columns */
+/** Class that keeps track of stats of a table: number of rows, attributes, and the range, histogram
+ * and number of distinct values of its columns */
 class TableStats {
     /** number of rows in the table */
     final int ROWS;
@@ -164,17 +561,160 @@ class TableStats {
     /** range of each table column */
     private final Map<String, Range> COLUMN_STATS;
 
-    TableStats(int rows, Map<String, Range> columnStats) {
+    /** histogram of each table column */
+    private final Map<String, Histogram> HISTOGRAMS;
+
+    /** estimated number of distinct values of each table column */
+    private final Map<String, Integer> DISTINCT;
+
+    /** bounds on the number of distinct values of each table column; both equal to the estimate
+     * if every row was read */
+    private final Map<String, Range> DISTINCT_BOUNDS;
+
+    TableStats(
+            int rows,
+            Map<String, Range> columnStats,
+            Map<String, Histogram> histograms,
+            Map<String, Integer> distinct,
+            Map<String, Range> distinctBounds) {
         ROWS = rows;
         NUM_ATTRIBUTES = columnStats.size();
         COLUMN_STATS = columnStats;
+        HISTOGRAMS = histograms;
+        DISTINCT = distinct;
+        DISTINCT_BOUNDS = distinctBounds;
     }
 
     Range get(String columnName) {
         return COLUMN_STATS.get(columnName);
     }
 
+    Histogram histogram(String columnName) {
+        return HISTOGRAMS.get(columnName);
+    }
+
+    Integer distinct(String columnName) {
+        return DISTINCT.get(columnName);
+    }
+
+    Range distinctBounds(String columnName) {
+        return DISTINCT_BOUNDS.get(columnName);
+    }
+
     Set<String> columns() {
         return COLUMN_STATS.keySet();
     }
 }
+
+/** Rows read from a table to compute its stats: the range of each column and a HyperLogLog sketch
+ * of its values over every row read, and a uniform sample of the rows kept by reservoir sampling
+ * for the histograms. */
+class TableSample {
+
+    /** Number of rows read */
+    long rows;
+
+    /** Smallest value read of each column */
+    private final int[] min;
+
+    /** Largest value read of each column */
+    private final int[] max;
+
+    /** Values of each column in the sample rows */
+    private final int[][] sample;
+
+    /** Distinct values read of each column */
+    private final HyperLogLog[] sketches;
+
+    /** Source of randomness for the reservoir */
+    private final Random random;
+
+    /** @param numColumns number of columns of the table
+     * @param random     source of randomness for the reservoir */
+    TableSample(int numColumns, Random random) {
+        min = new int[numColumns];
+        max = new int[numColumns];
+        Arrays.fill(min, Integer.MAX_VALUE);
+        Arrays.fill(max, Integer.MIN_VALUE);
+        sample = new int[numColumns][Stats.SAMPLE_ROWS];
+        sketches = new HyperLogLog[numColumns];
+        for (int i = 0; i < numColumns; i++) sketches[i] = new HyperLogLog();
+        this.random = random;
+    }
+
+    /** @param row values of a row read from the table */
+    void add(int[] row) {
+        long slot = rows < Stats.SAMPLE_ROWS ? rows : (long) (random.nextDouble() * (rows + 1));
+        for (int i = 0; i < row.length; i++) {
+            int element = row[i];
+            if (element > max[i]) max[i] = element;
+            if (element < min[i]) min[i] = element;
+            if (slot < Stats.SAMPLE_ROWS) sample[i][(int) slot] = element;
+            sketches[i].add(element);
+        }
+        rows++;
+    }
+
+    /** Computes the stats of the table. If only some of its rows were read, each column's range is
+     * widened by the average gap between the distinct values read, since the true extremes were
+     * likely missed by about that much. Its number of distinct values is estimated with the GEE
+     * estimator of Charikar et al., which scales the values seen once in the sample by
+     * sqrt(rows / sampled rows) and is within that factor of the truth. The lower bound is the
+     * number of distinct values read, and the upper bound scales the values seen once by
+     * rows / sampled rows.
+     *
+     * @param columns columns of the table
+     * @param total   number of rows of the table
+     * @return stats of the table */
+    TableStats stats(List<Attribute> columns, long total) {
+        int sampled = (int) Math.min(rows, Stats.SAMPLE_ROWS);
+        Map<String, Range> ranges = new HashMap<>();
+        Map<String, Histogram> histograms = new HashMap<>();
+        Map<String, Integer> distinct = new HashMap<>();
+        Map<String, Range> distinctBounds = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).COLUMN;
+            long seen = Math.max(1, Math.min(rows, Math.round(sketches[i].estimate())));
+            long low = min[i];
+            long high = max[i];
+            if (rows < total && seen > 1) {
+                long gap = (high - low) / (seen - 1);
+                low = Math.max(Integer.MIN_VALUE, low - gap);
+                high = Math.min(Integer.MAX_VALUE, high + gap);
+            }
+            ranges.put(column, new Range((int) low, (int) high));
+            histograms.put(column, Histogram.build(sample[i], sampled, (int) low, (int) high));
+            // a column has no more distinct values than rows or values in its range
+            long most = Math.max(1, Math.min(total, high - low + 1));
+            long lower = Math.min(seen, most);
+            long estimate = lower;
+            long upper = lower;
+            if (rows < total) {
+                long[] counts = frequencies(sample[i], sampled);
+                double scale = (double) total / sampled;
+                long gee = Math.round(Math.sqrt(scale) * counts[1] + counts[0] - counts[1]);
+                upper = Math.min(most, Math.max(lower, Math.round(scale * counts[1] + counts[0] - counts[1])));
+                estimate = Math.min(upper, Math.max(lower, gee));
+            }
+            distinct.put(column, (int) estimate);
+            distinctBounds.put(column, new Range((int) lower, (int) upper));
+        }
+        return new TableStats((int) Math.min(total, Integer.MAX_VALUE), ranges, histograms, distinct, distinctBounds);
+    }
+
+    /** @param values values of a column in the sample rows, sorted
+     * @param n      number of sample rows
+     * @return the number of distinct values among them and the number of values seen once */
+    private static long[] frequencies(int[] values, int n) {
+        long distinct = 0;
+        long once = 0;
+        for (int start = 0; start < n; ) {
+            int end = start + 1;
+            while (end < n && values[end] == values[start]) end++;
+            distinct++;
+            if (end - start == 1) once++;
+            start = end;
+        }
+        return new long[] {distinct, once};
+    }
+}
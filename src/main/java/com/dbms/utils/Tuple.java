@@ -1,84 +1,75 @@
 package com.dbms.utils;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Set;
 
 /** The representation of a row in a table. */
 public class Tuple {
-    /** Maps (aliased) table.column key to value in row. Insertion order represents column
-     * ordering. */
-    private LinkedHashMap<Attribute, Integer> row;
+    /** Schema of the operator that produced this Tuple; shared by all of its Tuples. The i-th
+     * attribute of the schema names the i-th value in {@code data}. */
+    private final Schema schema;
 
-    /** Creates a new Tuple for the table with columns and data.
-     *
-     * @param tableName the name (alias) of the table associated with each column
-     * @param columns   the name of each column in the table
-     * @param data      the row of data in the table; same size as columns */
-    public Tuple(Schema s, List<Integer> data) {
-        row = new LinkedHashMap<>();
-        List<Attribute> columns = s.get();
-        for (int i = 0; i < data.size(); i++) {
-            row.put(columns.get(i), data.get(i));
-        }
-    }
+    /** Values of the row in schema order */
+    private final int[] data;
 
-    /** @param schema row keys; assumes is in the same order as the input data
-     * @param data   associated data \ */
-    public Tuple(Set<Attribute> schema, List<Integer> data) {
-        row = new LinkedHashMap<>();
-        Iterator<Attribute> names = schema.iterator();
-        for (int i = 0; i < data.size(); i++) {
-            row.put(names.next(), data.get(i));
-        }
-    }
-
-    /** Creates a new Tuple from a derived row of an old Tuple
+    /** Creates a new Tuple for the table with columns and data.
      *
-     * @param row row map */
-    private Tuple(LinkedHashMap<Attribute, Integer> row) {
-        this.row = row;
+     * @param s    schema naming each value of the row
+     * @param data the row of data in the table; same size as the schema */
+    public Tuple(Schema s, int[] data) {
+        schema = s;
+        this.data = data;
     }
 
     /** @return number of attributes in this Tuple */
     public int size() {
-        return row.size();
+        return data.length;
     }
 
-    /** @param a column
+    /** Looks up the value by attribute name. Operators that read the same column of every Tuple
+     * should resolve the offset once with {@code Schema.indexOf} and use {@code get(int)}.
+     *
+     * @param a column
      * @return value in the column */
     public int get(Attribute a) {
-        return row.get(a);
+        return data[schema.indexOf(a)];
+    }
+
+    /** @param i 0-based offset of the column in the schema
+     * @return value in the column */
+    public int get(int i) {
+        return data[i];
     }
 
-    /** @return set of {@code ColumnName} type containing table and column name */
-    public Set<Attribute> getSchema() {
-        return row.keySet();
+    /** @return schema naming the values of this Tuple */
+    public Schema getSchema() {
+        return schema;
     }
 
-    /** @return collection of all Tuple values */
-    public Collection<Integer> getValues() {
-        return row.values();
+    /** @return all Tuple values in schema order; callers must not modify the array */
+    public int[] getValues() {
+        return data;
     }
 
     /** Creates a new tuple with this tuple's columns projected to the given schema.
      *
-     * @param schema list of {@code ColumnName} objects containing aliased table names and column
-     *               names; must be a subset of this tuple's schema */
-    public Tuple project(Schema s) {
-        List<Integer> data = new ArrayList<>(s.size());
-        for (Attribute a : s.get()) data.add(row.get(a));
-        return new Tuple(s, data);
+     * @param s       schema of the projected tuple; must be a subset of this tuple's schema
+     * @param offsets for each attribute of {@code s}, its offset in this tuple's schema
+     * @return projected tuple */
+    public Tuple project(Schema s, int[] offsets) {
+        int[] projected = new int[offsets.length];
+        for (int i = 0; i < offsets.length; i++) projected[i] = data[offsets[i]];
+        return new Tuple(s, projected);
     }
 
     /** @return Tuple data separated by commas without white space */
     @Override
     public String toString() {
-        return row.values().toString().replaceAll("\\s|\\[|\\]", "");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < data.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(data[i]);
+        }
+        return sb.toString();
     }
 
     /** @param o other object to compare
@@ -87,16 +78,23 @@ public class Tuple {
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
         Tuple other = (Tuple) o;
-        return Arrays.equals(row.values().toArray(), other.row.values().toArray());
+        return Arrays.equals(data, other.data);
+    }
+
+    /** Tuples are hashed by their data, consistent with {@code equals}. */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
     }
 
-    /** @param left left tuple
+    /** @param s     schema of the merged tuple; the left schema followed by the right schema
+     * @param left  left tuple
      * @param right right tuple
      * @return merged Tuple with order specified by the concatenation of left and right */
-    public static Tuple mergeTuples(Tuple left, Tuple right) {
-        LinkedHashMap<Attribute, Integer> row = new LinkedHashMap<>();
-        left.row.forEach((key, value) -> row.put(key, value));
-        right.row.forEach((key, value) -> row.put(key, value));
-        return new Tuple(row);
+    public static Tuple mergeTuples(Schema s, Tuple left, Tuple right) {
+        int[] row = new int[left.data.length + right.data.length];
+        System.arraycopy(left.data, 0, row, 0, left.data.length);
+        System.arraycopy(right.data, 0, row, left.data.length, right.data.length);
+        return new Tuple(s, row);
     }
 }
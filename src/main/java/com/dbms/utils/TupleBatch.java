@@ -0,0 +1,153 @@
+package com.dbms.utils;
+
+/** A block of up to {@code CAPACITY} rows stored column-major, so that an operator can process a
+ * whole vector of values per call instead of one {@code Tuple} per call. Rows filtered out by a
+ * selection are not moved; instead, an optional selection vector lists the physical rows that are
+ * still active. A batch returned by {@code PhysicalOperator.getNextBatch} is owned by the operator
+ * that returned it and is only valid until the next call on that operator. */
+public class TupleBatch {
+    /** Maximum number of rows in a batch */
+    public static final int CAPACITY = 1024;
+
+    /** Schema naming each column of the batch */
+    private final Schema schema;
+
+    /** {@code columns[c][r]} is the value of column {@code c} in physical row {@code r}. A
+     * projection may point several entries at the same array of another batch. */
+    private final int[][] columns;
+
+    /** Number of physical rows filled */
+    private int size;
+
+    /** Physical rows that are active, in order; null if every physical row is active */
+    private int[] selection;
+
+    /** Number of active entries in {@code selection} */
+    private int selected;
+
+    /** Array backing {@code selection}, kept across {@code clear} */
+    private int[] selectionBuffer;
+
+    /** @param s       schema of the batch
+     * @param columns column vectors of the batch */
+    private TupleBatch(Schema s, int[][] columns) {
+        schema = s;
+        this.columns = columns;
+    }
+
+    /** @param s schema of the batch
+     * @return empty batch with its own column vectors */
+    public static TupleBatch allocate(Schema s) {
+        return new TupleBatch(s, new int[s.size()][CAPACITY]);
+    }
+
+    /** @param s schema of the batch
+     * @return batch without column vectors, to be filled by {@code project} */
+    public static TupleBatch view(Schema s) {
+        return new TupleBatch(s, new int[s.size()][]);
+    }
+
+    /** @return schema naming each column of this batch */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /** @return column vectors of this batch; only rows reported by {@code row} are meaningful */
+    public int[][] columns() {
+        return columns;
+    }
+
+    /** Removes all rows and the selection vector */
+    public void clear() {
+        size = 0;
+        selection = null;
+    }
+
+    /** @return true if no more rows can be added */
+    public boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    /** @return number of active rows */
+    public int count() {
+        return selection == null ? size : selected;
+    }
+
+    /** @param i index of an active row, less than {@code count()}
+     * @return physical row of the i-th active row */
+    public int row(int i) {
+        return selection == null ? i : selection[i];
+    }
+
+    /** Returns the selection vector so that a filter can compact it in place; the caller must
+     * report the number of remaining rows with {@code select}.
+     *
+     * @return the physical rows that are active, in the first {@code count()} entries */
+    public int[] selection() {
+        if (selection == null) {
+            if (selectionBuffer == null) selectionBuffer = new int[CAPACITY];
+            selection = selectionBuffer;
+            for (int i = 0; i < size; i++) selection[i] = i;
+            selected = size;
+        }
+        return selection;
+    }
+
+    /** @param n number of active rows left in the selection vector after filtering */
+    public void select(int n) {
+        selected = n;
+    }
+
+    /** Sets the number of physical rows after the column vectors were filled directly.
+     *
+     * @param n number of physical rows */
+    public void setSize(int n) {
+        size = n;
+        selection = null;
+    }
+
+    /** Appends a row to this batch; requires the batch is not full
+     *
+     * @param row values of the row in schema order */
+    public void add(int[] row) {
+        for (int c = 0; c < row.length; c++) columns[c][size] = row[c];
+        size++;
+    }
+
+    /** Appends the concatenation of two rows to this batch; requires the batch is not full
+     *
+     * @param left  values placed in the first columns
+     * @param right values placed in the following columns */
+    public void add(int[] left, int[] right) {
+        for (int c = 0; c < left.length; c++) columns[c][size] = left[c];
+        for (int c = 0; c < right.length; c++) columns[left.length + c][size] = right[c];
+        size++;
+    }
+
+    /** Points this batch at a subset of another batch's columns without copying any values. The
+     * selection vector is shared, so this batch is only valid as long as {@code from} is.
+     *
+     * @param from    batch to project
+     * @param offsets for each column of this batch, its offset in {@code from} */
+    public void project(TupleBatch from, int[] offsets) {
+        for (int c = 0; c < offsets.length; c++) columns[c] = from.columns[offsets[c]];
+        size = from.size;
+        selection = from.selection;
+        selected = from.selected;
+    }
+
+    /** @param i index of an active row, less than {@code count()}
+     * @return copy of the values of the i-th active row in schema order */
+    public int[] getRow(int i) {
+        int r = row(i);
+        int[] data = new int[columns.length];
+        for (int c = 0; c < columns.length; c++) data[c] = columns[c][r];
+        return data;
+    }
+
+    /** @param i index of an active row, less than {@code count()}
+     * @return the i-th active row materialized as a Tuple */
+    public Tuple getTuple(int i) {
+        return new Tuple(schema, getRow(i));
+    }
+}
@@ -1,14 +1,104 @@
 package com.dbms.utils;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 /** Handles randomly generating binary data files for benchmarking. */
 public class TupleGenerator {
 
+    /** Name and columns of each table of a generated database */
+    private static final String[][] TABLES = {
+        {"Sailors", "A", "B", "C"}, {"Boats", "D", "E", "F"}, {"Reserves", "G", "H"}
+    };
+
+    /** Number of rows of each table of a generated database at scale 1 */
+    private static final int[] ROWS = {10000, 1000, 10000};
+
+    /** Indexes of a generated database, in the format of {@code index_info.txt} */
+    private static final String INDEX_INFO = "Sailors A 1 15\nBoats E 0 10\nReserves H 0 10\n";
+
+    /** Maximum value of columns that are not keys or foreign keys */
+    private static final int MAX_VALUE = 1000;
+
+    /**
+     * Generates a database of Sailors(A, B, C), Boats(D, E, F), and Reserves(G, H), where A and D
+     * are unique-ish keys, and G and H reference them, along with its schema, index info, and a
+     * config file. The same scale and seed always generate the same database.
+     * @param dir is the input directory of the database; output and temp directories are created in
+     * it
+     * @param scale multiplies the number of rows of every table
+     * @param seed is the seed for the RNG
+     * @return path to the config file of the database
+     * @throws IOException
+     */
+    public static String generateDatabase(String dir, double scale, long seed) throws IOException {
+        String data = String.join(File.separator, dir, "db", "data");
+        new File(data).mkdirs();
+        new File(String.join(File.separator, dir, "db", "indexes")).mkdirs();
+        new File(dir, "output").mkdirs();
+        new File(dir, "temp").mkdirs();
+        Random random = new Random(seed);
+        int[] rows = new int[TABLES.length];
+        for (int t = 0; t < TABLES.length; t++) rows[t] = Math.max(1, (int) (ROWS[t] * scale));
+        int[][] maxValues = {{rows[0], MAX_VALUE, MAX_VALUE}, {rows[1], MAX_VALUE, MAX_VALUE}, {rows[0], rows[1]}};
+        StringBuilder schema = new StringBuilder();
+        for (int t = 0; t < TABLES.length; t++) {
+            generate(data + File.separator + TABLES[t][0], maxValues[t], rows[t], random);
+            schema.append(String.join(" ", TABLES[t])).append('\n');
+        }
+        write(String.join(File.separator, dir, "db", "schema.txt"), schema.toString());
+        write(String.join(File.separator, dir, "db", "index_info.txt"), INDEX_INFO);
+        write(String.join(File.separator, dir, "queries.sql"), "");
+        String config = dir + File.separator + "config.txt";
+        write(config, String.join("\n", dir, dir + File.separator + "output", dir + File.separator + "temp"));
+        return config;
+    }
+
+    /**
+     * Generates a random relation
+     * @param path is the file to write the relation to
+     * @param maxValues is the maximum value (exclusive) of each column
+     * @param rows is how many tuples will be in the relation
+     * @param random is the RNG
+     * @throws IOException
+     */
+    static void generate(String path, int[] maxValues, int rows, Random random) throws IOException {
+        TupleWriter tw = new TupleWriter(path);
+        for (int i = 0; i < rows; i++) {
+            int[] values = new int[maxValues.length];
+            for (int j = 0; j < values.length; j++) values[j] = random.nextInt(maxValues[j]);
+            tw.writeTuple(values);
+        }
+        tw.close();
+    }
+
+    /**
+     * @param path is the file to write
+     * @param contents is the text to write to the file
+     * @throws IOException
+     */
+    private static void write(String path, String contents) throws IOException {
+        try (Writer w = new FileWriter(path)) {
+            w.write(contents);
+        }
+    }
+
+    /**
+     * Generates a database from the command line
+     * @param args args[0] input directory, args[1] scale, args[2] optional seed
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        System.out.println(generateDatabase(args[0], Double.parseDouble(args[1]), seed));
+    }
+
     /**
      * Generates a random dataset to the input path for our DBMS
      * @param tableName is the name of the table, which is also the name of the file
@@ -19,13 +109,13 @@ public class TupleGenerator {
     static void generate(String tableName, Set<String> columns, int maxValue, int rows) {
         try {
             TupleWriter tw = new TupleWriter(tableName);
+            Schema schema = mapStringNameToColumnName(tableName, columns);
             for (int i = 0; i < rows; i++) {
-                List<Integer> rngList = new ArrayList<>();
+                int[] rngList = new int[columns.size()];
                 for (int j = 0; j < columns.size(); j++) {
-                    int rng = (int) (Math.random() * maxValue);
-                    rngList.add(j, rng);
+                    rngList[j] = (int) (Math.random() * maxValue);
                 }
-                Tuple t = new Tuple(mapStringNameToColumnName(tableName, columns), rngList);
+                Tuple t = new Tuple(schema, rngList);
                 tw.writeTuple(t);
             }
             tw.close();
@@ -35,16 +125,17 @@ public class TupleGenerator {
     }
 
     /**
-     * Converts a {@code Set} of column names only to a {@code Set} of {@code ColumnName} type.
+     * Converts a {@code Set} of column names only to a {@code Schema} of {@code Attribute} type.
      * @param tableName is the name of the data file
      * @param columns is a set containing the name of the columns
-     * @return {@code Set} of {@code ColumnName} type for inputting into {@code Tuple} constructor
+     * @return {@code Schema} in the iteration order of columns for inputting into {@code Tuple}
+     * constructor
      */
-    private static Set<Attribute> mapStringNameToColumnName(String tableName, Set<String> columns) {
-        Set<Attribute> result = new HashSet<>();
+    private static Schema mapStringNameToColumnName(String tableName, Set<String> columns) {
+        List<Attribute> result = new ArrayList<>();
         for (String column : columns) {
             result.add(Attribute.bundle(tableName, column));
         }
-        return result;
+        return new Schema(result);
     }
 }
@@ -1,12 +1,8 @@
 package com.dbms.utils;
 
 import com.dbms.index.RID;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 
 /** Class for reading byte-code files containing relational data */
 public class TupleReader extends IO {
@@ -14,8 +10,14 @@ public class TupleReader extends IO {
     /** Path to file */
     private String path;
 
-    /** flag telling whether the buffer can be used */
-    private boolean memUsable;
+    /** Pinned frame holding the current page, null if the reader is closed or reads the mapping */
+    private BufferPool.Frame frame;
+
+    /** Memory mapping of the whole file, null if pages are pinned in the buffer pool */
+    private ByteBuffer mapping;
+
+    /** Offset in buffer of the current page */
+    private int pageStart;
 
     /** Number of attribute per tuple in current page */
     private int numAttributes;
@@ -38,8 +40,16 @@ public class TupleReader extends IO {
     /** @param path (unaliased) table name (to represent file path)
      * @throws IOException */
     public TupleReader(String path) throws IOException {
+        this(path, false);
+    }
+
+    /** @param path   (unaliased) table name (to represent file path)
+     * @param mapped true to read pages straight from a memory mapping of the file; falls back to
+     *               the buffer pool if the file is too large to map
+     * @throws IOException */
+    public TupleReader(String path, boolean mapped) throws IOException {
         this.path = path;
-        buffer = ByteBuffer.allocate(PAGE_SIZE);
+        if (mapped) mapping = Catalog.BUFFER_POOL.map(path);
         reset();
     }
 
@@ -47,11 +57,7 @@ public class TupleReader extends IO {
      *
      * @throws IOException */
     public void reset() throws IOException {
-        open();
-        fc.position(0);
-        pageId = -1;
-        tupleId = -1;
-        readNextPage();
+        readPage(0);
         maxTuples = numTuples;
     }
 
@@ -59,87 +65,130 @@ public class TupleReader extends IO {
      *              tuple that exists in the relation
      * @throws IOException */
     public void reset(int index) throws IOException {
-        open();
-        int pageIndex = index / maxTuples;
-        fc.position(pageIndex * PAGE_SIZE);
-        readNextPage();
+        readPage(index / maxTuples);
         tuplesRead = index % maxTuples;
         bufferIndex += tuplesRead * numAttributes * 4;
         tupleId = index - 1;
-        pageId = pageIndex;
     }
 
     /** @param rid record ID of tuple to read; requires rid is a valid record ID
      * @return tuple with the location specificed by rid
      * @throws IOException */
-    public List<Integer> readTuple(RID rid) throws IOException {
-        fc.position(rid.pageId * PAGE_SIZE);
-        pageId = rid.pageId - 1;
-        readNextPage();
+    public int[] readTuple(RID rid) throws IOException {
+        if (buffer == null || pageId != rid.pageId) readPage(rid.pageId);
         tuplesRead = rid.tupleId;
-        bufferIndex += tuplesRead * numAttributes * 4;
+        bufferIndex = pageStart + 8 + tuplesRead * numAttributes * 4;
         tupleId = rid.tupleId - 1;
         return nextTuple();
     }
 
-    /** Reads the next page of data in the file. First clears the buffer, then reads the next page
-     * and the metadata values. Places bufferIndex at first integer to read in file and resets
-     * tuplesRead.
+    /** Moves to the first tuple of a page, e.g. to read only a sample of the pages. Reading on past
+     * the last tuple of the page continues with the next page.
      *
-     * @return true if new page read, false if no more pages to read
+     * @param page 0-based index of the page
+     * @return number of tuples on the page, 0 if the file has no such page
      * @throws IOException */
-    private boolean readNextPage() throws IOException {
-        clearBuffer();
-        int bytesRead = fc.read(buffer);
-        if (bytesRead == -1) {
-            close();
-            return false;
-        }
-        numAttributes = buffer.getInt(0);
-        numTuples = buffer.getInt(4);
-        bufferIndex = 8;
+    public int seekPage(int page) throws IOException {
+        return readPage(page) ? numTuples : 0;
+    }
+
+    /** Moves to a page of the file, either in the mapping or pinned in the buffer pool (unpinning
+     * the current one), and reads its metadata values. Places bufferIndex at first integer to read
+     * in file and resets tuplesRead.
+     *
+     * @param page 0-based index of the page
+     * @return true if the page was read, false if the file has no such page
+     * @throws IOException */
+    private boolean readPage(int page) throws IOException {
+        close();
         tuplesRead = 0;
-        pageId++;
         tupleId = -1;
+        numTuples = 0;
+        if (mapping != null) {
+            if ((long) page * PAGE_SIZE >= mapping.limit()) return false;
+            buffer = mapping;
+            pageStart = page * PAGE_SIZE;
+        } else {
+            frame = Catalog.BUFFER_POOL.pin(path, page);
+            if (frame == null) return false;
+            buffer = frame.data();
+            pageStart = 0;
+        }
+        numAttributes = buffer.getInt(pageStart);
+        numTuples = buffer.getInt(pageStart + 4);
+        bufferIndex = pageStart + 8;
+        pageId = page;
         return true;
     }
 
-    /** @return Integer list of data in the tuple, null if no tuples left or if file channel is
-     *         closed
+    /** Reads the next page of data in the file.
+     *
+     * @return true if new page read, false if no more pages to read
+     * @throws IOException */
+    private boolean readNextPage() throws IOException {
+        return buffer != null && readPage(pageId + 1);
+    }
+
+    /** @return data in the tuple, null if no tuples left or if file channel is closed
      * @throws IOException */
-    public List<Integer> nextTuple() throws IOException {
+    public int[] nextTuple() throws IOException {
         if (tuplesRead == numTuples) {
-            if (!memUsable || !readNextPage()) return null;
+            if (!readNextPage()) return null;
+        }
+        int[] data = new int[numAttributes];
+        nextTuple(data);
+        return data;
+    }
+
+    /** Reads the next tuple into an existing array instead of allocating one
+     *
+     * @param into array of at least as many values as the tuple has, overwritten with them
+     * @return false if no tuples left or if file channel is closed
+     * @throws IOException */
+    public boolean nextTuple(int[] into) throws IOException {
+        if (tuplesRead == numTuples) {
+            if (!readNextPage()) return false;
         }
-        List<Integer> data = new ArrayList<>(numAttributes);
         for (int i = 0; i < numAttributes; i++) {
-            data.add(buffer.getInt(bufferIndex));
+            into[i] = buffer.getInt(bufferIndex);
             bufferIndex += 4;
         }
         tuplesRead++;
         tupleId++;
-        return data;
+        return true;
     }
 
-    /** Opens the input stream if closed, otherwise does nothing.
+    /** Reads up to a batch of tuples straight into its column vectors, continuing across pages.
      *
-     * @throws FileNotFoundException */
-    private void open() throws FileNotFoundException {
-        if (!memUsable) {
-            fin = new FileInputStream(path);
-            fc = fin.getChannel();
-            memUsable = true;
+     * @param batch batch to fill; cleared first
+     * @return number of tuples read, 0 if no tuples left or if file channel is closed
+     * @throws IOException */
+    public int nextTuples(TupleBatch batch) throws IOException {
+        int[][] columns = batch.columns();
+        int n = 0;
+        while (n < TupleBatch.CAPACITY) {
+            if (tuplesRead == numTuples) {
+                if (!readNextPage()) break;
+            }
+            int count = Math.min(TupleBatch.CAPACITY - n, numTuples - tuplesRead);
+            for (int t = n; t < n + count; t++) {
+                for (int c = 0; c < numAttributes; c++) {
+                    columns[c][t] = buffer.getInt(bufferIndex);
+                    bufferIndex += 4;
+                }
+            }
+            tuplesRead += count;
+            tupleId += count;
+            n += count;
         }
+        batch.setSize(n);
+        return n;
     }
 
-    /** Closes the reader. Call reset to restart.
-     *
-     * @throws IOException */
-    public void close() throws IOException {
-        if (memUsable) {
-            fin.close();
-            fc.close();
-            memUsable = false;
-        }
+    /** Closes the reader, unpinning its page if any. Call reset to restart. */
+    public void close() {
+        Catalog.BUFFER_POOL.unpin(frame);
+        frame = null;
+        buffer = null;
     }
 }
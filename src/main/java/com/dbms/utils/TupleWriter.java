@@ -13,10 +13,18 @@ public class TupleWriter extends IO {
     /** Number of tuples on current page */
     private int numTuples;
 
+    /** Path to file */
+    private String path;
+
+    /** 0-based index of the page in the buffer */
+    private int pageId;
+
     /** @param path (unaliased) file path name
      * @throws IOException */
     public TupleWriter(String path) throws IOException {
+        this.path = path;
         buffer = ByteBuffer.allocate(PAGE_SIZE);
+        Catalog.BUFFER_POOL.invalidate(path);
         fout = new FileOutputStream(path);
         fc = fout.getChannel();
         bufferIndex = 8;
@@ -27,23 +35,51 @@ public class TupleWriter extends IO {
      * @param t contains the data to write
      * @throws IOException */
     public void writeTuple(Tuple t) throws IOException {
-        if (bufferIndex + t.size() * 4 > PAGE_SIZE) writePage();
-        numAttributes = t.size();
+        writeTuple(t.getValues());
+    }
+
+    /** Writes tuple data to file path
+     *
+     * @param data values of the tuple in schema order
+     * @throws IOException */
+    public void writeTuple(int[] data) throws IOException {
+        if (bufferIndex + data.length * 4 > PAGE_SIZE) writePage();
+        numAttributes = data.length;
         numTuples++;
-        for (int v : t.getValues()) {
+        for (int v : data) {
             buffer.putInt(bufferIndex, v);
             bufferIndex += 4;
         }
     }
 
-    /** Writes a page into the buffer
+    /** Writes the active rows of a batch to file path
+     *
+     * @param batch contains the data to write
+     * @throws IOException */
+    public void writeBatch(TupleBatch batch) throws IOException {
+        int[][] columns = batch.columns();
+        int rowSize = columns.length * 4;
+        for (int i = 0; i < batch.count(); i++) {
+            if (bufferIndex + rowSize > PAGE_SIZE) writePage();
+            numAttributes = columns.length;
+            numTuples++;
+            int r = batch.row(i);
+            for (int[] column : columns) {
+                buffer.putInt(bufferIndex, column[r]);
+                bufferIndex += 4;
+            }
+        }
+    }
+
+    /** Writes the buffer to the file as a page, and through to the buffer pool
      *
      * @throws IOException */
     private void writePage() throws IOException {
         buffer.putInt(0, numAttributes);
         buffer.putInt(4, numTuples);
+        zeroTail();
         fc.write(buffer);
-        clearBuffer();
+        Catalog.BUFFER_POOL.put(path, pageId++, buffer);
         numAttributes = 0;
         numTuples = 0;
         bufferIndex = 8;
@@ -70,9 +70,9 @@ class QueryTestSetBuilder {
     private String sortOutput(String path) throws IOException {
         List<String> tuples = new ArrayList<>();
         TupleReader tr = new TupleReader(path);
-        List<Integer> tuple;
+        int[] tuple;
         while ((tuple = tr.nextTuple()) != null) {
-            String toAdd = tuple.toString();
+            String toAdd = Arrays.toString(tuple);
             int index = Collections.binarySearch(tuples, toAdd);
             tuples.add(index < 0 ? -index - 1 : index, toAdd);
         }
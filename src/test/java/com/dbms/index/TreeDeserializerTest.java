@@ -2,15 +2,19 @@ package com.dbms.index;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
+import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.util.Arrays;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 /** Unit tests for the TreeDeserializer */
 class TreeDeserializerTest {
@@ -37,21 +41,39 @@ class TreeDeserializerTest {
     }
 
     private static Stream<Arguments> boatsNextTupleProvider() throws IOException {
-        List<Integer> first = boatsTd.getFirstTupleAtKey(7774);
+        int[] first = boatsTd.getFirstTupleAtKey(7774);
         return Stream.of(
-                Arguments.of("[2181, 7774, 2664]", first.toString()),
-                Arguments.of("[2488, 7774, 771]", boatsTd.getNextTuple().toString()),
-                Arguments.of("[1038, 7774, 5865]", boatsTd.getNextTuple().toString()),
-                Arguments.of("[6306, 7777, 7314]", boatsTd.getNextTuple().toString()));
+                Arguments.of("[2181, 7774, 2664]", Arrays.toString(first)),
+                Arguments.of("[2488, 7774, 771]", Arrays.toString(boatsTd.getNextTuple())),
+                Arguments.of("[1038, 7774, 5865]", Arrays.toString(boatsTd.getNextTuple())),
+                Arguments.of("[6306, 7777, 7314]", Arrays.toString(boatsTd.getNextTuple())));
     }
 
     private static Stream<Arguments> sailorsNextTupleProvider() throws IOException {
-        List<Integer> first = sailorsTd.getFirstTupleAtKey(2080);
+        int[] first = sailorsTd.getFirstTupleAtKey(2080);
         return Stream.of(
-                Arguments.of("[2080, 268, 5458]", first.toString()),
-                Arguments.of("[2080, 4006, 2166]", sailorsTd.getNextTuple().toString()),
-                Arguments.of("[2080, 9730, 9417]", sailorsTd.getNextTuple().toString()),
-                Arguments.of("[2080, 9746, 8361]", sailorsTd.getNextTuple().toString()),
-                Arguments.of("[2082, 832, 4626]", sailorsTd.getNextTuple().toString()));
+                Arguments.of("[2080, 268, 5458]", Arrays.toString(first)),
+                Arguments.of("[2080, 4006, 2166]", Arrays.toString(sailorsTd.getNextTuple())),
+                Arguments.of("[2080, 9730, 9417]", Arrays.toString(sailorsTd.getNextTuple())),
+                Arguments.of("[2080, 9746, 8361]", Arrays.toString(sailorsTd.getNextTuple())),
+                Arguments.of("[2082, 832, 4626]", Arrays.toString(sailorsTd.getNextTuple())));
+    }
+
+    @ParameterizedTest(name = "Empty Index Test mapped={0}")
+    @ValueSource(booleans = {false, true})
+    void testEmptyIndexFile(boolean mapped) throws IOException {
+        Index empty = new Index(Attribute.bundle("Boats", "Empty"), 10, false);
+        File file = new File(Catalog.pathToIndexFile(empty.name));
+        file.createNewFile();
+        boolean mappedReads = Catalog.MappedReads;
+        Catalog.MappedReads = mapped;
+        try {
+            IOException e = assertThrows(IOException.class, () -> new TreeDeserializer(empty));
+            assertEquals("index file " + file.getPath() + " has no page 0", e.getMessage());
+        } finally {
+            Catalog.MappedReads = mappedReads;
+            Catalog.BUFFER_POOL.invalidate(file.getPath());
+            file.delete();
+        }
     }
 }
@@ -2,19 +2,26 @@ package com.dbms.operators.physical;
 
 import static com.dbms.utils.Helpers.strExpToExp;
 import static com.dbms.utils.Helpers.strOrderBysToOrderBys;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Stream;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 /** Unit tests for the SortOperator */
@@ -74,4 +81,33 @@ class ExternalSortOperatorTest {
     private static Stream<Arguments> resetProvider() {
         return Stream.of(Arguments.of("32,20,161", sortOp), Arguments.of("32,20,161", sortOp));
     }
+
+    @ParameterizedTest(name = "Sort Test {index}: pages {0}, threads {1}")
+    @CsvSource({"1, 1", "2, 1", "3, 1", "4, 1", "5, 1", "5, 2", "8, 4", "3, 4", "16, 3"})
+    void testSortMatchesInMemorySort(int pages, int threads) throws IOException {
+        List<int[]> expected = new ArrayList<>();
+        ScanOperator scan = new ScanOperator("Sailors");
+        Tuple t;
+        while ((t = scan.getNextTuple()) != null) expected.add(t.getValues());
+        expected.sort(Comparator.<int[]>comparingInt(r -> r[1])
+                .thenComparingInt(r -> r[0])
+                .thenComparingInt(r -> r[2]));
+
+        ExternalSortOperator sort = new ExternalSortOperator(
+                new ScanOperator("Sailors"), strOrderBysToOrderBys("Sailors.B"), pages, threads);
+        for (int[] row : expected) assertArrayEquals(row, sort.getNextTuple().getValues());
+        assertNull(sort.getNextTuple());
+    }
+
+    @Test
+    void testReplacementSelectionRuns() throws IOException {
+        List<OrderByElement> byE = strOrderBysToOrderBys("Boats.E");
+        ExternalSortOperator random = new ExternalSortOperator(new ScanOperator("Boats"), byE, 1);
+        int tuplesPerPage = 4096 / (3 * 4);
+        int fixedSizeRuns = (Catalog.STATS.numRows("Boats") + tuplesPerPage - 1) / tuplesPerPage;
+        assertTrue(random.initialRuns() <= fixedSizeRuns);
+
+        ExternalSortOperator sorted = new ExternalSortOperator(random, byE, 1);
+        assertEquals(1, sorted.initialRuns());
+    }
 }
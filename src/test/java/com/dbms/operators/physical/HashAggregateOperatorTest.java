@@ -0,0 +1,129 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/** Unit tests for the HashAggregateOperator */
+class HashAggregateOperatorTest {
+    private static List<Function> functions;
+    private static List<int[]> sailors;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/general/config.txt");
+        functions = new ArrayList<>();
+        for (String f :
+                new String[] {"COUNT(*)", "SUM(Sailors.A)", "MIN(Sailors.C)", "MAX(Sailors.C)", "AVG(Sailors.A)"}) {
+            functions.add((Function) strExpToExp(f));
+        }
+        sailors = new ArrayList<>();
+        ScanOperator scan = new ScanOperator("Sailors");
+        Tuple t;
+        while ((t = scan.getNextTuple()) != null) sailors.add(t.getValues());
+    }
+
+    /** @param rows rows of Sailors
+     * @return COUNT(*), SUM(A), MIN(C), MAX(C), AVG(A) of the rows */
+    private static int[] aggregate(List<int[]> rows) {
+        long sum = 0;
+        int min = rows.isEmpty() ? 0 : Integer.MAX_VALUE;
+        int max = rows.isEmpty() ? 0 : Integer.MIN_VALUE;
+        for (int[] r : rows) {
+            sum += r[0];
+            min = Math.min(min, r[2]);
+            max = Math.max(max, r[2]);
+        }
+        int avg = rows.isEmpty() ? 0 : (int) (sum / rows.size());
+        return new int[] {rows.size(), (int) sum, min, max, avg};
+    }
+
+    @ParameterizedTest(name = "Group By Test {index}: pages {0}")
+    @ValueSource(ints = {1, 2, 4, 64})
+    void testGroupByMatchesInMemoryAggregation(int pages) throws IOException {
+        Map<Integer, List<int[]>> groups = new TreeMap<>();
+        for (int[] r : sailors)
+            groups.computeIfAbsent(r[1], b -> new ArrayList<>()).add(r);
+        List<String> expected = new ArrayList<>();
+        for (Map.Entry<Integer, List<int[]>> e : groups.entrySet()) {
+            int[] aggs = aggregate(e.getValue());
+            int[] row = new int[aggs.length + 1];
+            row[0] = e.getKey();
+            System.arraycopy(aggs, 0, row, 1, aggs.length);
+            expected.add(Arrays.toString(row));
+        }
+        Collections.sort(expected);
+
+        List<Column> groupBy = List.of((Column) strExpToExp("Sailors.B"));
+        HashAggregateOperator agg = new HashAggregateOperator(new ScanOperator("Sailors"), groupBy, functions, pages);
+        assertEquals(
+                "[Sailors.B, COUNT(*), SUM(Sailors.A), MIN(Sailors.C), MAX(Sailors.C), AVG(Sailors.A)]",
+                agg.schema.toString());
+        List<String> actual = new ArrayList<>();
+        Tuple t;
+        while ((t = agg.getNextTuple()) != null) actual.add(Arrays.toString(t.getValues()));
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+
+        agg.reset();
+        List<String> batchRows = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = agg.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) batchRows.add(Arrays.toString(batch.getRow(i)));
+        }
+        Collections.sort(batchRows);
+        assertEquals(expected, batchRows);
+    }
+
+    @Test
+    void testWithoutGroupBy() throws IOException {
+        HashAggregateOperator agg = new HashAggregateOperator(new ScanOperator("Sailors"), List.of(), functions, 4);
+        assertArrayEquals(aggregate(sailors), agg.getNextTuple().getValues());
+        assertNull(agg.getNextTuple());
+    }
+
+    @Test
+    void testEmptyInputWithoutGroupBy() throws IOException {
+        PhysicalOperator empty = new SelectOperator(new ScanOperator("Sailors"), strExpToExp("Sailors.A > 100000"));
+        HashAggregateOperator agg = new HashAggregateOperator(empty, List.of(), functions, 4);
+        assertArrayEquals(new int[] {0, 0, 0, 0, 0}, agg.getNextTuple().getValues());
+        assertNull(agg.getNextTuple());
+
+        List<Column> groupBy = List.of((Column) strExpToExp("Sailors.B"));
+        empty.reset();
+        assertNull(new HashAggregateOperator(empty, groupBy, functions, 4).getNextTuple());
+    }
+
+    @Test
+    void testHavingOnAggregate() throws IOException {
+        List<Column> groupBy = List.of((Column) strExpToExp("Sailors.B"));
+        HashAggregateOperator agg = new HashAggregateOperator(new ScanOperator("Sailors"), groupBy, functions, 64);
+        SelectOperator having = new SelectOperator(agg, strExpToExp("COUNT(*) > 5"));
+        int expected = 0;
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (int[] r : sailors) counts.merge(r[1], 1, Integer::sum);
+        for (int c : counts.values()) if (c > 5) expected++;
+        int actual = 0;
+        Tuple t;
+        while ((t = having.getNextTuple()) != null) actual++;
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,71 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.getColumnNamesFromSelectItems;
+import static com.dbms.utils.Helpers.strSelectItemsToSelectItems;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Schema;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/** Unit tests for the HashDuplicateEliminationOperator */
+class HashDuplicateEliminationOperatorTest {
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/general/config.txt");
+    }
+
+    /** @param items comma-separated columns of Reserves to keep
+     * @return projection of Reserves on the columns */
+    private static PhysicalOperator project(String items) {
+        Schema s = new Schema(getColumnNamesFromSelectItems(strSelectItemsToSelectItems(items)));
+        return new ProjectOperator(new ScanOperator("Reserves"), s, false);
+    }
+
+    /** @param op operator to read
+     * @return rows of op, sorted */
+    private static List<String> sortedRows(PhysicalOperator op) {
+        List<String> rows = new ArrayList<>();
+        Tuple t;
+        while ((t = op.getNextTuple()) != null) rows.add(Arrays.toString(t.getValues()));
+        rows.sort(null);
+        return rows;
+    }
+
+    @ParameterizedTest(name = "Hash DupElim Test {index}: columns {0}, pages {1}")
+    @CsvSource(
+            delimiter = ';',
+            value = {
+                "Reserves.H; 64",
+                "Reserves.H; 2",
+                "Reserves.H; 1",
+                "Reserves.G, Reserves.H; 64",
+                "Reserves.G, Reserves.H; 3",
+                "Reserves.G, Reserves.H; 1"
+            })
+    void testMatchesSortedDuplicateElimination(String items, int pages) throws IOException {
+        List<String> expected =
+                sortedRows(new DuplicateEliminationOperator(new ExternalSortOperator(project(items), null, 5)));
+
+        HashDuplicateEliminationOperator distinct = new HashDuplicateEliminationOperator(project(items), pages);
+        assertEquals(expected, sortedRows(distinct));
+
+        distinct.reset();
+        List<String> batchRows = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = distinct.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) batchRows.add(Arrays.toString(batch.getRow(i)));
+        }
+        batchRows.sort(null);
+        assertEquals(expected, batchRows);
+    }
+}
@@ -0,0 +1,83 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/** Unit tests for the HashJoinOperator */
+class HashJoinOperatorTest {
+    private static Expression joinExp;
+    private static List<String> expected;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/general/config.txt");
+        joinExp = strExpToExp("Sailors.A = Reserves.G");
+        expected = collect(
+                new BlockNestedLoopJoinOperator(new ScanOperator("Sailors"), new ScanOperator("Reserves"), joinExp, 5));
+    }
+
+    /** @param op operator to drain
+     * @return sorted string forms of all rows returned by {@code op} */
+    private static List<String> collect(PhysicalOperator op) {
+        List<String> rows = new ArrayList<>();
+        Tuple t;
+        while ((t = op.getNextTuple()) != null) rows.add(t.toString());
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /** @param buildLeft true to build on Sailors, false to build on Reserves
+     * @return hash join of Sailors and Reserves on A = G */
+    private static HashJoinOperator join(boolean buildLeft) {
+        EqualsTo eq = (EqualsTo) joinExp;
+        return new HashJoinOperator(
+                new ScanOperator("Sailors"),
+                new ScanOperator("Reserves"),
+                Arrays.asList((Column) eq.getLeftExpression()),
+                Arrays.asList((Column) eq.getRightExpression()),
+                buildLeft);
+    }
+
+    @ParameterizedTest(name = "Next Tuple Test: build left {0}")
+    @ValueSource(booleans = {true, false})
+    void testGetNextTuple(boolean buildLeft) {
+        assertEquals(expected, collect(join(buildLeft)));
+    }
+
+    @ParameterizedTest(name = "Next Batch Test: build left {0}")
+    @ValueSource(booleans = {true, false})
+    void testGetNextBatch(boolean buildLeft) {
+        HashJoinOperator op = join(buildLeft);
+        List<String> rows = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = op.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) rows.add(batch.getTuple(i).toString());
+        }
+        Collections.sort(rows);
+        assertEquals(expected, rows);
+    }
+
+    @ParameterizedTest(name = "Reset Test: build left {0}")
+    @ValueSource(booleans = {true, false})
+    void testReset(boolean buildLeft) {
+        HashJoinOperator op = join(buildLeft);
+        collect(op);
+        op.reset();
+        assertEquals(expected, collect(op));
+    }
+}
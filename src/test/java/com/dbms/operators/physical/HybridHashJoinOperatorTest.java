@@ -0,0 +1,85 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/** Unit tests for the HybridHashJoinOperator */
+class HybridHashJoinOperatorTest {
+    private static Expression joinExp;
+    private static List<String> expected;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/general/config.txt");
+        joinExp = strExpToExp("Sailors.A = Reserves.G");
+        expected = collect(
+                new BlockNestedLoopJoinOperator(new ScanOperator("Sailors"), new ScanOperator("Reserves"), joinExp, 5));
+    }
+
+    /** @param op operator to drain
+     * @return sorted string forms of all rows returned by {@code op} */
+    private static List<String> collect(PhysicalOperator op) {
+        List<String> rows = new ArrayList<>();
+        Tuple t;
+        while ((t = op.getNextTuple()) != null) rows.add(t.toString());
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /** @param buildLeft true to build on Sailors, false to build on Reserves
+     * @param pages     number of buffer pages
+     * @return hybrid hash join of Sailors and Reserves on A = G */
+    private static HybridHashJoinOperator join(boolean buildLeft, int pages) throws IOException {
+        EqualsTo eq = (EqualsTo) joinExp;
+        return new HybridHashJoinOperator(
+                new ScanOperator("Sailors"),
+                new ScanOperator("Reserves"),
+                Arrays.asList((Column) eq.getLeftExpression()),
+                Arrays.asList((Column) eq.getRightExpression()),
+                buildLeft,
+                pages);
+    }
+
+    @ParameterizedTest(name = "Next Tuple Test: build left {0}, {1} pages")
+    @CsvSource({"true,1", "false,1", "true,2", "false,4", "true,100"})
+    void testGetNextTuple(boolean buildLeft, int pages) throws IOException {
+        assertEquals(expected, collect(join(buildLeft, pages)));
+    }
+
+    @ParameterizedTest(name = "Next Batch Test: build left {0}, {1} pages")
+    @CsvSource({"true,1", "false,2", "true,100"})
+    void testGetNextBatch(boolean buildLeft, int pages) throws IOException {
+        HybridHashJoinOperator op = join(buildLeft, pages);
+        List<String> rows = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = op.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) rows.add(batch.getTuple(i).toString());
+        }
+        Collections.sort(rows);
+        assertEquals(expected, rows);
+    }
+
+    @ParameterizedTest(name = "Reset Test: build left {0}, {1} pages")
+    @CsvSource({"true,1", "false,2"})
+    void testReset(boolean buildLeft, int pages) throws IOException {
+        HybridHashJoinOperator op = join(buildLeft, pages);
+        op.getNextTuple();
+        op.reset();
+        assertEquals(expected, collect(op));
+    }
+}
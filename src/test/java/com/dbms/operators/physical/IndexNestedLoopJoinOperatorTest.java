@@ -0,0 +1,83 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.dbms.index.Index;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/** Unit tests for the IndexNestedLoopJoinOperator */
+class IndexNestedLoopJoinOperatorTest {
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/index/config.txt");
+    }
+
+    /** @param op operator to drain
+     * @return sorted string forms of all rows returned by {@code op} */
+    private static List<String> collect(PhysicalOperator op) {
+        List<String> rows = new ArrayList<>();
+        Tuple t;
+        while ((t = op.getNextTuple()) != null) rows.add(t.toString());
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /** @param table inner table
+     * @return the index on the inner table */
+    private static Index index(String table) {
+        return Catalog.INDEXES.get(table).get(0);
+    }
+
+    @ParameterizedTest(name = "Join Test: {0} on {1}")
+    @CsvSource({"Boats,Reserves.H = Boats.E", "Sailors,Reserves.G = Sailors.A"})
+    void testGetNextTuple(String inner, String condition) throws IOException {
+        EqualsTo exp = (EqualsTo) strExpToExp(condition);
+        Column outerColumn = (Column) exp.getLeftExpression();
+        Column innerColumn = (Column) exp.getRightExpression();
+        List<String> expected = collect(new HashJoinOperator(
+                new ScanOperator("Reserves"),
+                new ScanOperator(inner),
+                Arrays.asList(outerColumn),
+                Arrays.asList(innerColumn),
+                false));
+
+        IndexNestedLoopJoinOperator op = new IndexNestedLoopJoinOperator(
+                new ScanOperator("Reserves"), new IndexScanOperator(inner, index(inner), null, null), outerColumn, exp);
+        assertEquals(expected, collect(op));
+        op.reset();
+        assertEquals(expected, collect(op));
+    }
+
+    @ParameterizedTest(name = "Residual Condition Test: {0}")
+    @CsvSource({"Reserves.H = Boats.E AND Boats.D < 5000"})
+    void testResidualCondition(String condition) throws IOException {
+        EqualsTo eq = (EqualsTo) strExpToExp("Reserves.H = Boats.E");
+        List<String> expected = collect(new SelectOperator(
+                new HashJoinOperator(
+                        new ScanOperator("Reserves"),
+                        new ScanOperator("Boats"),
+                        Arrays.asList((Column) eq.getLeftExpression()),
+                        Arrays.asList((Column) eq.getRightExpression()),
+                        false),
+                strExpToExp("Boats.D < 5000")));
+        IndexNestedLoopJoinOperator op = new IndexNestedLoopJoinOperator(
+                new ScanOperator("Reserves"),
+                new IndexScanOperator("Boats", index("Boats"), null, null),
+                (Column) eq.getLeftExpression(),
+                strExpToExp(condition));
+        assertEquals(expected, collect(op));
+    }
+}
@@ -4,12 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import com.dbms.index.Index;
+import com.dbms.utils.Attribute;
 import com.dbms.utils.Catalog;
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -68,4 +70,14 @@ class IndexScanOperatorTest {
 
         return args.stream();
     }
+
+    @Test
+    void testSortOrder() throws IOException {
+        assertEquals(
+                List.of(Attribute.bundle("Boats", "E")),
+                new IndexScanOperator("Boats", boatsIndex, null, null).sortOrder());
+        Index sailorsIndex = Catalog.INDEXES.get("Sailors").get(0);
+        IndexScanOperator clustered = new IndexScanOperator("Sailors", sailorsIndex, 10, 20);
+        assertEquals(clustered.schema.get(), clustered.sortOrder());
+    }
 }
@@ -0,0 +1,63 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/** Unit tests for the LimitOperator */
+class LimitOperatorTest {
+    private static List<int[]> selected;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/general/config.txt");
+        selected = new ArrayList<>();
+        PhysicalOperator select = selectOp();
+        Tuple t;
+        while ((t = select.getNextTuple()) != null) selected.add(t.getValues());
+    }
+
+    /** @return selection on Sailors whose batches have deselected rows */
+    private static PhysicalOperator selectOp() {
+        return new SelectOperator(new ScanOperator("Sailors"), strExpToExp("Sailors.B > 50"));
+    }
+
+    @ParameterizedTest(name = "Limit Test {index}: limit {0}, offset {1}")
+    @CsvSource({
+        "0, 0",
+        "1, 0",
+        "10, 3",
+        "600, 0",
+        "600, 700",
+        "2000, 0",
+        "9223372036854775807, 5",
+        "9223372036854775807, 9223372036854775807"
+    })
+    void testTuplesAndBatches(long limit, long offset) {
+        LimitOperator limitOp = new LimitOperator(selectOp(), limit, offset);
+        int start = (int) Math.min(selected.size(), offset);
+        int end = (int) Math.min(selected.size(), start + Math.min(limit, selected.size()));
+        for (int i = start; i < end; i++)
+            assertArrayEquals(selected.get(i), limitOp.getNextTuple().getValues());
+        assertNull(limitOp.getNextTuple());
+
+        limitOp.reset();
+        int i = start;
+        TupleBatch batch;
+        while ((batch = limitOp.getNextBatch()) != null) {
+            for (int r = 0; r < batch.count(); r++) assertArrayEquals(selected.get(i++), batch.getRow(r));
+        }
+        assertEquals(end, i);
+    }
+}
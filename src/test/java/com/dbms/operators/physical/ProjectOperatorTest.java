@@ -8,12 +8,15 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 
 import com.dbms.utils.Catalog;
 import com.dbms.utils.Schema;
+import com.dbms.utils.TupleBatch;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.statement.select.SelectItem;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -54,6 +57,20 @@ class ProjectOperatorTest {
         assertEquals(expected, actual.getNextTuple().toString());
     }
 
+    @Test
+    void testGetNextBatch() {
+        Schema s = new Schema(getColumnNamesFromSelectItems(items));
+        ProjectOperator op = new ProjectOperator(new SelectOperator(new ScanOperator("Boats"), exp), s, false);
+        List<String> rows = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = op.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) rows.add(batch.getTuple(i).toString());
+        }
+        assertEquals(List.of("191,32", "178,32", "66,32", "84,32", "129,32", "161,32", "122,32", "138,32"), rows);
+        op.reset();
+        assertEquals("191,32", op.getNextBatch().getTuple(0).toString());
+    }
+
     private static Stream<Arguments> nextTupleProvider() {
         return Stream.of(
                 Arguments.of("191,32", projectOp.getNextTuple().toString()),
@@ -0,0 +1,105 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static com.dbms.utils.Helpers.strOrderBysToOrderBys;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbms.index.Index;
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.schema.Column;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the SortAggregateOperator */
+class SortAggregateOperatorTest {
+    private static Index boatsIndex;
+    private static List<Function> functions;
+    private static List<Column> byE;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/index/config.txt");
+        boatsIndex = Catalog.INDEXES.get("Boats").get(0);
+        functions = new ArrayList<>();
+        for (String f : new String[] {"COUNT(*)", "SUM(Boats.D)", "MIN(Boats.F)", "MAX(Boats.F)", "AVG(Boats.F)"}) {
+            functions.add((Function) strExpToExp(f));
+        }
+        byE = List.of((Column) strExpToExp("Boats.E"));
+    }
+
+    /** @param op operator to read by batches
+     * @return rows of op, in order */
+    private static List<String> batchRows(PhysicalOperator op) {
+        List<String> rows = new ArrayList<>();
+        TupleBatch batch;
+        while ((batch = op.getNextBatch()) != null) {
+            for (int i = 0; i < batch.count(); i++) rows.add(Arrays.toString(batch.getRow(i)));
+        }
+        return rows;
+    }
+
+    /** @return groups of Boats on E computed by a hash aggregate, sorted on E */
+    private static List<String> expectedGroups() throws IOException {
+        List<int[]> groups = new ArrayList<>();
+        HashAggregateOperator hash = new HashAggregateOperator(new ScanOperator("Boats"), byE, functions, 64);
+        Tuple t;
+        while ((t = hash.getNextTuple()) != null) groups.add(t.getValues());
+        groups.sort((a, b) -> Integer.compare(a[0], b[0]));
+        List<String> rows = new ArrayList<>();
+        for (int[] g : groups) rows.add(Arrays.toString(g));
+        return rows;
+    }
+
+    @Test
+    void testOverSortedChild() throws IOException {
+        ExternalSortOperator sort =
+                new ExternalSortOperator(new ScanOperator("Boats"), strOrderBysToOrderBys("Boats.E"), 5);
+        SortAggregateOperator agg = new SortAggregateOperator(sort, byE, functions);
+        List<String> expected = expectedGroups();
+        assertEquals(expected, batchRows(agg));
+        agg.reset();
+        List<String> tuples = new ArrayList<>();
+        Tuple t;
+        while ((t = agg.getNextTuple()) != null) tuples.add(Arrays.toString(t.getValues()));
+        assertEquals(expected, tuples);
+        assertEquals(agg.schema.get(), agg.sortOrder());
+    }
+
+    @Test
+    void testOverIndexScan() throws IOException {
+        IndexScanOperator scan = new IndexScanOperator("Boats", boatsIndex, null, null);
+        assertTrue(scan.isGroupedOn(List.of(Attribute.bundle("Boats", "E"))));
+        assertFalse(new ScanOperator("Boats").isGroupedOn(List.of(Attribute.bundle("Boats", "E"))));
+        assertEquals(expectedGroups(), batchRows(new SortAggregateOperator(scan, byE, functions)));
+    }
+
+    @Test
+    void testWithoutGroupBy() throws IOException {
+        List<int[]> whole = new ArrayList<>();
+        HashAggregateOperator hash = new HashAggregateOperator(new ScanOperator("Boats"), List.of(), functions, 4);
+        whole.add(hash.getNextTuple().getValues());
+        SortAggregateOperator agg = new SortAggregateOperator(new ScanOperator("Boats"), List.of(), functions);
+        assertArrayEquals(whole.get(0), agg.getNextTuple().getValues());
+        assertNull(agg.getNextTuple());
+
+        PhysicalOperator empty = new SelectOperator(new ScanOperator("Boats"), strExpToExp("Boats.D < 0"));
+        agg = new SortAggregateOperator(empty, List.of(), functions);
+        assertArrayEquals(new int[] {0, 0, 0, 0, 0}, agg.getNextTuple().getValues());
+        assertNull(agg.getNextTuple());
+        empty.reset();
+        assertEquals(Collections.emptyList(), batchRows(new SortAggregateOperator(empty, byE, functions)));
+    }
+}
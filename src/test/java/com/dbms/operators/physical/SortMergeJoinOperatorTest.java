@@ -0,0 +1,93 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbms.utils.Attribute;
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/** Unit tests for the SortMergeJoinOperator */
+class SortMergeJoinOperatorTest {
+    private static Column sailorsA;
+    private static Column reservesG;
+    private static List<String> expected;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/index/config.txt");
+        EqualsTo eq = (EqualsTo) strExpToExp("Sailors.A = Reserves.G");
+        sailorsA = (Column) eq.getLeftExpression();
+        reservesG = (Column) eq.getRightExpression();
+        expected = collect(new HashJoinOperator(
+                new ScanOperator("Sailors"),
+                new ScanOperator("Reserves"),
+                Arrays.asList(sailorsA),
+                Arrays.asList(reservesG),
+                false));
+    }
+
+    /** @param op operator to drain
+     * @return sorted string forms of all rows returned by {@code op} */
+    private static List<String> collect(PhysicalOperator op) {
+        List<String> rows = new ArrayList<>();
+        Tuple t;
+        while ((t = op.getNextTuple()) != null) rows.add(t.toString());
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /** @param table table to scan
+     * @param key   column to sort on
+     * @return external sort of the table on the column */
+    private static ExternalSortOperator sorted(String table, Column key) throws IOException {
+        OrderByElement orderBy = new OrderByElement();
+        orderBy.setExpression(key);
+        return new ExternalSortOperator(new ScanOperator(table), Arrays.asList(orderBy), 3);
+    }
+
+    /** @param indexed true to read both children from their indexes on the join columns, false to
+     *                sort them
+     * @return SMJ of Sailors and Reserves on A = G */
+    private static SortMergeJoinOperator join(boolean indexed) throws IOException {
+        PhysicalOperator left = indexed
+                ? new IndexScanOperator(
+                        "Sailors", Catalog.INDEXES.get("Sailors").get(0), null, null)
+                : sorted("Sailors", sailorsA);
+        PhysicalOperator right = indexed
+                ? new IndexScanOperator(
+                        "Reserves", Catalog.INDEXES.get("Reserves").get(0), null, null)
+                : sorted("Reserves", reservesG);
+        return new SortMergeJoinOperator(left, right, Arrays.asList(sailorsA), Arrays.asList(reservesG));
+    }
+
+    @ParameterizedTest(name = "Next Tuple Test: indexed {0}")
+    @ValueSource(booleans = {false, true})
+    void testGetNextTuple(boolean indexed) throws IOException {
+        SortMergeJoinOperator op = join(indexed);
+        assertEquals(expected, collect(op));
+        op.reset();
+        assertEquals(expected, collect(op));
+    }
+
+    @ParameterizedTest(name = "Sort Order Test: indexed {0}")
+    @ValueSource(booleans = {false, true})
+    void testSortOrder(boolean indexed) throws IOException {
+        SortMergeJoinOperator op = join(indexed);
+        // the output is sorted on both join columns, which are equal in every row
+        assertTrue(op.isSortedOn(Arrays.asList(Attribute.fromColumn(sailorsA))));
+        assertTrue(op.isSortedOn(Arrays.asList(Attribute.fromColumn(reservesG))));
+    }
+}
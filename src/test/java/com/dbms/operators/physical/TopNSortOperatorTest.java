@@ -0,0 +1,62 @@
+package com.dbms.operators.physical;
+
+import static com.dbms.utils.Helpers.strOrderBysToOrderBys;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.dbms.utils.Catalog;
+import com.dbms.utils.Tuple;
+import com.dbms.utils.TupleBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/** Unit tests for the TopNSortOperator */
+class TopNSortOperatorTest {
+    private static List<OrderByElement> orderBys;
+    private static List<int[]> sorted;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/general/config.txt");
+        orderBys = strOrderBysToOrderBys("Sailors.B");
+        sorted = new ArrayList<>();
+        ExternalSortOperator sort = new ExternalSortOperator(new ScanOperator("Sailors"), orderBys, 5);
+        Tuple t;
+        while ((t = sort.getNextTuple()) != null) sorted.add(t.getValues());
+    }
+
+    @ParameterizedTest(name = "Top-N Test {index}: limit {0}, offset {1}")
+    @CsvSource({"0, 0", "1, 0", "10, 0", "10, 5", "1000, 0", "5, 995", "2000, 0", "10, 2000"})
+    void testMatchesExternalSort(int limit, int offset) {
+        TopNSortOperator topN = new TopNSortOperator(new ScanOperator("Sailors"), orderBys, limit, offset);
+        int end = Math.min(sorted.size(), offset + limit);
+        for (int i = offset; i < end; i++)
+            assertArrayEquals(sorted.get(i), topN.getNextTuple().getValues());
+        assertNull(topN.getNextTuple());
+
+        topN.reset();
+        int i = Math.min(offset, end);
+        TupleBatch batch;
+        while ((batch = topN.getNextBatch()) != null) {
+            for (int r = 0; r < batch.count(); r++) assertArrayEquals(sorted.get(i++), batch.getRow(r));
+        }
+        assertEquals(end, i);
+    }
+
+    @Test
+    void testReset() {
+        TopNSortOperator topN = new TopNSortOperator(new ScanOperator("Sailors"), orderBys, 3, 1);
+        int[] first = topN.getNextTuple().getValues();
+        topN.getNextTuple();
+        topN.reset();
+        assertArrayEquals(first, topN.getNextTuple().getValues());
+        assertArrayEquals(sorted.get(1), first);
+    }
+}
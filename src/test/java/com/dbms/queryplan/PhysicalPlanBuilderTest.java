@@ -0,0 +1,177 @@
+package com.dbms.queryplan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.dbms.utils.Catalog;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.stream.Stream;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/** Unit tests for the sorts the PhysicalPlanBuilder adds or leaves out and the joins it chooses */
+class PhysicalPlanBuilderTest {
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/index/config.txt");
+    }
+
+    /** @param query SQL query
+     * @return physical plan of the query, one operator per line */
+    private static String plan(String query) throws IOException, JSQLParserException {
+        PhysicalPlanBuilder ppb = new PhysicalPlanBuilder();
+        new LogicalPlanBuilder(CCJSqlParserUtil.parse(query)).root.accept(ppb);
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        ppb.physOp.write(pw, 0);
+        pw.flush();
+        return sw.toString().replace(System.lineSeparator(), "\n");
+    }
+
+    @ParameterizedTest(name = "Sort Test {index}: {0}")
+    @MethodSource("sortProvider")
+    void testSorts(String query, String expected) throws IOException, JSQLParserException {
+        assertEquals(expected, plan(query));
+    }
+
+    private static Stream<Arguments> sortProvider() {
+        return Stream.of(
+                // Sailors is clustered on A, so its index scan is already sorted
+                Arguments.of(
+                        "SELECT * FROM Sailors WHERE Sailors.A < 100 ORDER BY Sailors.A",
+                        "IndexScan[Sailors,A,null,99]\n"),
+                Arguments.of(
+                        "SELECT * FROM Sailors WHERE Sailors.A < 100 ORDER BY Sailors.A LIMIT 3",
+                        "Limit[3]\n-IndexScan[Sailors,A,null,99]\n"),
+                Arguments.of(
+                        "SELECT Sailors.A, COUNT(*) FROM Sailors WHERE Sailors.A < 100 GROUP BY Sailors.A "
+                                + "ORDER BY Sailors.A",
+                        "Project[Sailors.A, COUNT(*)]\n-SortAggregate[Sailors.A][COUNT(*)]\n"
+                                + "--IndexScan[Sailors,A,null,99]\n"),
+                Arguments.of(
+                        "SELECT DISTINCT Sailors.A, Sailors.B FROM Sailors WHERE Sailors.A < 100 ORDER BY Sailors.A",
+                        "DupElim\n-Project[Sailors.A, Sailors.B]\n--IndexScan[Sailors,A,null,99]\n"),
+                // ties on B would be reordered
+                Arguments.of(
+                        "SELECT * FROM Sailors WHERE Sailors.A < 100 ORDER BY Sailors.A, Sailors.C",
+                        "ExternalSort[Sailors.A, Sailors.C]\n-IndexScan[Sailors,A,null,99]\n"),
+                // Boats is not clustered on E, so ties on E are in no particular order
+                Arguments.of(
+                        "SELECT * FROM Boats WHERE Boats.E < 10 ORDER BY Boats.E",
+                        "ExternalSort[Boats.E]\n-IndexScan[Boats,E,null,9]\n"));
+    }
+
+    /** Index scans on Sailors.A are already sorted on the join column, so SMJ adds no sorts and is
+     * cheaper than a hash join that spills; the inner SMJ's output keeps the order for the outer one */
+    @Test
+    void testSortedJoinInputs() throws IOException, JSQLParserException {
+        int hjPages = Catalog.HJPages;
+        Catalog.HJPages = 3;
+        try {
+            assertEquals(
+                    "SMJ[S1.A = S2.A] (cost=165.7, rows=4699)\n-IndexScan[Sailors,A,null,2999]\n"
+                            + "-IndexScan[Sailors,A,null,2999]\n",
+                    plan("SELECT * FROM Sailors S1, Sailors S2 WHERE S1.A = S2.A AND S1.A < 3000 AND S2.A < 3000"));
+            assertEquals(
+                    "SMJ[S2.A = S1.A] (cost=345.5, rows=7350)\n-SMJ[S2.A = S3.A] (cost=165.7, rows=4699)\n"
+                            + "--IndexScan[Sailors,A,null,2999]\n--IndexScan[Sailors,A,null,2999]\n"
+                            + "-IndexScan[Sailors,A,null,2999]\n",
+                    plan("SELECT * FROM Sailors S1, Sailors S2, Sailors S3 WHERE S1.A = S2.A AND S2.A = S3.A "
+                            + "AND S1.A < 3000"));
+        } finally {
+            Catalog.HJPages = hjPages;
+        }
+    }
+
+    @ParameterizedTest(name = "Join Test {index}: {0}")
+    @MethodSource("joinProvider")
+    void testJoins(String query, String expected) throws IOException, JSQLParserException {
+        assertEquals(expected, plan(query));
+    }
+
+    private static Stream<Arguments> joinProvider() {
+        return Stream.of(
+                Arguments.of(
+                        "SELECT * FROM Sailors, Reserves WHERE Sailors.A = Reserves.G",
+                        "HJ[Sailors.A = Reserves.G] (cost=405.2, rows=15642)\n-TableScan[Sailors]\n"
+                                + "-TableScan[Reserves]\n"),
+                // only BNLJ computes a join that is not an equijoin
+                Arguments.of(
+                        "SELECT * FROM Sailors, Reserves WHERE Sailors.A < Reserves.G",
+                        "BNLJ[Sailors.A < Reserves.G] (cost=1250136.7, rows=100000000)\n-TableScan[Reserves]\n"
+                                + "-TableScan[Sailors]\n"),
+                // a few outer rows probe the index on Boats.E instead of reading all of Boats
+                Arguments.of(
+                        "SELECT * FROM Reserves, Boats WHERE Reserves.H = Boats.E AND Reserves.G = 5",
+                        "INLJ[Reserves.H = Boats.E] (cost=24.6, rows=2)\n-IndexScan[Reserves,G,5,5]\n"
+                                + "-IndexScan[Boats,E,null,null]\n"),
+                Arguments.of(
+                        "SELECT * FROM Sailors, Reserves, Boats WHERE Sailors.A = Reserves.G AND Reserves.H = Boats.D",
+                        "HJ[Reserves.G = Sailors.A] (cost=932.7, rows=24338)\n"
+                                + "-HJ[Reserves.H = Boats.D] (cost=404.4, rows=15559)\n--TableScan[Reserves]\n"
+                                + "--TableScan[Boats]\n-TableScan[Sailors]\n"),
+                // the two filtered joins are computed separately, then joined
+                Arguments.of(
+                        "SELECT * FROM Sailors S1, Reserves R1, Sailors S2, Reserves R2 WHERE S1.A = R1.G AND "
+                                + "S2.A = R2.G AND R1.H = R2.H AND S1.B < 500 AND S2.B < 500",
+                        "HJ[R2.H = R1.H] (cost=347.8, rows=800)\n-HJ[R2.G = S2.A] (cost=161.9, rows=800)\n"
+                                + "--TableScan[Reserves]\n--Select[S2.B <= 499]\n---TableScan[Sailors]\n"
+                                + "-HJ[S1.A = R1.G] (cost=161.9, rows=800)\n--Select[S1.B <= 499]\n"
+                                + "---TableScan[Sailors]\n--TableScan[Reserves]\n"),
+                // Boats joins nothing, so it is joined last by a cross product
+                Arguments.of(
+                        "SELECT * FROM Sailors, Reserves, Boats WHERE Sailors.A = Reserves.G",
+                        "BNLJ[] (cost=1956137.6, rows=156421086)\n"
+                                + "-HJ[Sailors.A = Reserves.G] (cost=405.2, rows=15642)\n--TableScan[Sailors]\n"
+                                + "--TableScan[Reserves]\n-TableScan[Boats]\n"));
+    }
+
+    /** Above Catalog.DPTables tables, the join order is greedy: here it joins the cheapest pair of
+     * plans first and finds the same plan as dynamic programming */
+    @Test
+    void testGreedyJoinOrder() throws IOException, JSQLParserException {
+        int dpTables = Catalog.DPTables;
+        Catalog.DPTables = 2;
+        try {
+            assertEquals(
+                    "HJ[Reserves.G = Sailors.A] (cost=932.7, rows=24338)\n"
+                            + "-HJ[Reserves.H = Boats.D] (cost=404.4, rows=15559)\n--TableScan[Reserves]\n"
+                            + "--TableScan[Boats]\n-TableScan[Sailors]\n",
+                    plan(
+                            "SELECT * FROM Sailors, Reserves, Boats WHERE Sailors.A = Reserves.G AND Reserves.H = Boats.D"));
+        } finally {
+            Catalog.DPTables = dpTables;
+        }
+    }
+
+    /** @param n number of tables
+     * @return query joining n copies of Sailors in a chain on A */
+    private static String chain(int n) {
+        StringBuilder from = new StringBuilder("S0");
+        StringBuilder where = new StringBuilder();
+        for (int k = 1; k < n; k++) {
+            from.append(", Sailors S").append(k);
+            where.append(k > 1 ? " AND " : "").append("S" + (k - 1) + ".A = S" + k + ".A");
+        }
+        return "SELECT * FROM Sailors " + from + " WHERE " + where;
+    }
+
+    /** A subset of the tables is a long, so a join of 64 tables is planned and one of 65 is refused
+     * as a query error instead of its 65th table aliasing the first */
+    @Test
+    void testJoinOf64Tables() throws IOException, JSQLParserException {
+        String plan = plan(chain(64));
+        assertEquals(64, plan.split("TableScan\\[Sailors\\]", -1).length - 1);
+        assertTrue(plan.contains("S63.A"));
+        assertThrows(IllegalArgumentException.class, () -> plan(chain(65)));
+    }
+}
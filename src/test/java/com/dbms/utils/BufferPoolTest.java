@@ -0,0 +1,101 @@
+package com.dbms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the BufferPool */
+class BufferPoolTest {
+    private static String boats;
+    private BufferPool pool;
+
+    @BeforeAll
+    public static void setup() throws IOException {
+        Catalog.init("input/general/config.txt");
+        boats = Catalog.pathToTable("Boats");
+    }
+
+    @BeforeEach
+    void createPool() {
+        pool = new BufferPool(2);
+    }
+
+    @Test
+    void testPinCountsHitsAndMisses() throws IOException {
+        BufferPool.Frame first = pool.pin(boats, 0);
+        assertEquals(3, first.data().getInt(0));
+        assertEquals(12, first.data().getInt(8));
+        pool.unpin(first);
+        assertSame(first, pool.pin(boats, 0));
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        pool.resetCounters();
+        assertEquals(0, pool.getHits());
+        assertEquals(0, pool.getMisses());
+    }
+
+    @Test
+    void testPinPastEndOfFile() throws IOException {
+        BufferPool.Frame first = pool.pin(boats, 0);
+        pool.unpin(first);
+        pool.unpin(pool.pin(boats, 1));
+        assertNull(pool.pin(boats, 3));
+        assertEquals(0, pool.getHits());
+        assertEquals(2, pool.getMisses());
+        // the missing page did not evict a cached one
+        assertSame(first, pool.pin(boats, 0));
+    }
+
+    @Test
+    void testEvictsOnlyUnpinnedFrames() throws IOException {
+        BufferPool.Frame pinned = pool.pin(boats, 0);
+        pool.unpin(pool.pin(boats, 1));
+        pool.unpin(pool.pin(boats, 2));
+        assertSame(pinned, pool.pin(boats, 0));
+        assertEquals(1, pool.getHits());
+        pool.pin(boats, 1);
+        assertEquals(4, pool.getMisses());
+    }
+
+    @Test
+    void testEveryFramePinned() throws IOException {
+        BufferPool.Frame first = pool.pin(boats, 0);
+        BufferPool.Frame second = pool.pin(boats, 1);
+        BufferPool.Frame third = pool.pin(boats, 2);
+        assertNotSame(first, third);
+        assertNotSame(second, third);
+        assertEquals(3, third.data().getInt(0));
+        pool.unpin(third);
+        pool.pin(boats, 2);
+        assertEquals(4, pool.getMisses());
+    }
+
+    @Test
+    void testPutAndInvalidate() throws IOException {
+        ByteBuffer page = ByteBuffer.allocate(4096);
+        page.putInt(0, 42);
+        pool.put(boats, 0, page);
+        BufferPool.Frame frame = pool.pin(boats, 0);
+        assertEquals(42, frame.data().getInt(0));
+        assertEquals(1, pool.getHits());
+        pool.unpin(frame);
+        pool.invalidate(boats);
+        assertEquals(3, pool.pin(boats, 0).data().getInt(0));
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    void testMap() throws IOException {
+        ByteBuffer mapping = pool.map(boats);
+        assertEquals(3 * 4096, mapping.limit());
+        assertEquals(3, mapping.getInt(2 * 4096));
+        assertEquals(0, pool.getMisses());
+    }
+}
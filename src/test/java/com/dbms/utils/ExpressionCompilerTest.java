@@ -0,0 +1,57 @@
+package com.dbms.utils;
+
+import static com.dbms.utils.Helpers.strExpToExp;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/** Unit tests for the ExpressionCompiler */
+class ExpressionCompilerTest {
+    private static Schema t = Schema.from("t", Arrays.asList(Attribute.bundle("t", "A"), Attribute.bundle("t", "B")));
+    private static Schema u = Schema.from("u", Arrays.asList(Attribute.bundle("u", "C")));
+    private static int[] tRow = {3, 10};
+    private static int[] uRow = {10};
+
+    @ParameterizedTest(name = "Selection Test {index}: expression {0} should evaluate to {1} ")
+    @MethodSource("selectionProvider")
+    void testSelection(String expression, boolean expected) {
+        Predicate p = ExpressionCompiler.compile(strExpToExp(expression), t);
+        assertEquals(expected, p.test(tRow, null));
+    }
+
+    @ParameterizedTest(name = "Join Test {index}: expression {0} should evaluate to {1} ")
+    @MethodSource("joinProvider")
+    void testJoin(String expression, boolean expected) {
+        Predicate p = ExpressionCompiler.compile(strExpToExp(expression), t, u);
+        assertEquals(expected, p.test(tRow, uRow));
+    }
+
+    private static Stream<Arguments> selectionProvider() {
+        return Stream.of(
+                Arguments.of("4<5", true),
+                Arguments.of("5<4", false),
+                Arguments.of("4<=4", true),
+                Arguments.of("5=6", false),
+                Arguments.of("5!=6", true),
+                Arguments.of("5>=6", false),
+                Arguments.of("5>4", true),
+                Arguments.of("4>3 AND 4<3", false),
+                Arguments.of("5>3 AND 12=12 AND 3>2 AND 4>1", true),
+                Arguments.of("t.A=3 AND t.B=10", true),
+                Arguments.of("t.A=t.B", false),
+                Arguments.of("t.A<t.B AND 1=1", true),
+                Arguments.of("t.B>=10 AND t.A!=3", false));
+    }
+
+    private static Stream<Arguments> joinProvider() {
+        return Stream.of(
+                Arguments.of("t.B=u.C", true),
+                Arguments.of("t.A=u.C", false),
+                Arguments.of("u.C>t.A AND t.B<=u.C", true),
+                Arguments.of("u.C>t.A AND t.B<u.C", false));
+    }
+}
@@ -21,7 +21,7 @@ class ExpressionParseVisitorTest {
 
     @BeforeAll
     public static void setup() {
-        epv.currentTuple = new Tuple(Schema.from("t", Arrays.asList(tA, tB)), Arrays.asList(3, 10));
+        epv.currentTuple = new Tuple(Schema.from("t", Arrays.asList(tA, tB)), new int[] {3, 10});
     }
 
     @ParameterizedTest(name = "Expression Visitor Test {index}: expression {0} should evaluate to {1} ")
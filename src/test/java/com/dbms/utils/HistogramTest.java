@@ -0,0 +1,45 @@
+package com.dbms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the Histogram */
+class HistogramTest {
+
+    @Test
+    void testUniform() {
+        int[] sample = new int[1000];
+        for (int i = 0; i < sample.length; i++) sample[i] = i;
+        Histogram h = Histogram.build(sample, sample.length, 0, 999);
+        assertEquals(Histogram.BUCKETS, h.buckets());
+        assertEquals(1, h.selectivity(null, null), 1e-9);
+        assertEquals(0.25, h.selectivity(null, 249), 1e-9);
+        assertEquals(0.1, h.selectivity(100, 199), 1e-9);
+        assertEquals(0, h.selectivity(1000, null), 1e-9);
+        assertEquals(0, h.selectivity(5, 4), 1e-9);
+    }
+
+    @Test
+    void testSkewed() {
+        // half of the rows hold 7, the others are spread over [0, 10000]
+        Random random = new Random(1);
+        int[] sample = new int[4096];
+        for (int i = 0; i < sample.length; i++) sample[i] = i % 2 == 0 ? 7 : random.nextInt(10001);
+        Histogram h = Histogram.build(sample, sample.length, 0, 10000);
+        assertEquals(0.5, h.selectivity(7, 7), 0.01);
+        assertEquals(0.5 * 0.5, h.selectivity(5000, null), 0.02);
+        assertEquals(0.5 * 0.001, h.selectivity(100, 109), 0.001);
+    }
+
+    @Test
+    void testToStringAndParse() {
+        int[] sample = {5, 1, 3, 3, 3, 9, 2};
+        Histogram h = Histogram.build(sample, sample.length, 0, 10);
+        Histogram parsed = Histogram.parse(("x " + h).split(" "), 1);
+        assertEquals(h.toString(), parsed.toString());
+        assertEquals(h.selectivity(3, 3), parsed.selectivity(3, 3), 1e-9);
+        assertEquals(1, Histogram.build(new int[0], 0, 4, 8).selectivity(4, 8), 1e-9);
+    }
+}
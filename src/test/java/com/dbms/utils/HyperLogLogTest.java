@@ -0,0 +1,23 @@
+package com.dbms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for the HyperLogLog sketch */
+class HyperLogLogTest {
+
+    @Test
+    void testFewValues() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 10000; i++) hll.add(i % 100);
+        assertEquals(100, hll.estimate(), 5);
+    }
+
+    @Test
+    void testManyValues() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 1_000_000; i++) hll.add(i * 31);
+        assertEquals(1_000_000, hll.estimate(), 1_000_000 * 0.05);
+    }
+}
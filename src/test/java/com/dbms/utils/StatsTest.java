@@ -0,0 +1,120 @@
+package com.dbms.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Unit tests for saving and reusing the Stats */
+class StatsTest {
+    private static final Path GENERAL = Paths.get("input", "general");
+
+    @TempDir
+    Path dir;
+
+    private String config;
+
+    @BeforeEach
+    void copyDatabase() throws IOException {
+        Path input = dir.resolve("input");
+        try (Stream<Path> files = Files.walk(GENERAL.resolve("db"))) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (p.endsWith(Stats.FINGERPRINTS_FILE) || p.endsWith(Stats.HISTOGRAMS_FILE)) continue;
+                Path target = input.resolve(GENERAL.relativize(p).toString());
+                if (Files.isDirectory(p)) Files.createDirectories(target);
+                else Files.copy(p, target, StandardCopyOption.COPY_ATTRIBUTES);
+            }
+        }
+        Files.createDirectories(input.resolve("db").resolve("indexes"));
+        Path configFile = dir.resolve("config.txt");
+        Files.write(configFile, List.of(input.toString(), dir.resolve("output").toString(), dir.toString()));
+        config = configFile.toString();
+    }
+
+    @Test
+    void testReusesSavedStats() throws IOException {
+        Catalog.init(config);
+        assertEquals(3, Catalog.STATS.scanned());
+        int boats = Catalog.STATS.numRows("Boats");
+        Attribute d = Attribute.bundle("Boats", "D");
+        int distinct = Catalog.STATS.baseTableV(d);
+        double selectivity = Catalog.STATS.getReductionFactor(d, 10, 50);
+        Catalog.init(config);
+        assertEquals(0, Catalog.STATS.scanned());
+        assertEquals(boats, Catalog.STATS.numRows("Boats"));
+        assertEquals(distinct, Catalog.STATS.baseTableV(d));
+        assertEquals(selectivity, Catalog.STATS.getReductionFactor(d, 10, 50), 1e-9);
+        assertEquals(
+                Files.readAllLines(GENERAL.resolve("db").resolve(Stats.STATS_FILE)),
+                Files.readAllLines(dir.resolve("input").resolve("db").resolve(Stats.STATS_FILE)));
+    }
+
+    /** Saved stats are only read when a table's stats are first used, so a table whose saved line
+     * went missing after startup is scanned then */
+    @Test
+    void testReadsSavedStatsOnFirstUse() throws IOException {
+        Catalog.init(config);
+        int boats = Catalog.STATS.numRows("Boats");
+        Catalog.init(config);
+        assertEquals(0, Catalog.STATS.scanned());
+        Path statsFile = dir.resolve("input").resolve("db").resolve(Stats.STATS_FILE);
+        List<String> lines = Files.readAllLines(statsFile);
+        lines.removeIf(line -> line.startsWith("Boats "));
+        Files.write(statsFile, lines);
+        assertEquals(boats, Catalog.STATS.numRows("Boats"));
+        assertEquals(1, Catalog.STATS.scanned());
+        Catalog.init(config);
+        assertEquals(0, Catalog.STATS.scanned());
+        assertEquals(boats, Catalog.STATS.numRows("Boats"));
+    }
+
+    @Test
+    void testScansChangedTables() throws IOException {
+        Catalog.init(config);
+        File boats = new File(Catalog.pathToTable("Boats"));
+        boats.setLastModified(boats.lastModified() - 10000);
+        Catalog.init(config);
+        assertEquals(1, Catalog.STATS.scanned());
+        boats.setLastModified(boats.lastModified() - 10000);
+        Catalog.STATS.tableRewritten("Boats");
+        Catalog.init(config);
+        assertEquals(0, Catalog.STATS.scanned());
+    }
+
+    @Test
+    void testSamplesPages() throws IOException {
+        Catalog.init(config);
+        int boats = Catalog.STATS.numRows("Boats");
+        Attribute d = Attribute.bundle("Boats", "D");
+        int distinct = Catalog.STATS.baseTableV(d);
+        Range exact = Catalog.STATS.getDistinctBounds(d);
+        assertEquals(distinct, exact.min);
+        assertEquals(distinct, exact.max);
+        new File(Catalog.pathToTable("Boats")).setLastModified(0);
+        Catalog.StatsSampleFraction = 0.5;
+        try {
+            Catalog.init(config);
+        } finally {
+            Catalog.StatsSampleFraction = 1;
+        }
+        assertEquals(1, Catalog.STATS.scanned());
+        assertEquals(boats, Catalog.STATS.numRows("Boats"));
+        int estimate = Catalog.STATS.baseTableV(d);
+        Range bounds = Catalog.STATS.getDistinctBounds(d);
+        assertTrue(bounds.min <= estimate && estimate <= bounds.max);
+        assertTrue(bounds.min <= distinct);
+        Catalog.init(config);
+        assertEquals(0, Catalog.STATS.scanned());
+        assertEquals(bounds.max, Catalog.STATS.getDistinctBounds(d).max);
+    }
+}
@@ -1,12 +1,15 @@
 package com.dbms.utils;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import com.dbms.index.RID;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -31,38 +34,56 @@ class TupleReaderTest {
         }
     }
 
+    @Test
+    void testMappedReadsMatchPooledReads() throws IOException {
+        TupleReader pooled = new TupleReader(Catalog.pathToTable("Boats"));
+        TupleReader mapped = new TupleReader(Catalog.pathToTable("Boats"), true);
+        int[] expected;
+        do {
+            expected = pooled.nextTuple();
+            assertArrayEquals(expected, mapped.nextTuple());
+        } while (expected != null);
+        for (RID rid : new RID[] {new RID(0, 339), new RID(2, 0), new RID(0, 2), new RID(1, 5)}) {
+            assertArrayEquals(pooled.readTuple(rid), mapped.readTuple(rid));
+            assertArrayEquals(pooled.nextTuple(), mapped.nextTuple());
+        }
+        pooled.reset(995);
+        mapped.reset(995);
+        assertArrayEquals(pooled.nextTuple(), mapped.nextTuple());
+    }
+
     private static String resetTuple(int amount) throws IOException {
         if (amount < 0) {
             tr.reset();
         } else {
             tr.reset(amount);
         }
-        return tr.nextTuple().toString();
+        return Arrays.toString(tr.nextTuple());
     }
 
     private static Stream<Arguments> argumentProvider() throws IOException {
         return Stream.of(
-                Arguments.of("[12, 143, 196]", tr.nextTuple().toString()),
-                Arguments.of("[30, 63, 101]", tr.nextTuple().toString()),
-                Arguments.of("[57, 24, 130]", tr.nextTuple().toString()),
-                Arguments.of("[172, 68, 43]", tr.nextTuple().toString()),
-                Arguments.of("[57, 24, 130]", tr.readTuple(new RID(0, 2)).toString()),
-                Arguments.of("[172, 68, 43]", tr.nextTuple().toString()),
-                Arguments.of("[26, 186, 63]", tr.readTuple(new RID(0, 339)).toString()),
-                Arguments.of("[165, 80, 90]", tr.nextTuple().toString()),
+                Arguments.of("[12, 143, 196]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[30, 63, 101]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[57, 24, 130]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[172, 68, 43]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[57, 24, 130]", Arrays.toString(tr.readTuple(new RID(0, 2)))),
+                Arguments.of("[172, 68, 43]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[26, 186, 63]", Arrays.toString(tr.readTuple(new RID(0, 339)))),
+                Arguments.of("[165, 80, 90]", Arrays.toString(tr.nextTuple())),
                 Arguments.of("[12, 143, 196]", resetTuple(-1)),
-                Arguments.of("[30, 63, 101]", tr.nextTuple().toString()),
-                Arguments.of("[57, 24, 130]", tr.nextTuple().toString()),
-                Arguments.of("[172, 68, 43]", tr.nextTuple().toString()),
+                Arguments.of("[30, 63, 101]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[57, 24, 130]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[172, 68, 43]", Arrays.toString(tr.nextTuple())),
                 Arguments.of("[57, 24, 130]", resetTuple(2)),
-                Arguments.of("[172, 68, 43]", tr.nextTuple().toString()),
-                Arguments.of("[61, 58, 36]", tr.nextTuple().toString()),
-                Arguments.of("[199, 47, 127]", tr.nextTuple().toString()),
+                Arguments.of("[172, 68, 43]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[61, 58, 36]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[199, 47, 127]", Arrays.toString(tr.nextTuple())),
                 Arguments.of("[105, 166, 52]", resetTuple(995)),
-                Arguments.of("[199, 162, 162]", tr.nextTuple().toString()),
-                Arguments.of("[36, 128, 28]", tr.nextTuple().toString()),
-                Arguments.of("[181, 83, 135]", tr.nextTuple().toString()),
-                Arguments.of("[44, 39, 136]", tr.nextTuple().toString()),
+                Arguments.of("[199, 162, 162]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[36, 128, 28]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[181, 83, 135]", Arrays.toString(tr.nextTuple())),
+                Arguments.of("[44, 39, 136]", Arrays.toString(tr.nextTuple())),
                 Arguments.of("null", tr.nextTuple()));
     }
 }